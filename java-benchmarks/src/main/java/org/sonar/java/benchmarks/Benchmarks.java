@@ -0,0 +1,86 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs benchmarks with the allocation profiler and the profiler of syntax tree sizes, and reports their results in analyzed files per second and allocated bytes per file.
+ * Accepts the usual JMH command line options, for instance a regular expression to select benchmarks.
+ */
+public final class Benchmarks {
+
+  private static final String ALLOCATED_BYTES = "gc.alloc.rate.norm";
+
+  private Benchmarks() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .addProfiler(SyntaxTreeSizeProfiler.class)
+      .mode(Mode.AverageTime)
+      .timeUnit(TimeUnit.MILLISECONDS)
+      .build();
+    Collection<RunResult> results = new Runner(options).run();
+
+    System.out.println();
+    System.out.println(String.format("%-90s %12s %16s", "Benchmark", "files/s", "bytes/file"));
+    for (RunResult result : results) {
+      String benchmark = result.getParams().getBenchmark();
+      int files = benchmark.startsWith(ChecksBenchmark.class.getName()) ? ChecksBenchmark.filesPerOperation() : 1;
+      double millisPerOperation = result.getPrimaryResult().getScore();
+      System.out.println(String.format("%-90s %12.1f %16.0f",
+        benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1) + params(result),
+        files * 1000 / millisPerOperation,
+        allocatedBytes(result) / files));
+    }
+  }
+
+  private static String params(RunResult result) {
+    StringBuilder sb = new StringBuilder();
+    for (String key : result.getParams().getParamsKeys()) {
+      sb.append(' ').append(key).append('=').append(result.getParams().getParam(key));
+    }
+    return sb.toString();
+  }
+
+  private static double allocatedBytes(RunResult result) {
+    for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+      if (entry.getKey().endsWith(ALLOCATED_BYTES)) {
+        return entry.getValue().getScore();
+      }
+    }
+    return Double.NaN;
+  }
+
+}
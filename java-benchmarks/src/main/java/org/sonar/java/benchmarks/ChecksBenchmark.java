@@ -0,0 +1,100 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sonar.java.JavaAstScanner;
+import org.sonar.java.JavaConfiguration;
+import org.sonar.java.ast.AstScanner;
+import org.sonar.java.checks.CheckList;
+import org.sonar.java.checks.CloseResourceCheck;
+import org.sonar.java.checks.CommentedOutCodeLineCheck;
+import org.sonar.java.checks.NullPointerCheck;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.JavaCheck;
+import org.sonar.squidbridge.SquidAstVisitor;
+import org.sonar.sslr.parser.LexerlessGrammar;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analysis of the whole corpus, from parsing to execution of checks, as done by the sensor for main files.
+ */
+@State(Scope.Thread)
+public class ChecksBenchmark {
+
+  private static final Map<String, List<? extends Class<? extends JavaCheck>>> CHECKS = ImmutableMap.<String, List<? extends Class<? extends JavaCheck>>>of(
+    "all", CheckList.getJavaChecks(),
+    "NullPointerCheck", Lists.newArrayList(NullPointerCheck.class),
+    "CloseResourceCheck", Lists.newArrayList(CloseResourceCheck.class),
+    "CommentedOutCodeLineCheck", Lists.newArrayList(CommentedOutCodeLineCheck.class));
+
+  @Param({"all", "NullPointerCheck", "CloseResourceCheck", "CommentedOutCodeLineCheck"})
+  public String checks;
+
+  private List<File> files;
+  private List<File> classpath;
+  private AstScanner scanner;
+
+  @Setup
+  public void setUp() {
+    files = Corpus.files();
+    classpath = Corpus.classpath();
+  }
+
+  /**
+   * Checks are stateful, so they are created again for each analysis.
+   */
+  @Setup(Level.Invocation)
+  public void createScanner() throws Exception {
+    List<Object> checkInstances = Lists.newArrayList();
+    List<SquidAstVisitor<LexerlessGrammar>> visitors = Lists.newArrayList();
+    for (Class<? extends JavaCheck> checkClass : CHECKS.get(checks)) {
+      JavaCheck check = checkClass.newInstance();
+      checkInstances.add(check);
+      if (check instanceof SquidAstVisitor) {
+        visitors.add((SquidAstVisitor<LexerlessGrammar>) check);
+      }
+    }
+    visitors.add(0, new VisitorsBridge(checkInstances, classpath, null));
+    scanner = JavaAstScanner.create(new JavaConfiguration(Charsets.UTF_8), visitors.toArray(new SquidAstVisitor[visitors.size()]));
+  }
+
+  @Benchmark
+  public AstScanner analyze() {
+    scanner.scan(files);
+    return scanner;
+  }
+
+  static int filesPerOperation() {
+    return Corpus.files().size();
+  }
+
+}
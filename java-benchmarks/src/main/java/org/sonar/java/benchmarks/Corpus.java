@@ -0,0 +1,97 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sources analyzed by benchmarks : by default the struts-1.3.9-lite project of integration tests,
+ * whose classpath is copied to <tt>target/corpus-classpath</tt> by the build.
+ * Both can be overridden with the <tt>corpus.dir</tt> and <tt>corpus.classpath</tt> system properties.
+ */
+final class Corpus {
+
+  private static final String DEFAULT_DIRECTORY = "its/plugin/projects/struts-1.3.9-lite";
+  private static final String DEFAULT_CLASSPATH = "java-benchmarks/target/corpus-classpath";
+
+  private Corpus() {
+  }
+
+  /**
+   * @return all Java files of the corpus, sorted by path
+   */
+  static List<File> files() {
+    List<File> files = Lists.newArrayList(FileUtils.listFiles(locate("corpus.dir", DEFAULT_DIRECTORY), new String[] {"java"}, true));
+    Collections.sort(files);
+    return files;
+  }
+
+  /**
+   * @param size <tt>small</tt>, <tt>medium</tt> or <tt>huge</tt> : respectively the files at 10th and 50th percentiles of size, and the biggest one
+   */
+  static File file(String size) {
+    List<File> files = files();
+    Collections.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File o1, File o2) {
+        return Long.valueOf(o1.length()).compareTo(o2.length());
+      }
+    });
+    if ("small".equals(size)) {
+      return files.get(files.size() / 10);
+    } else if ("medium".equals(size)) {
+      return files.get(files.size() / 2);
+    } else if ("huge".equals(size)) {
+      return files.get(files.size() - 1);
+    }
+    throw new IllegalArgumentException("Unknown size: " + size);
+  }
+
+  static List<File> classpath() {
+    File directory = locate("corpus.classpath", DEFAULT_CLASSPATH);
+    return Lists.newArrayList(FileUtils.listFiles(directory, new String[] {"jar"}, false));
+  }
+
+  /**
+   * Default locations are relative to the root of the project, from which or from a module of which benchmarks are run.
+   */
+  private static File locate(String property, String defaultLocation) {
+    String location = System.getProperty(property);
+    File file;
+    if (location != null) {
+      file = new File(location);
+    } else {
+      file = new File(defaultLocation);
+      if (!file.exists()) {
+        file = new File("..", defaultLocation);
+      }
+    }
+    Preconditions.checkState(file.isDirectory(), "Directory not found: " + file.getAbsolutePath() + ", set the " + property + " property");
+    return file;
+  }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Resource;
+import org.sonar.graph.DirectedGraph;
+import org.sonar.java.bytecode.BytecodeVisitorNotifier;
+import org.sonar.java.bytecode.asm.AsmClass;
+import org.sonar.java.bytecode.asm.AsmClassProviderImpl;
+import org.sonar.java.bytecode.visitor.BytecodeVisitor;
+import org.sonar.java.bytecode.visitor.DependenciesVisitor;
+import org.sonar.java.bytecode.visitor.ResourceMapping;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.JavaResourceLocator;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dependency graph of files and packages built from the bytecode of a generated project, whose classes call classes of other packages.
+ * Packages have a constant number of classes, so that the number of file dependencies behind each package dependency grows with the project :
+ * time per class should not.
+ */
+@State(Scope.Thread)
+public class DesignGraphBenchmark {
+
+  private static final int CLASSES_PER_PACKAGE = 250;
+  private static final int CALLS_PER_CLASS = 10;
+
+  @Param({"10000", "50000"})
+  public int classes;
+
+  private List<AsmClass> asmClasses;
+  private GeneratedProjectLocator javaResourceLocator;
+
+  @Setup
+  public void setUp() {
+    Map<String, byte[]> bytecode = Maps.newHashMap();
+    for (int i = 0; i < classes; i++) {
+      bytecode.put(className(i) + ".class", bytecode(i));
+    }
+    AsmClassProviderImpl classProvider = new AsmClassProviderImpl(new GeneratedClassLoader(bytecode));
+    javaResourceLocator = new GeneratedProjectLocator();
+    asmClasses = Lists.newArrayList();
+    for (int i = 0; i < classes; i++) {
+      String className = className(i);
+      asmClasses.add(classProvider.getClass(className));
+      javaResourceLocator.resources.put(className, new org.sonar.api.resources.File(packageName(i), "C" + i + ".java"));
+    }
+  }
+
+  private static String packageName(int i) {
+    return "p" + i / CLASSES_PER_PACKAGE;
+  }
+
+  private static String className(int i) {
+    return packageName(i) + "/C" + i;
+  }
+
+  private byte[] bytecode(int i) {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, className(i), null, "java/lang/Object", null);
+    MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    method.visitCode();
+    for (int call = 1; call <= CALLS_PER_CLASS; call++) {
+      int callee = (int) ((i + (long) call * 7919 * CLASSES_PER_PACKAGE) % classes);
+      method.visitMethodInsn(Opcodes.INVOKESTATIC, className(callee), "run", "()V", false);
+    }
+    method.visitInsn(Opcodes.RETURN);
+    method.visitMaxs(0, 0);
+    method.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  @Benchmark
+  public DirectedGraph<Resource, Dependency> dependencies() {
+    javaResourceLocator.resourceMapping = new ResourceMapping();
+    DirectedGraph<Resource, Dependency> graph = new DirectedGraph<Resource, Dependency>();
+    BytecodeVisitor[] visitors = {new DependenciesVisitor(graph)};
+    for (AsmClass asmClass : asmClasses) {
+      new BytecodeVisitorNotifier(asmClass, visitors).notifyVisitors(null, javaResourceLocator);
+    }
+    return graph;
+  }
+
+  private static class GeneratedClassLoader extends ClassLoader {
+
+    private final Map<String, byte[]> bytecode;
+
+    GeneratedClassLoader(Map<String, byte[]> bytecode) {
+      super(null);
+      this.bytecode = bytecode;
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+      byte[] bytes = bytecode.get(name);
+      return bytes == null ? super.getResourceAsStream(name) : new ByteArrayInputStream(bytes);
+    }
+  }
+
+  private static class GeneratedProjectLocator implements JavaResourceLocator {
+
+    private final Map<String, Resource> resources = Maps.newHashMap();
+    private ResourceMapping resourceMapping;
+
+    @Override
+    public Resource findResourceByClassName(String className) {
+      return resources.get(className);
+    }
+
+    @Override
+    public String findSourceFileKeyByClassName(String className) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<String> classKeys() {
+      return resources.keySet();
+    }
+
+    @Override
+    public Collection<File> classFilesToAnalyze() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<File> classpath() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Integer getMethodStartLine(String fullyQualifiedMethodName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ResourceMapping getResourceMapping() {
+      return resourceMapping;
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
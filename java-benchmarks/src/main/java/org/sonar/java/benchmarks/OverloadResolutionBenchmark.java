@@ -0,0 +1,97 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+import java.io.File;
+import java.util.Collections;
+
+/**
+ * Semantic model of a generated file where every invocation has to select among many overloads,
+ * whose parameters are types of a deep class and interface hierarchy : dominated by subtyping checks.
+ */
+@State(Scope.Thread)
+public class OverloadResolutionBenchmark {
+
+  private static final int INVOCATIONS = 500;
+
+  @Param({"10", "30"})
+  public int depth;
+
+  private Parser parser;
+  private String source;
+  private CompilationUnitTree tree;
+  private SemanticModel semanticModel;
+
+  @Setup
+  public void setUp() {
+    parser = JavaParser.createParser(Charsets.UTF_8);
+    source = source(depth);
+  }
+
+  private static String source(int depth) {
+    StringBuilder sb = new StringBuilder("class Overloads {\n");
+    sb.append("  interface I0 {}\n  static class C0 implements I0 {}\n");
+    for (int i = 1; i < depth; i++) {
+      sb.append("  interface I").append(i).append(" extends I").append(i - 1).append(" {}\n");
+      sb.append("  static class C").append(i).append(" extends C").append(i - 1).append(" implements I").append(i).append(" {}\n");
+    }
+    for (int i = 0; i < depth; i++) {
+      sb.append("  void m(C").append(i).append(" c, I").append(i).append(" i) {}\n");
+    }
+    sb.append("  void invocations(C").append(depth - 1).append(" c) {\n");
+    for (int i = 0; i < INVOCATIONS; i++) {
+      sb.append("    m(c, new C").append(i % depth).append("());\n");
+    }
+    return sb.append("  }\n}\n").toString();
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() {
+    tree = (CompilationUnitTree) parser.parse(source);
+  }
+
+  @TearDown(Level.Invocation)
+  public void done() {
+    if (semanticModel != null) {
+      semanticModel.done();
+      semanticModel = null;
+    }
+  }
+
+  @Benchmark
+  public SemanticModel createFor() {
+    semanticModel = SemanticModel.createFor(tree, Collections.<File>emptyList());
+    return semanticModel;
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sonar.java.ast.parser.JavaParser;
+
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+  @Param({"small", "medium", "huge"})
+  public String size;
+
+  private Parser parser;
+  private String source;
+
+  @Setup
+  public void setUp() throws IOException {
+    parser = JavaParser.createParser(Charsets.UTF_8);
+    source = Files.toString(Corpus.file(size), Charsets.UTF_8);
+  }
+
+  @Benchmark
+  public AstNode parse() {
+    return parser.parse(source);
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Semantic model of a single file, as symbols are attached to the tree, the file is parsed again before each invocation.
+ */
+@State(Scope.Thread)
+public class SemanticModelBenchmark {
+
+  @Param({"medium", "huge"})
+  public String size;
+
+  @Param({"false", "true"})
+  public boolean withClasspath;
+
+  private Parser parser;
+  private String source;
+  private List<File> classpath;
+  private CompilationUnitTree tree;
+  private SemanticModel semanticModel;
+
+  @Setup
+  public void setUp() throws IOException {
+    parser = JavaParser.createParser(Charsets.UTF_8);
+    source = Files.toString(Corpus.file(size), Charsets.UTF_8);
+    classpath = withClasspath ? Corpus.classpath() : Collections.<File>emptyList();
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() {
+    tree = (CompilationUnitTree) parser.parse(source);
+  }
+
+  @TearDown(Level.Invocation)
+  public void done() {
+    if (semanticModel != null) {
+      semanticModel.done();
+      semanticModel = null;
+    }
+  }
+
+  @Benchmark
+  public SemanticModel createFor() {
+    semanticModel = SemanticModel.createFor(tree, classpath);
+    return semanticModel;
+  }
+
+}
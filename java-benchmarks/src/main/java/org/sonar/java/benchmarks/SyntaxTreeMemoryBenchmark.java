@@ -0,0 +1,77 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sonar.java.ast.parser.JavaParser;
+
+/**
+ * Time and bytes allocated to parse a large generated file.
+ * The heap retained by its syntax tree is reported by {@link SyntaxTreeSizeProfiler}.
+ */
+@State(Scope.Thread)
+public class SyntaxTreeMemoryBenchmark {
+
+  @Param({"1000", "10000"})
+  public int methods;
+
+  private Parser parser;
+  private String source;
+
+  @Setup
+  public void setUp() {
+    parser = JavaParser.createParser(Charsets.UTF_8);
+    source = generateSource(methods);
+  }
+
+  @Benchmark
+  public AstNode parse() {
+    return parser.parse(source);
+  }
+
+  /**
+   * @return a class with the given number of methods, each of them made of a few lines of usual statements
+   */
+  static String generateSource(int methods) {
+    StringBuilder sb = new StringBuilder("package generated;\n\nimport java.util.List;\n\npublic class Generated {\n");
+    for (int i = 0; i < methods; i++) {
+      sb.append("  public int method").append(i).append("(List<String> values, int p) {\n")
+        .append("    int result = p * ").append(i).append(";\n")
+        .append("    for (String value : values) {\n")
+        .append("      if (value.length() > p && result % 3 == 0) {\n")
+        .append("        result += value.charAt(0);\n")
+        .append("      } else {\n")
+        .append("        result -= method").append(Math.max(0, i - 1)).append("(values, p - 1);\n")
+        .append("      }\n")
+        .append("    }\n")
+        .append("    return (\"method ").append(i).append(": \" + result).length();\n")
+        .append("  }\n");
+    }
+    return sb.append("}\n").toString();
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.impl.Parser;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerResult;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.sonar.java.ast.parser.JavaParser;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reports the heap retained by the syntax tree of the file parsed by {@link SyntaxTreeMemoryBenchmark}, in bytes per line of the file.
+ * <p>
+ * The retained heap is the size of the objects reachable from the tree, except the objects shared by all trees of a parser,
+ * such as its grammar. Sizes are those of a 64-bit JVM with compressed references : they are computed from the fields of the objects,
+ * so that they neither depend on collections of the heap nor on other objects of the benchmark.
+ * <p>
+ * Enabled by {@link Benchmarks}, or with the JMH option {@code -prof org.sonar.java.benchmarks.SyntaxTreeSizeProfiler}.
+ */
+public class SyntaxTreeSizeProfiler implements InternalProfiler {
+
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int ALIGNMENT = 8;
+
+  private final Map<Class<?>, Layout> layouts = Maps.newHashMap();
+
+  @Override
+  public String getDescription() {
+    return "Heap retained by the syntax tree of " + SyntaxTreeMemoryBenchmark.class.getSimpleName();
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    // nothing to prepare, the tree is built after the iteration
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    if (!benchmarkParams.getBenchmark().startsWith(SyntaxTreeMemoryBenchmark.class.getName())) {
+      return Collections.emptyList();
+    }
+    String source = SyntaxTreeMemoryBenchmark.generateSource(Integer.parseInt(benchmarkParams.getParam("methods")));
+    Parser parser = JavaParser.createParser(Charsets.UTF_8);
+    Set<Object> shared = reachableObjects(parser, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    AstNode tree = parser.parse(source);
+    long retained = size(reachableObjects(tree, shared));
+    int lines = tree.getLastToken().getLine();
+    return ImmutableList.of(
+      new ProfilerResult("tree.retained", retained, "bytes", AggregationPolicy.AVG),
+      new ProfilerResult("tree.retained.norm", (double) retained / lines, "bytes/line", AggregationPolicy.AVG));
+  }
+
+  /**
+   * @return objects reachable from the root through instance fields and arrays, which are not already in the given set.
+   * Classes and enum constants are shared by all trees, and are not followed.
+   */
+  private Set<Object> reachableObjects(Object root, Set<Object> excluded) {
+    Set<Object> reached = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    Deque<Object> toVisit = new ArrayDeque<>();
+    toVisit.push(root);
+    while (!toVisit.isEmpty()) {
+      Object object = toVisit.pop();
+      if (object instanceof Class || object instanceof Enum || excluded.contains(object) || !reached.add(object)) {
+        continue;
+      }
+      Class<?> type = object.getClass();
+      if (type.isArray()) {
+        if (!type.getComponentType().isPrimitive()) {
+          for (int i = 0; i < Array.getLength(object); i++) {
+            pushIfNotNull(toVisit, Array.get(object, i));
+          }
+        }
+      } else {
+        for (Field field : layout(type).references) {
+          pushIfNotNull(toVisit, get(field, object));
+        }
+      }
+    }
+    return reached;
+  }
+
+  private static void pushIfNotNull(Deque<Object> toVisit, Object object) {
+    if (object != null) {
+      toVisit.push(object);
+    }
+  }
+
+  private static Object get(Field field, Object object) {
+    try {
+      return field.get(object);
+    } catch (IllegalAccessException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private long size(Set<Object> objects) {
+    long size = 0;
+    for (Object object : objects) {
+      Class<?> type = object.getClass();
+      if (type.isArray()) {
+        size += align(ARRAY_HEADER + (long) Array.getLength(object) * fieldSize(type.getComponentType()));
+      } else {
+        size += layout(type).size;
+      }
+    }
+    return size;
+  }
+
+  private Layout layout(Class<?> type) {
+    Layout layout = layouts.get(type);
+    if (layout == null) {
+      long size = OBJECT_HEADER;
+      List<Field> references = Lists.newArrayList();
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            size += fieldSize(field.getType());
+            if (!field.getType().isPrimitive()) {
+              field.setAccessible(true);
+              references.add(field);
+            }
+          }
+        }
+      }
+      layout = new Layout(align(size), references);
+      layouts.put(type, layout);
+    }
+    return layout;
+  }
+
+  private static int fieldSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  private static long align(long size) {
+    return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  private static class Layout {
+
+    private final long size;
+    private final List<Field> references;
+
+    Layout(long size, List<Field> references) {
+      this.size = size;
+      this.references = references;
+    }
+
+  }
+
+}
@@ -25,6 +25,7 @@ import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.java.closeresource.CloseableVisitor;
 import org.sonar.java.symexecengine.DataFlowVisitor;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.Type;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.NewClassTree;
@@ -34,6 +35,7 @@ import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
 import java.util.List;
+import java.util.Set;
 
 @Rule(
   key = "S2095",
@@ -43,21 +45,23 @@ import java.util.List;
 @ActivatedByDefault
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.LOGIC_RELIABILITY)
 @SqaleConstantRemediation("5min")
-public class CloseResourceCheck extends SubscriptionBaseVisitor {
+public class CloseResourceCheck extends MethodAnalysisVisitor<Set<Tree>> {
 
   @Override
-  public List<Tree.Kind> nodesToVisit() {
+  protected List<Tree.Kind> methodKinds() {
     return ImmutableList.of(Tree.Kind.METHOD);
   }
 
   @Override
-  public void visitNode(Tree tree) {
-    if (!hasSemantic()) {
-      return;
-    }
+  protected Set<Tree> analyze(JavaFileScannerContext fileContext, MethodTree tree) {
     CloseableVisitor visitor = new CloseableVisitor();
-    DataFlowVisitor.analyze((MethodTree) tree, visitor);
-    for (Tree issueTree : visitor.getIssueTrees()) {
+    DataFlowVisitor.analyze(tree, visitor);
+    return visitor.getIssueTrees();
+  }
+
+  @Override
+  protected void report(Set<Tree> issueTrees) {
+    for (Tree issueTree : issueTrees) {
       Type reportedType = null;
       if (issueTree.is(Tree.Kind.NEW_CLASS)) {
         reportedType = ((NewClassTree) issueTree).symbolType();
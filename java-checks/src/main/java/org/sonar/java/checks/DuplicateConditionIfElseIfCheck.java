@@ -19,6 +19,9 @@
  */
 package org.sonar.java.checks;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
@@ -34,6 +37,9 @@ import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
+import java.util.List;
+import java.util.Set;
+
 @Rule(
   key = "S1862",
   name = "Related \"if/else if\" statements should not have the same condition",
@@ -45,32 +51,57 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 public class DuplicateConditionIfElseIfCheck extends BaseTreeVisitor implements JavaFileScanner {
 
   private JavaFileScannerContext context;
+  private final Set<IfStatementTree> elseIfStatements = Sets.newHashSet();
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
     this.context = context;
+    elseIfStatements.clear();
 
     scan(context.getTree());
   }
 
   @Override
   public void visitIfStatement(IfStatementTree tree) {
-    ExpressionTree condition = tree.condition();
+    if (!elseIfStatements.remove(tree)) {
+      checkConditions(tree);
+    }
+
+    super.visitIfStatement(tree);
+  }
+
+  /**
+   * Conditions of the whole sequence are bucketed by structural hash, so only conditions of the same bucket are compared.
+   */
+  private void checkConditions(IfStatementTree tree) {
+    ListMultimap<Integer, ExpressionTree> previousConditionsByHash = ArrayListMultimap.create();
+    previousConditionsByHash.put(SyntacticEquivalence.hash(tree.condition()), tree.condition());
 
     StatementTree statement = tree.elseStatement();
     while (statement != null && statement.is(Tree.Kind.IF_STATEMENT)) {
       IfStatementTree ifStatement = (IfStatementTree) statement;
-      if (SyntacticEquivalence.areEquivalent(condition, ifStatement.condition())) {
+      elseIfStatements.add(ifStatement);
+      ExpressionTree condition = ifStatement.condition();
+      int hash = SyntacticEquivalence.hash(condition);
+      if (hasEquivalent(previousConditionsByHash.get(hash), condition)) {
         context.addIssue(
-          ifStatement.condition(),
+          condition,
           this,
           "This branch can not be reached because the condition duplicates a previous condition in the same sequence of \"if/else if\" statements"
         );
       }
+      previousConditionsByHash.put(hash, condition);
       statement = ifStatement.elseStatement();
     }
+  }
 
-    super.visitIfStatement(tree);
+  private static boolean hasEquivalent(List<ExpressionTree> candidates, ExpressionTree condition) {
+    for (ExpressionTree candidate : candidates) {
+      if (SyntacticEquivalence.areEquivalent(candidate, condition)) {
+        return true;
+      }
+    }
+    return false;
   }
 
 }
@@ -19,8 +19,9 @@
  */
 package org.sonar.java.checks;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
+import com.google.common.collect.ListMultimap;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
@@ -34,7 +35,6 @@ import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
 import java.util.List;
-import java.util.Set;
 
 @Rule(
   key = "S1871",
@@ -53,21 +53,17 @@ public class IdenticalCasesInSwitchCheck extends SubscriptionBaseVisitor {
   @Override
   public void visitNode(Tree tree) {
     SwitchStatementTree switchStatementTree = (SwitchStatementTree) tree;
-    int index = 0;
-    List<CaseGroupTree> cases = switchStatementTree.cases();
-    Set<CaseLabelTree> reportedLabels = Sets.newHashSet();
-    for (CaseGroupTree caseGroupTree : cases) {
-      index++;
-      for (int i = index; i < cases.size(); i++) {
-        if (SyntacticEquivalence.areEquivalent(caseGroupTree.body(), cases.get(i).body())) {
-          CaseLabelTree labelToReport = getLastLabel(cases.get(i));
-          if (!reportedLabels.contains(labelToReport)) {
-            reportedLabels.add(labelToReport);
-            int line = FirstSyntaxTokenFinder.firstSyntaxToken(caseGroupTree).line();
-            addIssue(labelToReport, "Either merge this case with the identical one on line \"" + line + "\" or change one of the implementations.");
-          }
+    ListMultimap<Integer, CaseGroupTree> previousCasesByHash = ArrayListMultimap.create();
+    for (CaseGroupTree caseGroupTree : switchStatementTree.cases()) {
+      int hash = SyntacticEquivalence.hash(caseGroupTree.body());
+      for (CaseGroupTree previousCase : previousCasesByHash.get(hash)) {
+        if (SyntacticEquivalence.areEquivalent(previousCase.body(), caseGroupTree.body())) {
+          int line = FirstSyntaxTokenFinder.firstSyntaxToken(previousCase).line();
+          addIssue(getLastLabel(caseGroupTree), "Either merge this case with the identical one on line \"" + line + "\" or change one of the implementations.");
+          break;
         }
       }
+      previousCasesByHash.put(hash, caseGroupTree);
     }
   }
 
@@ -25,6 +25,7 @@ import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.java.locks.LockedVisitor;
 import org.sonar.java.symexecengine.DataFlowVisitor;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
@@ -32,6 +33,7 @@ import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
 import java.util.List;
+import java.util.Set;
 
 @Rule(
   key = "S2222",
@@ -41,21 +43,23 @@ import java.util.List;
 @ActivatedByDefault
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.SYNCHRONIZATION_RELIABILITY)
 @SqaleConstantRemediation("20min")
-public class LocksNotUnlockedCheck extends SubscriptionBaseVisitor {
+public class LocksNotUnlockedCheck extends MethodAnalysisVisitor<Set<Tree>> {
 
   @Override
-  public List<Tree.Kind> nodesToVisit() {
+  protected List<Tree.Kind> methodKinds() {
     return ImmutableList.of(Tree.Kind.METHOD);
   }
 
   @Override
-  public void visitNode(Tree tree) {
-    if (!hasSemantic()) {
-      return;
-    }
+  protected Set<Tree> analyze(JavaFileScannerContext fileContext, MethodTree tree) {
     LockedVisitor visitor = new LockedVisitor();
-    DataFlowVisitor.analyze((MethodTree) tree, visitor);
-    for (Tree issueTree : visitor.getIssueTrees()) {
+    DataFlowVisitor.analyze(tree, visitor);
+    return visitor.getIssueTrees();
+  }
+
+  @Override
+  protected void report(Set<Tree> issueTrees) {
+    for (Tree issueTree : issueTrees) {
       addIssue(issueTree, "Unlock this lock.");
     }
   }
@@ -0,0 +1,132 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import org.sonar.java.ast.visitors.ParallelMethodAnalysis;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Visitor which analyzes each method of a file independently of the others.
+ * When a method analysis pool is set, methods are analyzed on its threads while the file is visited,
+ * and their results are reported once the whole file is visited, in the order of the methods in the file.
+ * {@link #analyze(JavaFileScannerContext, MethodTree)} may then run on several threads at once : it must not modify the state of the visitor,
+ * and must use the context it is given rather than the one of the visitor, which is the one of the next file once the analysis is cancelled.
+ *
+ * @param <T> result of the analysis of a method
+ */
+public abstract class MethodAnalysisVisitor<T> extends SubscriptionBaseVisitor implements ParallelMethodAnalysis {
+
+  @Nullable
+  private ForkJoinPool pool;
+  private final List<Future<T>> pendingResults = new ArrayList<>();
+
+  @Override
+  public void setMethodAnalysisPool(@Nullable ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * @return kinds of the methods to analyze
+   */
+  protected abstract List<Tree.Kind> methodKinds();
+
+  /**
+   * Analyzes a method of the file of the given context, on the visiting thread or on a thread of the pool.
+   */
+  protected abstract T analyze(JavaFileScannerContext fileContext, MethodTree tree);
+
+  /**
+   * Reports the result of a method, on the visiting thread.
+   */
+  protected abstract void report(T result);
+
+  @Override
+  public List<Tree.Kind> nodesToVisit() {
+    return ImmutableList.<Tree.Kind>builder().add(Tree.Kind.COMPILATION_UNIT).addAll(methodKinds()).build();
+  }
+
+  @Override
+  public void visitNode(Tree tree) {
+    if (tree.is(Tree.Kind.COMPILATION_UNIT)) {
+      cancelPendingResults();
+    } else if (hasSemantic()) {
+      final JavaFileScannerContext fileContext = context;
+      final MethodTree method = (MethodTree) tree;
+      if (pool == null) {
+        report(analyze(fileContext, method));
+      } else {
+        pendingResults.add(pool.submit(new Callable<T>() {
+          @Override
+          public T call() {
+            return analyze(fileContext, method);
+          }
+        }));
+      }
+    }
+  }
+
+  @Override
+  public void leaveNode(Tree tree) {
+    if (tree.is(Tree.Kind.COMPILATION_UNIT)) {
+      try {
+        for (Future<T> result : pendingResults) {
+          report(get(result));
+        }
+      } finally {
+        cancelPendingResults();
+      }
+    }
+  }
+
+  /**
+   * Analyses of a file which were not reported, because reporting failed or the file was not fully visited, are not run.
+   */
+  private void cancelPendingResults() {
+    for (Future<T> result : pendingResults) {
+      result.cancel(true);
+    }
+    pendingResults.clear();
+  }
+
+  private static <T> T get(Future<T> result) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+}
@@ -23,15 +23,18 @@ import com.google.common.collect.ImmutableList;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
 import org.sonar.java.symexec.ExecutionState;
 import org.sonar.java.symexec.SymbolicBooleanConstraint;
 import org.sonar.java.symexec.SymbolicEvaluator;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -43,20 +46,67 @@ import java.util.Map;
 @ActivatedByDefault
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.LOGIC_RELIABILITY)
 @SqaleConstantRemediation("15min")
-public class UselessConditionCheck extends SubscriptionBaseVisitor {
+public class UselessConditionCheck extends MethodAnalysisVisitor<Map<Tree, SymbolicBooleanConstraint>> {
+
+  private static final int DEFAULT_MAXIMUM_FILE_TIME = 0;
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  @RuleProperty(defaultValue = "" + SymbolicEvaluator.DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT,
+    description = "Maximum number of execution states explored in a method")
+  public int maximumExecutionStates = SymbolicEvaluator.DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT;
+
+  @RuleProperty(defaultValue = "" + SymbolicEvaluator.DEFAULT_MAXIMAL_TIME_MILLIS, description = "Maximum time in milliseconds spent to explore a method, 0 for no limit")
+  public int maximumMethodTime = (int) SymbolicEvaluator.DEFAULT_MAXIMAL_TIME_MILLIS;
+
+  @RuleProperty(defaultValue = "" + DEFAULT_MAXIMUM_FILE_TIME, description = "Maximum time in milliseconds spent to explore the methods of a file, 0 for no limit")
+  public int maximumFileTime = DEFAULT_MAXIMUM_FILE_TIME;
+
+  @RuleProperty(defaultValue = "" + SymbolicEvaluator.DEFAULT_MAXIMAL_NESTING_DEPTH, description = "Maximum nesting depth of the statements explored")
+  public int maximumNestingDepth = SymbolicEvaluator.DEFAULT_MAXIMAL_NESTING_DEPTH;
+
+  private volatile FileTimeBudget fileTimeBudget;
 
   @Override
-  public List<Tree.Kind> nodesToVisit() {
+  protected List<Tree.Kind> methodKinds() {
     return ImmutableList.of(Tree.Kind.CONSTRUCTOR, Tree.Kind.METHOD);
   }
 
   @Override
-  public void visitNode(Tree tree) {
-    if (!hasSemantic()) {
-      return;
+  public void setContext(JavaFileScannerContext context) {
+    super.setContext(context);
+    fileTimeBudget = new FileTimeBudget(context, maximumFileTime * NANOS_PER_MILLI);
+  }
+
+  @Override
+  protected Map<Tree, SymbolicBooleanConstraint> analyze(JavaFileScannerContext fileContext, MethodTree tree) {
+    FileTimeBudget budget = fileTimeBudget;
+    if (budget.context != fileContext) {
+      // analysis of a previous file which was cancelled
+      return Collections.emptyMap();
+    }
+    if (maximumFileTime == 0) {
+      return evaluate(fileContext, tree, maximumMethodTime);
+    }
+    long startNanos = System.nanoTime();
+    long remainingMillis = budget.start(startNanos);
+    if (remainingMillis <= 0) {
+      return Collections.emptyMap();
     }
-    SymbolicEvaluator engine = new SymbolicEvaluator();
-    for (Map.Entry<Tree, SymbolicBooleanConstraint> entry : engine.evaluateMethod(context, new ExecutionState(), (MethodTree) tree).entrySet()) {
+    try {
+      return evaluate(fileContext, tree, maximumMethodTime == 0 ? remainingMillis : Math.min(maximumMethodTime, remainingMillis));
+    } finally {
+      budget.stop(startNanos, System.nanoTime());
+    }
+  }
+
+  private Map<Tree, SymbolicBooleanConstraint> evaluate(JavaFileScannerContext fileContext, MethodTree tree, long maximumTime) {
+    SymbolicEvaluator engine = new SymbolicEvaluator(maximumExecutionStates, maximumTime, maximumNestingDepth);
+    return engine.evaluateMethod(fileContext, new ExecutionState(), tree);
+  }
+
+  @Override
+  protected void report(Map<Tree, SymbolicBooleanConstraint> result) {
+    for (Map.Entry<Tree, SymbolicBooleanConstraint> entry : result.entrySet()) {
       switch (entry.getValue()) {
         case FALSE:
           raiseIssue(entry.getKey(), "false");
@@ -74,4 +124,41 @@ public class UselessConditionCheck extends SubscriptionBaseVisitor {
     addIssue(tree, String.format("Change this condition so that it does not always evaluate to \"%s\"", value));
   }
 
+  /**
+   * Time spent on the methods of a file by the threads analyzing them.
+   * Time of the analyses still running is counted, so that an analysis starting while others run in parallel does not exceed the budget.
+   */
+  static class FileTimeBudget {
+
+    private final JavaFileScannerContext context;
+    private final long maximumNanos;
+    private long spentNanos;
+    private long runningStartsNanos;
+    private int runningAnalyses;
+
+    FileTimeBudget(JavaFileScannerContext context, long maximumNanos) {
+      this.context = context;
+      this.maximumNanos = maximumNanos;
+    }
+
+    /**
+     * @return time in milliseconds left to the analysis starting at the given time, which must be stopped when positive
+     */
+    synchronized long start(long startNanos) {
+      long remainingMillis = (maximumNanos - spentNanos - (runningAnalyses * startNanos - runningStartsNanos)) / NANOS_PER_MILLI;
+      if (remainingMillis > 0) {
+        runningAnalyses++;
+        runningStartsNanos += startNanos;
+      }
+      return remainingMillis;
+    }
+
+    synchronized void stop(long startNanos, long stopNanos) {
+      runningAnalyses--;
+      runningStartsNanos -= startNanos;
+      spentNanos += stopNanos - startNanos;
+    }
+
+  }
+
 }
@@ -23,9 +23,15 @@ import com.google.common.collect.ImmutableList;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.dataflow.LiveVariables;
+import org.sonar.java.dataflow.LocalVariables;
 import org.sonar.java.model.SyntacticEquivalence;
+import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.ReturnStatementTree;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.UnaryExpressionTree;
@@ -33,6 +39,10 @@ import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
+import javax.annotation.CheckForNull;
+
+import java.util.Deque;
+import java.util.LinkedList;
 import java.util.List;
 
 @Rule(
@@ -45,16 +55,20 @@ import java.util.List;
 @SqaleConstantRemediation("5min")
 public class UselessIncrementCheck extends SubscriptionBaseVisitor {
 
+  private final Deque<MethodFlow> methods = new LinkedList<>();
+
   @Override
   public List<Tree.Kind> nodesToVisit() {
-    return ImmutableList.of(Tree.Kind.RETURN_STATEMENT, Tree.Kind.ASSIGNMENT);
+    return ImmutableList.of(Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR, Tree.Kind.RETURN_STATEMENT, Tree.Kind.ASSIGNMENT);
   }
 
   @Override
   public void visitNode(Tree tree) {
-    if (tree.is(Tree.Kind.RETURN_STATEMENT)) {
+    if (tree.is(Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR)) {
+      methods.push(new MethodFlow((MethodTree) tree));
+    } else if (tree.is(Tree.Kind.RETURN_STATEMENT)) {
       ExpressionTree returnExpression = ((ReturnStatementTree) tree).expression();
-      if (returnExpression != null && isPostfix(returnExpression)) {
+      if (returnExpression != null && isPostfix(returnExpression) && isUselessIncrement((ReturnStatementTree) tree, (UnaryExpressionTree) returnExpression)) {
         addIssue(returnExpression);
       }
     } else if (tree.is(Tree.Kind.ASSIGNMENT)) {
@@ -68,6 +82,32 @@ public class UselessIncrementCheck extends SubscriptionBaseVisitor {
     }
   }
 
+  @Override
+  public void leaveNode(Tree tree) {
+    if (tree.is(Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR)) {
+      methods.pop();
+    }
+  }
+
+  /**
+   * The incremented value is lost, unless the incremented variable is a local variable read by a finally block.
+   * Increments of fields are always reported, even though the field keeps the incremented value.
+   */
+  private boolean isUselessIncrement(ReturnStatementTree returnStatement, UnaryExpressionTree postfix) {
+    MethodFlow method = methods.peek();
+    if (method == null || !postfix.expression().is(Tree.Kind.IDENTIFIER)) {
+      return true;
+    }
+    Symbol symbol = ((IdentifierTree) postfix.expression()).symbol();
+    int variable = method.variables().index(symbol);
+    if (variable < 0) {
+      return true;
+    }
+    CFG.Block block = method.block(returnStatement);
+    // returns of lambdas are not part of the graph of the method
+    return block == null || !method.liveVariables().isLiveAfter(block, postfix, variable);
+  }
+
   private void addIssue(ExpressionTree expression) {
     addIssue(expression, "Remove this increment or correct the code not to waste it.");
   }
@@ -76,4 +116,41 @@ public class UselessIncrementCheck extends SubscriptionBaseVisitor {
     return tree.is(Tree.Kind.POSTFIX_INCREMENT, Tree.Kind.POSTFIX_DECREMENT);
   }
 
+  /**
+   * Liveness of the local variables of a method, computed on the first return which increments a local variable.
+   */
+  private static class MethodFlow {
+    private final MethodTree tree;
+    private LocalVariables variables;
+    private LiveVariables liveVariables;
+
+    MethodFlow(MethodTree tree) {
+      this.tree = tree;
+    }
+
+    LocalVariables variables() {
+      if (variables == null) {
+        variables = new LocalVariables(tree);
+      }
+      return variables;
+    }
+
+    LiveVariables liveVariables() {
+      if (liveVariables == null) {
+        liveVariables = new LiveVariables(CFG.of(tree), variables());
+      }
+      return liveVariables;
+    }
+
+    @CheckForNull
+    CFG.Block block(ReturnStatementTree returnStatement) {
+      for (CFG.Block block : CFG.of(tree).blocks()) {
+        if (block.terminator() == returnStatement) {
+          return block;
+        }
+      }
+      return null;
+    }
+  }
+
 }
@@ -29,7 +29,7 @@ import java.util.List;
 
 public abstract class AbstractMethodDetection extends SubscriptionBaseVisitor {
 
-  private List<MethodMatcher> matchers;
+  private MethodMatcherIndex matchers;
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
@@ -39,20 +39,24 @@ public abstract class AbstractMethodDetection extends SubscriptionBaseVisitor {
   @Override
   public void visitNode(Tree tree) {
     if (hasSemantic()) {
-      for (MethodMatcher invocationMatcher : matchers()) {
-        checkInvocation(tree, invocationMatcher);
+      if (tree.is(Tree.Kind.METHOD_INVOCATION)) {
+        checkInvocation((MethodInvocationTree) tree);
+      } else if (tree.is(Tree.Kind.NEW_CLASS)) {
+        checkConstructor((NewClassTree) tree);
       }
     }
   }
 
-  private void checkInvocation(Tree tree, MethodMatcher invocationMatcher) {
-    if (tree.is(Tree.Kind.METHOD_INVOCATION)) {
-      MethodInvocationTree mit = (MethodInvocationTree) tree;
+  private void checkInvocation(MethodInvocationTree mit) {
+    for (MethodMatcher invocationMatcher : matchers().candidates(mit)) {
       if (invocationMatcher.matches(mit)) {
         onMethodInvocationFound(mit);
       }
-    } else if (tree.is(Tree.Kind.NEW_CLASS)) {
-      NewClassTree newClassTree = (NewClassTree) tree;
+    }
+  }
+
+  private void checkConstructor(NewClassTree newClassTree) {
+    for (MethodMatcher invocationMatcher : matchers().candidates(newClassTree)) {
       if (invocationMatcher.matches(newClassTree)) {
         onConstructorFound(newClassTree);
       }
@@ -69,9 +73,9 @@ public abstract class AbstractMethodDetection extends SubscriptionBaseVisitor {
     // Do nothing by default
   }
 
-  private List<MethodMatcher> matchers() {
+  private MethodMatcherIndex matchers() {
     if (matchers == null) {
-      matchers = getMethodInvocationMatchers();
+      matchers = MethodMatcherIndex.of(getMethodInvocationMatchers());
     }
     return matchers;
   }
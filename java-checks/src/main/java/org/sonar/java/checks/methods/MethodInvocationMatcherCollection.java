@@ -28,7 +28,8 @@ import java.util.List;
 
 public class MethodInvocationMatcherCollection {
 
-  private List<MethodMatcher> matchers = Lists.newLinkedList();
+  private List<MethodMatcher> matchers = Lists.newArrayList();
+  private MethodMatcherIndex index;
 
   private MethodInvocationMatcherCollection() {
   }
@@ -45,11 +46,12 @@ public class MethodInvocationMatcherCollection {
 
   public MethodInvocationMatcherCollection add(MethodMatcher matcher) {
     this.matchers.add(matcher);
+    index = null;
     return this;
   }
 
   public boolean anyMatch(MethodInvocationTree mit) {
-    for (MethodMatcher matcher : matchers) {
+    for (MethodMatcher matcher : index().candidates(mit)) {
       if (matcher.matches(mit)) {
         return true;
       }
@@ -58,11 +60,18 @@ public class MethodInvocationMatcherCollection {
   }
 
   public boolean anyMatch(final MethodTree method) {
-    for (MethodMatcher matcher : matchers) {
+    for (MethodMatcher matcher : index().candidates(method)) {
       if (matcher.matches(method)) {
         return true;
       }
     }
     return false;
   }
+
+  private MethodMatcherIndex index() {
+    if (index == null) {
+      index = MethodMatcherIndex.of(matchers);
+    }
+    return index;
+  }
 }
@@ -32,6 +32,8 @@ import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.NewClassTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
+import javax.annotation.CheckForNull;
+
 import java.util.List;
 
 public class MethodMatcher {
@@ -95,6 +97,11 @@ public class MethodMatcher {
     return this;
   }
 
+  @CheckForNull
+  String exactName() {
+    return methodName == null ? null : methodName.exactName();
+  }
+
   public boolean matches(NewClassTree newClassTree) {
     return matches(newClassTree.constructorSymbol(), null);
   }
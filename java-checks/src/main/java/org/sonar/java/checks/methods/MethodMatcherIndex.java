@@ -0,0 +1,116 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.methods;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.MemberSelectExpressionTree;
+import org.sonar.plugins.java.api.tree.MethodInvocationTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.NewClassTree;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Dispatch table of {@link MethodMatcher}s keyed on the name of the method they look for.
+ * A lookup returns, in their original order, the matchers which can match the given tree : the ones expecting its method name,
+ * and the ones whose name criteria is not an exact name. Most method invocations are thus rejected by a single hash miss,
+ * without evaluating type and parameter criteria of every matcher.
+ */
+public final class MethodMatcherIndex {
+
+  private static final String CONSTRUCTOR_NAME = "<init>";
+
+  private final List<MethodMatcher> matchers;
+  private final ListMultimap<String, MethodMatcher> matchersByName = ArrayListMultimap.create();
+  private final List<MethodMatcher> matchersOfAnyName;
+
+  private MethodMatcherIndex(List<MethodMatcher> matchers) {
+    this.matchers = ImmutableList.copyOf(matchers);
+    ImmutableList.Builder<MethodMatcher> anyName = ImmutableList.builder();
+    for (MethodMatcher matcher : this.matchers) {
+      String name = matcher.exactName();
+      if (name == null) {
+        anyName.add(matcher);
+      } else {
+        matchersByName.put(name, matcher);
+      }
+    }
+    this.matchersOfAnyName = anyName.build();
+  }
+
+  public static MethodMatcherIndex of(List<MethodMatcher> matchers) {
+    return new MethodMatcherIndex(matchers);
+  }
+
+  public List<MethodMatcher> candidates(MethodInvocationTree mit) {
+    return candidates(methodName(mit.methodSelect()));
+  }
+
+  public List<MethodMatcher> candidates(NewClassTree newClassTree) {
+    return candidates(CONSTRUCTOR_NAME);
+  }
+
+  public List<MethodMatcher> candidates(MethodTree methodTree) {
+    Symbol.MethodSymbol symbol = methodTree.symbol();
+    return candidates(symbol == null ? null : symbol.name());
+  }
+
+  private List<MethodMatcher> candidates(@Nullable String name) {
+    if (name == null || !matchersByName.containsKey(name)) {
+      return matchersOfAnyName;
+    }
+    if (matchersOfAnyName.isEmpty()) {
+      return matchersByName.get(name);
+    }
+    ImmutableList.Builder<MethodMatcher> candidates = ImmutableList.builder();
+    for (MethodMatcher matcher : matchers) {
+      String exactName = matcher.exactName();
+      if (exactName == null || exactName.equals(name)) {
+        candidates.add(matcher);
+      }
+    }
+    return candidates.build();
+  }
+
+  /**
+   * Explicit constructor invocations {@code super(...)} and {@code this(...)} invoke a constructor, whose name is {@code <init>}.
+   */
+  @Nullable
+  private static String methodName(@Nullable ExpressionTree methodSelect) {
+    String name = null;
+    if (methodSelect instanceof IdentifierTree) {
+      name = ((IdentifierTree) methodSelect).name();
+    } else if (methodSelect instanceof MemberSelectExpressionTree) {
+      name = ((MemberSelectExpressionTree) methodSelect).identifier().name();
+    }
+    if ("super".equals(name) || "this".equals(name)) {
+      return CONSTRUCTOR_NAME;
+    }
+    return name;
+  }
+
+}
@@ -41,7 +41,7 @@ import org.sonar.plugins.java.api.tree.TypeCastTree;
 
 import javax.annotation.Nullable;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -260,7 +260,7 @@ public class CloseableVisitor extends SymbolicExecutionCheck {
     }
   }
 
-  private final Set<Tree> issueTree = new HashSet<>();
+  private final Set<Tree> issueTree = new LinkedHashSet<>();
 
   @Override
   protected void onValueUnreachable(ExecutionState executionState, State state) {
@@ -0,0 +1,239 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import com.google.common.collect.Lists;
+import org.sonar.java.cfg.CFG;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Worklist solver of forward and backward dataflow problems over the control flow graph of a method,
+ * whose facts are encoded as bit sets : indexes of local variables, of definitions...
+ * <p/>
+ * Facts flow along the successors of each block, and along its exception successors from every point of the block,
+ * as any element may throw : forward, the exception successors receive the meet of all the states within the block,
+ * and backward, the states of the exception successors are met with each state within the block.
+ * States of blocks which are not reached by the analysis are the top of the lattice : empty for unions, full for intersections.
+ */
+public abstract class DataFlowAnalysis {
+
+  protected final CFG cfg;
+  private int bits;
+  /**
+   * States at the start and at the end of each block, in program order, indexed by block id.
+   */
+  private BitSet[] before;
+  private BitSet[] after;
+  /**
+   * Forward only : meet of the states within each block, propagated to its exception successors.
+   */
+  private BitSet[] thrown;
+  private int iterations;
+
+  protected DataFlowAnalysis(CFG cfg) {
+    this.cfg = cfg;
+  }
+
+  /**
+   * @return true when facts flow from the entry to the exit, false when they flow backward
+   */
+  protected abstract boolean isForward();
+
+  /**
+   * @return true when the meet of states is their union (may problems), false when it is their intersection (must problems)
+   */
+  protected abstract boolean isUnion();
+
+  /**
+   * @return state at the entry of the method for a forward problem, at the exit for a backward problem
+   */
+  protected abstract BitSet boundary();
+
+  /**
+   * Applies the effect of the evaluation of the given element to the state, in place.
+   * Backward, the state after the element is turned into the state before it.
+   */
+  protected abstract void transfer(Tree element, BitSet state);
+
+  /**
+   * Computes the fixpoint. To be called by subclasses once they are ready to answer {@link #transfer(Tree, BitSet)}.
+   *
+   * @param bits number of facts
+   */
+  protected final void solve(int bits) {
+    this.bits = bits;
+    List<CFG.Block> blocks = cfg.blocks();
+    before = new BitSet[blocks.size()];
+    after = new BitSet[blocks.size()];
+    thrown = new BitSet[blocks.size()];
+    for (CFG.Block block : blocks) {
+      before[block.id()] = top();
+      after[block.id()] = top();
+      thrown[block.id()] = top();
+    }
+    Deque<CFG.Block> worklist = new ArrayDeque<>(blocks.size());
+    BitSet queued = new BitSet(blocks.size());
+    // blocks are ordered from the entry to the exit : visiting them in flow order first reduces the number of iterations
+    for (CFG.Block block : isForward() ? blocks : Lists.reverse(blocks)) {
+      worklist.add(block);
+      queued.set(block.id());
+    }
+    while (!worklist.isEmpty()) {
+      CFG.Block block = worklist.poll();
+      queued.clear(block.id());
+      iterations++;
+      boolean changed = isForward() ? forward(block) : backward(block);
+      if (changed) {
+        for (CFG.Block dependent : isForward() ? successors(block) : block.predecessors()) {
+          if (!queued.get(dependent.id())) {
+            queued.set(dependent.id());
+            worklist.add(dependent);
+          }
+        }
+      }
+    }
+  }
+
+  private static Iterable<CFG.Block> successors(CFG.Block block) {
+    List<CFG.Block> result = Lists.newArrayList(block.successors());
+    result.addAll(block.exceptions());
+    return result;
+  }
+
+  private boolean forward(CFG.Block block) {
+    BitSet state;
+    if (block == cfg.entry()) {
+      state = boundary();
+    } else {
+      state = top();
+      for (CFG.Block predecessor : block.predecessors()) {
+        if (predecessor.successors().contains(block)) {
+          meet(state, after[predecessor.id()]);
+        }
+        if (predecessor.exceptions().contains(block)) {
+          meet(state, thrown[predecessor.id()]);
+        }
+      }
+    }
+    before[block.id()] = (BitSet) state.clone();
+    BitSet blockThrown = (BitSet) state.clone();
+    for (Tree element : block.elements()) {
+      transfer(element, state);
+      meet(blockThrown, state);
+    }
+    boolean changed = !state.equals(after[block.id()]) || !blockThrown.equals(thrown[block.id()]);
+    after[block.id()] = state;
+    thrown[block.id()] = blockThrown;
+    return changed;
+  }
+
+  private boolean backward(CFG.Block block) {
+    BitSet state = block == cfg.exit() ? boundary() : top();
+    for (CFG.Block successor : block.successors()) {
+      meet(state, before[successor.id()]);
+    }
+    BitSet caught = caught(block);
+    meet(state, caught);
+    after[block.id()] = (BitSet) state.clone();
+    for (Tree element : Lists.reverse(block.elements())) {
+      transfer(element, state);
+      meet(state, caught);
+    }
+    boolean changed = !state.equals(before[block.id()]);
+    before[block.id()] = state;
+    return changed;
+  }
+
+  private BitSet caught(CFG.Block block) {
+    BitSet caught = top();
+    for (CFG.Block exception : block.exceptions()) {
+      meet(caught, before[exception.id()]);
+    }
+    return caught;
+  }
+
+  private BitSet top() {
+    BitSet top = new BitSet(bits);
+    if (!isUnion()) {
+      top.set(0, bits);
+    }
+    return top;
+  }
+
+  private void meet(BitSet state, BitSet other) {
+    if (isUnion()) {
+      state.or(other);
+    } else {
+      state.and(other);
+    }
+  }
+
+  /**
+   * @return state at the start of the block, in program order
+   */
+  public BitSet before(CFG.Block block) {
+    return (BitSet) before[block.id()].clone();
+  }
+
+  /**
+   * @return state at the end of the block, before its terminator branches, in program order
+   */
+  public BitSet after(CFG.Block block) {
+    return (BitSet) after[block.id()].clone();
+  }
+
+  /**
+   * @return state right after the evaluation of the given element of the block, in program order
+   */
+  public BitSet after(CFG.Block block, Tree element) {
+    List<Tree> elements = block.elements();
+    int position = elements.indexOf(element);
+    if (position < 0) {
+      throw new IllegalArgumentException("Element is not part of block B" + block.id());
+    }
+    if (isForward()) {
+      BitSet state = before(block);
+      for (Tree current : elements.subList(0, position + 1)) {
+        transfer(current, state);
+      }
+      return state;
+    }
+    BitSet state = after(block);
+    BitSet caught = caught(block);
+    for (Tree current : Lists.reverse(elements.subList(position + 1, elements.size()))) {
+      transfer(current, state);
+      meet(state, caught);
+    }
+    return state;
+  }
+
+  /**
+   * @return number of blocks processed until the fixpoint was reached
+   */
+  public int iterations() {
+    return iterations;
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import org.sonar.java.cfg.CFG;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.BitSet;
+
+/**
+ * Local variables which are assigned along every path to each point of a method. Parameters are assigned at the entry.
+ */
+public class DefiniteAssignment extends DataFlowAnalysis {
+
+  private final LocalVariables variables;
+
+  public DefiniteAssignment(CFG cfg, LocalVariables variables) {
+    super(cfg);
+    this.variables = variables;
+    solve(variables.size());
+  }
+
+  @Override
+  protected boolean isForward() {
+    return true;
+  }
+
+  @Override
+  protected boolean isUnion() {
+    return false;
+  }
+
+  @Override
+  protected BitSet boundary() {
+    return variables.parameters();
+  }
+
+  @Override
+  protected void transfer(Tree element, final BitSet state) {
+    element.accept(variables.new AccessVisitor() {
+      @Override
+      void read(int variable) {
+        // reads do not assign
+      }
+
+      @Override
+      void write(int variable, Tree definition, boolean conditional) {
+        if (!conditional) {
+          state.set(variable);
+        }
+      }
+    });
+  }
+
+  /**
+   * @return true when the variable is assigned along every path to the start of the block
+   */
+  public boolean isAssignedBefore(CFG.Block block, int variable) {
+    return before(block).get(variable);
+  }
+
+}
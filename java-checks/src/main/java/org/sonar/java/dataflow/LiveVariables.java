@@ -0,0 +1,86 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import org.sonar.java.cfg.CFG;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.BitSet;
+
+/**
+ * Local variables which may be read before being written again, along some path from each point of a method.
+ */
+public class LiveVariables extends DataFlowAnalysis {
+
+  private final LocalVariables variables;
+
+  public LiveVariables(CFG cfg, LocalVariables variables) {
+    super(cfg);
+    this.variables = variables;
+    solve(variables.size());
+  }
+
+  @Override
+  protected boolean isForward() {
+    return false;
+  }
+
+  @Override
+  protected boolean isUnion() {
+    return true;
+  }
+
+  @Override
+  protected BitSet boundary() {
+    return new BitSet();
+  }
+
+  @Override
+  protected void transfer(Tree element, final BitSet state) {
+    // variables read before being written by the element are live before it, whatever their state after it
+    final BitSet reads = new BitSet();
+    final BitSet kills = new BitSet();
+    element.accept(variables.new AccessVisitor() {
+      @Override
+      void read(int variable) {
+        if (!kills.get(variable)) {
+          reads.set(variable);
+        }
+      }
+
+      @Override
+      void write(int variable, Tree definition, boolean conditional) {
+        if (!conditional) {
+          kills.set(variable);
+        }
+      }
+    });
+    state.andNot(kills);
+    state.or(reads);
+  }
+
+  /**
+   * @return true when the variable may be read after the evaluation of the given element of the block, without being written before
+   */
+  public boolean isLiveAfter(CFG.Block block, Tree element, int variable) {
+    return after(block, element).get(variable);
+  }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.BinaryExpressionTree;
+import org.sonar.plugins.java.api.tree.CatchTree;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.ConditionalExpressionTree;
+import org.sonar.plugins.java.api.tree.ExpressionTree;
+import org.sonar.plugins.java.api.tree.ForEachStatement;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.LambdaExpressionTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.UnaryExpressionTree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense indexes of the local variables of a method, parameters included, so that sets of variables are encoded as bit sets.
+ * Variables declared in nested classes are not indexed : accesses to them are ignored.
+ */
+public class LocalVariables {
+
+  private final Map<Symbol, Integer> indexes = new HashMap<>();
+  private final List<Symbol> symbols = new ArrayList<>();
+  /**
+   * Variables assigned without initializer : parameters, catch parameters, for each variables and lambda parameters.
+   */
+  private final BitSet implicitlyAssigned = new BitSet();
+  private final BitSet parameters = new BitSet();
+
+  public LocalVariables(MethodTree tree) {
+    for (VariableTree parameter : tree.parameters()) {
+      add(parameter.symbol());
+      parameters.set(index(parameter.symbol()));
+      implicitlyAssigned.set(index(parameter.symbol()));
+    }
+    if (tree.block() != null) {
+      tree.block().accept(new BaseTreeVisitor() {
+        @Override
+        public void visitClass(ClassTree tree) {
+          // variables of nested classes belong to their own methods
+        }
+
+        @Override
+        public void visitVariable(VariableTree tree) {
+          add(tree.symbol());
+          super.visitVariable(tree);
+        }
+
+        @Override
+        public void visitCatch(CatchTree tree) {
+          super.visitCatch(tree);
+          implicitlyAssigned.set(index(tree.parameter().symbol()));
+        }
+
+        @Override
+        public void visitForEachStatement(ForEachStatement tree) {
+          super.visitForEachStatement(tree);
+          implicitlyAssigned.set(index(tree.variable().symbol()));
+        }
+
+        @Override
+        public void visitLambdaExpression(LambdaExpressionTree tree) {
+          super.visitLambdaExpression(tree);
+          for (VariableTree parameter : tree.parameters()) {
+            implicitlyAssigned.set(index(parameter.symbol()));
+          }
+        }
+      });
+    }
+  }
+
+  private void add(Symbol symbol) {
+    if (!indexes.containsKey(symbol)) {
+      indexes.put(symbol, symbols.size());
+      symbols.add(symbol);
+    }
+  }
+
+  public int size() {
+    return symbols.size();
+  }
+
+  /**
+   * @return index of the given variable, -1 when it is not a local variable of the method
+   */
+  public int index(Symbol symbol) {
+    Integer index = indexes.get(symbol);
+    return index == null ? -1 : index;
+  }
+
+  public Symbol symbol(int index) {
+    return symbols.get(index);
+  }
+
+  public BitSet parameters() {
+    return (BitSet) parameters.clone();
+  }
+
+  /**
+   * Reports the reads and writes of local variables by an element of a control flow graph, in order of evaluation.
+   * Variables declared in nested classes are ignored, while the reads of captured variables are reported.
+   */
+  abstract class AccessVisitor extends BaseTreeVisitor {
+
+    private int conditionalDepth = 0;
+
+    abstract void read(int variable);
+
+    /**
+     * @param definition the variable declaration, the assignment, or the increment or decrement
+     * @param conditional true when the write may not happen : right operand of a conditional and/or,
+     * branch of a conditional expression, or body of a lambda
+     */
+    abstract void write(int variable, Tree definition, boolean conditional);
+
+    private void write(int variable, Tree definition) {
+      write(variable, definition, conditionalDepth > 0);
+    }
+
+    @Override
+    public void visitIdentifier(IdentifierTree tree) {
+      int variable = index(tree.symbol());
+      if (variable >= 0) {
+        read(variable);
+      }
+    }
+
+    @Override
+    public void visitVariable(VariableTree tree) {
+      super.visitVariable(tree);
+      int variable = index(tree.symbol());
+      if (variable >= 0 && (tree.initializer() != null || implicitlyAssigned.get(variable))) {
+        write(variable, tree);
+      }
+    }
+
+    @Override
+    public void visitAssignmentExpression(AssignmentExpressionTree tree) {
+      int variable = variable(tree.variable());
+      if (variable < 0) {
+        super.visitAssignmentExpression(tree);
+        return;
+      }
+      if (!tree.is(Tree.Kind.ASSIGNMENT)) {
+        // compound assignment
+        read(variable);
+      }
+      scan(tree.expression());
+      write(variable, tree);
+    }
+
+    @Override
+    public void visitUnaryExpression(UnaryExpressionTree tree) {
+      int variable = variable(tree.expression());
+      if (variable >= 0 && tree.is(Tree.Kind.PREFIX_INCREMENT, Tree.Kind.PREFIX_DECREMENT, Tree.Kind.POSTFIX_INCREMENT, Tree.Kind.POSTFIX_DECREMENT)) {
+        read(variable);
+        write(variable, tree);
+      } else {
+        super.visitUnaryExpression(tree);
+      }
+    }
+
+    @Override
+    public void visitBinaryExpression(BinaryExpressionTree tree) {
+      if (tree.is(Tree.Kind.CONDITIONAL_AND, Tree.Kind.CONDITIONAL_OR)) {
+        scan(tree.leftOperand());
+        conditionalDepth++;
+        scan(tree.rightOperand());
+        conditionalDepth--;
+      } else {
+        super.visitBinaryExpression(tree);
+      }
+    }
+
+    @Override
+    public void visitConditionalExpression(ConditionalExpressionTree tree) {
+      scan(tree.condition());
+      conditionalDepth++;
+      scan(tree.trueExpression());
+      scan(tree.falseExpression());
+      conditionalDepth--;
+    }
+
+    @Override
+    public void visitLambdaExpression(LambdaExpressionTree tree) {
+      conditionalDepth++;
+      super.visitLambdaExpression(tree);
+      conditionalDepth--;
+    }
+
+    private int variable(ExpressionTree tree) {
+      return tree.is(Tree.Kind.IDENTIFIER) ? index(((IdentifierTree) tree).symbol()) : -1;
+    }
+  }
+
+}
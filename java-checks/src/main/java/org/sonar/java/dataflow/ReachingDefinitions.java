@@ -0,0 +1,141 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import org.sonar.java.cfg.CFG;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definitions of local variables (declarations with an initializer, parameters, assignments, increments and decrements)
+ * which may reach each point of a method without the variable being written in between.
+ * Facts are indexes of definitions, see {@link #definition(int)}.
+ */
+public class ReachingDefinitions extends DataFlowAnalysis {
+
+  private final LocalVariables variables;
+  private final List<Tree> definitions = new ArrayList<>();
+  private final Map<Tree, Integer> indexes = new HashMap<>();
+  /**
+   * Definitions of each variable, indexed by variable.
+   */
+  private final List<BitSet> definitionsByVariable = new ArrayList<>();
+  private final BitSet parameters = new BitSet();
+
+  public ReachingDefinitions(MethodTree tree, CFG cfg, LocalVariables variables) {
+    super(cfg);
+    this.variables = variables;
+    for (int i = 0; i < variables.size(); i++) {
+      definitionsByVariable.add(new BitSet());
+    }
+    for (VariableTree parameter : tree.parameters()) {
+      parameters.set(add(variables.index(parameter.symbol()), parameter));
+    }
+    for (CFG.Block block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        element.accept(variables.new AccessVisitor() {
+          @Override
+          void read(int variable) {
+            // only definitions are indexed
+          }
+
+          @Override
+          void write(int variable, Tree definition, boolean conditional) {
+            add(variable, definition);
+          }
+        });
+      }
+    }
+    solve(definitions.size());
+  }
+
+  private int add(int variable, Tree definition) {
+    Integer index = indexes.get(definition);
+    if (index == null) {
+      index = definitions.size();
+      definitions.add(definition);
+      indexes.put(definition, index);
+      definitionsByVariable.get(variable).set(index);
+    }
+    return index;
+  }
+
+  @Override
+  protected boolean isForward() {
+    return true;
+  }
+
+  @Override
+  protected boolean isUnion() {
+    return true;
+  }
+
+  @Override
+  protected BitSet boundary() {
+    return (BitSet) parameters.clone();
+  }
+
+  @Override
+  protected void transfer(Tree element, final BitSet state) {
+    element.accept(variables.new AccessVisitor() {
+      @Override
+      void read(int variable) {
+        // reads do not define
+      }
+
+      @Override
+      void write(int variable, Tree definition, boolean conditional) {
+        if (!conditional) {
+          state.andNot(definitionsByVariable.get(variable));
+        }
+        state.set(indexes.get(definition));
+      }
+    });
+  }
+
+  public int definitionCount() {
+    return definitions.size();
+  }
+
+  public Tree definition(int index) {
+    return definitions.get(index);
+  }
+
+  /**
+   * @return definitions of the given variable within the given state
+   */
+  public List<Tree> definitions(BitSet state, int variable) {
+    BitSet reaching = (BitSet) state.clone();
+    reaching.and(definitionsByVariable.get(variable));
+    List<Tree> result = new ArrayList<>();
+    for (int i = reaching.nextSetBit(0); i >= 0; i = reaching.nextSetBit(i + 1)) {
+      result.add(definitions.get(i));
+    }
+    return result;
+  }
+
+}
@@ -35,7 +35,7 @@ import org.sonar.plugins.java.api.tree.MethodInvocationTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -102,7 +102,7 @@ public class LockedVisitor extends SymbolicExecutionCheck {
     }
   }
 
-  private final Set<Tree> issueTree = new HashSet<>();
+  private final Set<Tree> issueTree = new LinkedHashSet<>();
 
   @Override
   protected void onValueUnreachable(ExecutionState executionState, State state) {
@@ -22,12 +22,16 @@ package org.sonar.java.symexec;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -109,16 +113,14 @@ public class ExecutionState {
   @VisibleForTesting
   final ExecutionState parentState;
   @VisibleForTesting
-  final Table<SymbolicValue, SymbolicValue, SymbolicRelation> relations;
+  final SymbolicRelationTable relations = new SymbolicRelationTable();
 
   public ExecutionState() {
     this.parentState = null;
-    this.relations = HashBasedTable.create();
   }
 
   ExecutionState(ExecutionState parentState) {
     this.parentState = parentState;
-    this.relations = HashBasedTable.create();
   }
 
   @VisibleForTesting
@@ -162,8 +164,77 @@ public class ExecutionState {
     Multimap<SymbolicValue, SymbolicValue> result = HashMultimap.create();
     for (ExecutionState state : states) {
       for (ExecutionState current = state; !current.equals(this); current = current.parentState) {
-        for (Map.Entry<SymbolicValue, Map<SymbolicValue, SymbolicRelation>> leftEntry : current.relations.rowMap().entrySet()) {
-          result.putAll(leftEntry.getKey(), leftEntry.getValue().keySet());
+        current.addRelatedValues(result);
+      }
+    }
+    return result;
+  }
+
+  private void addRelatedValues(Multimap<SymbolicValue, SymbolicValue> result) {
+    for (int slot = 0; slot < relations.slots(); slot++) {
+      SymbolicValue leftValue = relations.leftValue(slot);
+      if (leftValue != null) {
+        result.put(leftValue, relations.rightValue(slot));
+      }
+    }
+  }
+
+  /**
+   * Joins the given states which have the same constraints, keeping only the first of them :
+   * exploring the others would yield the same conditions and the same relations once merged.
+   * Constraints are compared on the relations set since the closest common ancestor of the states.
+   */
+  static void join(List<ExecutionState> states) {
+    if (states.size() < 2) {
+      return;
+    }
+    ExecutionState ancestor = findCommonAncestor(states);
+    Map<SymbolicRelationTable, ExecutionState> joinedStates = new LinkedHashMap<>();
+    for (ExecutionState state : states) {
+      SymbolicRelationTable key = state.relationsSince(ancestor);
+      if (!joinedStates.containsKey(key)) {
+        joinedStates.put(key, state);
+      }
+    }
+    if (joinedStates.size() < states.size()) {
+      states.clear();
+      states.addAll(joinedStates.values());
+    }
+  }
+
+  @CheckForNull
+  private static ExecutionState findCommonAncestor(List<ExecutionState> states) {
+    List<ExecutionState> candidates = new ArrayList<>();
+    for (ExecutionState current = states.get(0); current != null; current = current.parentState) {
+      candidates.add(current);
+    }
+    int index = 0;
+    for (ExecutionState state : states.subList(1, states.size())) {
+      Set<ExecutionState> ancestors = Sets.newIdentityHashSet();
+      for (ExecutionState current = state; current != null; current = current.parentState) {
+        ancestors.add(current);
+      }
+      while (index < candidates.size() && !ancestors.contains(candidates.get(index))) {
+        index++;
+      }
+    }
+    return index < candidates.size() ? candidates.get(index) : null;
+  }
+
+  /**
+   * @return the relations of this state which differ from the ones of the given ancestor
+   */
+  private SymbolicRelationTable relationsSince(@Nullable ExecutionState ancestor) {
+    SymbolicRelationTable result = new SymbolicRelationTable();
+    for (ExecutionState current = this; current != ancestor; current = current.parentState) {
+      for (int slot = 0; slot < current.relations.slots(); slot++) {
+        SymbolicValue leftValue = current.relations.leftValue(slot);
+        if (leftValue != null) {
+          SymbolicValue rightValue = current.relations.rightValue(slot);
+          SymbolicRelation relation = getRelation(leftValue, rightValue);
+          if (relation != (ancestor == null ? UNKNOWN : ancestor.getRelation(leftValue, rightValue))) {
+            result.put(leftValue, rightValue, relation);
+          }
         }
       }
     }
@@ -206,21 +277,27 @@ public class ExecutionState {
     }
   }
 
-  private Set<SymbolicValue> findRelatedValues(SymbolicValue value) {
-    Map<SymbolicValue, SymbolicRelation> map = relations.rowMap().get(value);
-    return map != null ? map.keySet() : ImmutableSet.<SymbolicValue>of();
+  private List<SymbolicValue> findRelatedValues(SymbolicValue value) {
+    List<SymbolicValue> result = new ArrayList<>();
+    for (int slot = relations.firstSlot(value); slot != -1; slot = relations.nextSlot(slot)) {
+      result.add(relations.rightValue(slot));
+    }
+    return result;
   }
 
   void invalidateFields() {
+    Multimap<SymbolicValue, SymbolicValue> pairs = HashMultimap.create();
     for (ExecutionState state = this; state != null; state = state.parentState) {
-      for (Map.Entry<SymbolicValue, Map<SymbolicValue, SymbolicRelation>> entry : state.relations.rowMap().entrySet()) {
-        if (isField(entry.getKey())) {
-          for (SymbolicValue other : entry.getValue().keySet()) {
-            setRelation(entry.getKey(), SymbolicRelation.UNKNOWN, other);
-          }
+      for (int slot = 0; slot < state.relations.slots(); slot++) {
+        SymbolicValue leftValue = state.relations.leftValue(slot);
+        if (leftValue != null && isField(leftValue)) {
+          pairs.put(leftValue, state.relations.rightValue(slot));
         }
       }
     }
+    for (Map.Entry<SymbolicValue, SymbolicValue> entry : pairs.entries()) {
+      setRelation(entry.getKey(), SymbolicRelation.UNKNOWN, entry.getValue());
+    }
   }
 
   private static boolean isField(SymbolicValue value) {
@@ -64,37 +64,109 @@ import org.sonar.plugins.java.api.tree.WhileStatementTree;
 import javax.annotation.CheckForNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Symbolic exploration of methods. An evaluator keeps the state of the method it explores :
+ * methods analyzed in parallel each need their own evaluator.
+ */
 public class SymbolicEvaluator {
 
   private static final Logger LOGGER = Logger.getLogger(SymbolicEvaluator.class);
 
-  private static final int MAXIMAL_EXECUTION_STATE_COUNT = 65536;
+  public static final int DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT = 65536;
+  /**
+   * Exploration time is not bounded by default, so that issues do not depend on the load of the machine.
+   */
+  public static final long DEFAULT_MAXIMAL_TIME_MILLIS = 0;
+  public static final int DEFAULT_MAXIMAL_NESTING_DEPTH = 128;
+
+  private static final long NANOS_PER_MILLI = 1000000L;
 
   private final AssignedSymbolExtractor extractor = new AssignedSymbolExtractor();
 
-  private final Map<Tree, SymbolicBooleanConstraint> result = new HashMap<>();
+  private final int maximalExecutionStateCount;
+  private final long maximalTimeMillis;
+  private final int maximalNestingDepth;
+
+  /**
+   * Conditions evaluated by the top-level statement of the method currently explored.
+   */
+  private final Map<Tree, SymbolicBooleanConstraint> result = new LinkedHashMap<>();
+
+  /**
+   * Conditions of the top-level statements fully explored : their evaluation can no longer change.
+   */
+  private final Map<Tree, SymbolicBooleanConstraint> completedResult = new LinkedHashMap<>();
 
   private int currentExecutionStateCount;
+  private int currentMergeCount;
+  private int currentNestingDepth;
+  private long deadline = Long.MAX_VALUE;
+  private Statistics statistics = new Statistics(0, 0, 0, true);
+
+  public SymbolicEvaluator() {
+    this(DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT, DEFAULT_MAXIMAL_TIME_MILLIS, DEFAULT_MAXIMAL_NESTING_DEPTH);
+  }
+
+  /**
+   * @param maximalExecutionStateCount maximal number of execution states created while exploring a method
+   * @param maximalTimeMillis maximal time spent to explore a method, 0 for no limit
+   * @param maximalNestingDepth maximal nesting depth of the statements explored
+   */
+  public SymbolicEvaluator(int maximalExecutionStateCount, long maximalTimeMillis, int maximalNestingDepth) {
+    this.maximalExecutionStateCount = maximalExecutionStateCount;
+    this.maximalTimeMillis = maximalTimeMillis;
+    this.maximalNestingDepth = maximalNestingDepth;
+  }
 
+  /**
+   * Explores the given method, one top-level statement after the other.
+   * When a budget is exhausted, exploration stops and only the conditions of the top-level statements explored until then are returned.
+   */
   public Map<Tree, SymbolicBooleanConstraint> evaluateMethod(JavaFileScannerContext context, ExecutionState state, MethodTree tree) {
     result.clear();
+    completedResult.clear();
+    currentExecutionStateCount = 0;
+    currentMergeCount = 0;
+    currentNestingDepth = 0;
+    long start = System.nanoTime();
+    deadline = maximalTimeMillis != 0 && maximalTimeMillis < Long.MAX_VALUE / NANOS_PER_MILLI ? start + maximalTimeMillis * NANOS_PER_MILLI : Long.MAX_VALUE;
+    boolean complete = true;
     if (tree.block() != null) {
       try {
-        evaluateStatement(ImmutableList.of(state), tree.block());
+        PackedStatementStates states = PackedStatementStates.instantiateWithState(state);
+        for (StatementTree statement : tree.block().body()) {
+          states = evaluateStatement(states, statement);
+          states.join();
+          completedResult.putAll(result);
+          result.clear();
+        }
       } catch (SymbolicExecutionException e) {
         JavaTree javaTree = (JavaTree) tree;
-        LOGGER.info("in " + context.getFile() + ": analysis of " + tree.simpleName().name() + " at line " + javaTree.getLine() + " failed: " + e.getMessage());
+        LOGGER.info("in " + context.getFile() + ": analysis of " + tree.simpleName().name() + " at line " + javaTree.getLine() + " is partial: " + e.getMessage());
         LOGGER.debug(e);
         result.clear();
+        complete = false;
       }
     }
-    return result;
+    deadline = Long.MAX_VALUE;
+    statistics = new Statistics(currentExecutionStateCount, currentMergeCount, System.nanoTime() - start, complete);
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("in " + context.getFile() + ": analysis of " + tree.simpleName().name() + " at line " + ((JavaTree) tree).getLine() + ": " + statistics);
+    }
+    return completedResult;
+  }
+
+  /**
+   * @return exploration statistics of the last method evaluated
+   */
+  public Statistics getStatistics() {
+    return statistics;
   }
 
   PackedStates evaluateCondition(ExecutionState state, ExpressionTree tree) {
@@ -118,13 +190,69 @@ public class SymbolicEvaluator {
   }
 
   ExecutionState instantiateExecutionState(ExecutionState parentState) {
-    if (currentExecutionStateCount >= MAXIMAL_EXECUTION_STATE_COUNT) {
+    if (currentExecutionStateCount >= maximalExecutionStateCount) {
       throw new SymbolicExecutionException("maximal number of execution states reached");
     }
     currentExecutionStateCount++;
     return new ExecutionState(parentState);
   }
 
+  void mergeRelations(ExecutionState state, Iterable<ExecutionState> states) {
+    currentMergeCount++;
+    state.mergeRelations(states);
+  }
+
+  private void enterStatement() {
+    if (currentNestingDepth >= maximalNestingDepth) {
+      throw new SymbolicExecutionException("maximal nesting depth reached");
+    }
+    if (System.nanoTime() > deadline) {
+      throw new SymbolicExecutionException("maximal time reached");
+    }
+    currentNestingDepth++;
+  }
+
+  /**
+   * Exploration statistics of a method.
+   */
+  public static class Statistics {
+    private final int executionStates;
+    private final int merges;
+    private final long timeNanos;
+    private final boolean complete;
+
+    Statistics(int executionStates, int merges, long timeNanos, boolean complete) {
+      this.executionStates = executionStates;
+      this.merges = merges;
+      this.timeNanos = timeNanos;
+      this.complete = complete;
+    }
+
+    public int getExecutionStates() {
+      return executionStates;
+    }
+
+    public int getMerges() {
+      return merges;
+    }
+
+    public long getTimeNanos() {
+      return timeNanos;
+    }
+
+    /**
+     * @return false when exploration stopped because a budget was exhausted
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    @Override
+    public String toString() {
+      return executionStates + " execution states, " + merges + " merges, " + timeNanos / NANOS_PER_MILLI + " ms" + (complete ? "" : ", partial");
+    }
+  }
+
   abstract class BaseExpressionVisitor extends BaseTreeVisitor {
     @Override
     public final void visitBinaryExpression(BinaryExpressionTree tree) {
@@ -402,7 +530,7 @@ public class SymbolicEvaluator {
           currentResult = evaluateExpression(state, tree.falseExpression()).union(currentResult);
         }
       }
-      currentState.mergeRelations(Iterables.concat(conditionStates.falseStates, conditionStates.trueStates));
+      mergeRelations(currentState, Iterables.concat(conditionStates.falseStates, conditionStates.trueStates));
     }
 
     @Override
@@ -473,7 +601,7 @@ public class SymbolicEvaluator {
           currentResult = leftStates.getBooleanConstraint().union(currentResult);
         }
       }
-      currentState.mergeRelations(Iterables.concat(leftStates.falseStates, leftStates.trueStates));
+      mergeRelations(currentState, Iterables.concat(leftStates.falseStates, leftStates.trueStates));
     }
 
     @Override
@@ -489,7 +617,7 @@ public class SymbolicEvaluator {
           currentResult = leftStates.getBooleanConstraint().union(currentResult);
         }
       }
-      currentState.mergeRelations(Iterables.concat(leftStates.falseStates, leftStates.trueStates));
+      mergeRelations(currentState, Iterables.concat(leftStates.falseStates, leftStates.trueStates));
     }
 
     @Override
@@ -508,15 +636,21 @@ public class SymbolicEvaluator {
     private PackedStatementStates currentStates;
 
     private PackedStatementStates evaluate(PackedStatementStates states, Tree tree) {
-      currentStates = states;
-      scan(tree);
-      return currentStates;
+      enterStatement();
+      try {
+        currentStates = states;
+        scan(tree);
+        return currentStates;
+      } finally {
+        currentNestingDepth--;
+      }
     }
 
     @Override
     public void visitBlock(BlockTree tree) {
       for (StatementTree statement : tree.body()) {
         currentStates = evaluateStatement(currentStates, statement);
+        currentStates.join();
       }
     }
 
@@ -562,7 +696,7 @@ public class SymbolicEvaluator {
           PackedStates conditionStates = evaluateCondition(state, tree.condition());
           PackedStatementStates loopStates = evaluateStatement(conditionStates.trueStates, tree.statement());
           if (!conditionStates.falseStates.isEmpty() || !loopStates.isEmpty()) {
-            state.mergeRelations(Iterables.concat(conditionStates.falseStates, loopStates));
+            mergeRelations(state, Iterables.concat(conditionStates.falseStates, loopStates));
             nextStates.addState(state);
           }
         }
@@ -598,7 +732,7 @@ public class SymbolicEvaluator {
           falseStates = evaluateStatement(conditionStates.falseStates, tree.elseStatement());
         }
         if (!falseStates.isEmpty() || !trueStates.isEmpty()) {
-          state.mergeRelations(Iterables.concat(falseStates, trueStates));
+          mergeRelations(state, Iterables.concat(falseStates, trueStates));
           nextStates.addState(state);
         }
         nextStates.breakStates.addAll(falseStates.breakStates);
@@ -637,7 +771,7 @@ public class SymbolicEvaluator {
           endStates.add(state);
         }
         if (!endStates.isEmpty()) {
-          state.mergeRelations(endStates);
+          mergeRelations(state, endStates);
           nextStates.addState(state);
         }
       }
@@ -690,7 +824,7 @@ public class SymbolicEvaluator {
           catchStates.addAll(evaluateStatement(instantiateExecutionState(state), catchTree.block()).states);
         }
         catchStates.add(state);
-        state.mergeRelations(catchStates);
+        mergeRelations(state, catchStates);
       }
       currentStates = evaluateStatement(currentStates, tree.finallyBlock());
     }
@@ -713,7 +847,7 @@ public class SymbolicEvaluator {
         PackedStates conditionStates = evaluateCondition(state, tree.condition());
         PackedStatementStates loopStates = evaluateStatement(conditionStates.trueStates, tree.statement());
         if (!conditionStates.falseStates.isEmpty() || !loopStates.isEmpty()) {
-          state.mergeRelations(Iterables.concat(conditionStates.falseStates, loopStates));
+          mergeRelations(state, Iterables.concat(conditionStates.falseStates, loopStates));
           nextStates.addState(state);
         }
       }
@@ -801,6 +935,13 @@ public class SymbolicEvaluator {
       states.add(state);
     }
 
+    /**
+     * Joins the states which have the same constraints, so that sequential branches do not multiply the states to explore.
+     */
+    void join() {
+      ExecutionState.join(states);
+    }
+
     @Override
     public Iterator<ExecutionState> iterator() {
       return states.iterator();
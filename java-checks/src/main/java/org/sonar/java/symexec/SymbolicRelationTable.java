@@ -0,0 +1,233 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.symexec;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Relations between pairs of symbolic values, stored in flat arrays with open addressing and linear probing :
+ * an entry costs two references and one byte, instead of the map entries and row maps of a {@link com.google.common.collect.Table}.
+ * Entries can not be removed, and entries are accessed by slot to be iterated without allocation :
+ * slots whose left value is null are empty.
+ * Slots of a left value are chained, from {@link #firstSlot(SymbolicValue)} to {@link #nextSlot(int)}, through an index of left values
+ * stored the same way, so that the relations of a value are found without scanning all the slots.
+ */
+final class SymbolicRelationTable {
+
+  private static final SymbolicRelation[] RELATIONS = SymbolicRelation.values();
+  private static final SymbolicValue[] NO_VALUES = new SymbolicValue[0];
+  private static final byte[] NO_RELATIONS = new byte[0];
+  private static final int[] NO_SLOTS = new int[0];
+  private static final int NO_SLOT = -1;
+  private static final int INITIAL_CAPACITY = 8;
+
+  private SymbolicValue[] leftValues = NO_VALUES;
+  private SymbolicValue[] rightValues = NO_VALUES;
+  private byte[] relations = NO_RELATIONS;
+  /**
+   * Next slot with the same left value, by slot.
+   */
+  private int[] nextSlots = NO_SLOTS;
+  /**
+   * Index of left values : first slot of each of them.
+   */
+  private SymbolicValue[] indexedLeftValues = NO_VALUES;
+  private int[] firstSlots = NO_SLOTS;
+  private int size;
+  /**
+   * Sum of the hashes of all entries, so that it does not depend on the order of insertion.
+   */
+  private int hashCode;
+
+  @CheckForNull
+  SymbolicRelation get(SymbolicValue leftValue, SymbolicValue rightValue) {
+    if (size == 0) {
+      return null;
+    }
+    int slot = slot(leftValue, rightValue);
+    return leftValues[slot] == null ? null : RELATIONS[relations[slot]];
+  }
+
+  void put(SymbolicValue leftValue, SymbolicValue rightValue, SymbolicRelation relation) {
+    if ((size + 1) * 4 > leftValues.length * 3) {
+      resize(leftValues.length == 0 ? INITIAL_CAPACITY : (leftValues.length * 2));
+    }
+    int slot = slot(leftValue, rightValue);
+    if (leftValues[slot] == null) {
+      leftValues[slot] = leftValue;
+      rightValues[slot] = rightValue;
+      index(slot);
+      size++;
+    } else {
+      hashCode -= entryHash(leftValue, rightValue, RELATIONS[relations[slot]]);
+    }
+    relations[slot] = (byte) relation.ordinal();
+    hashCode += entryHash(leftValue, rightValue, relation);
+  }
+
+  private int slot(SymbolicValue leftValue, SymbolicValue rightValue) {
+    int mask = leftValues.length - 1;
+    int slot = spread(pairHash(leftValue, rightValue)) & mask;
+    while (leftValues[slot] != null && !(leftValues[slot].equals(leftValue) && rightValues[slot].equals(rightValue))) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @return slot of the given left value in the index
+   */
+  private int indexSlot(SymbolicValue leftValue) {
+    int mask = indexedLeftValues.length - 1;
+    int indexSlot = spread(leftValue.hashCode()) & mask;
+    while (indexedLeftValues[indexSlot] != null && !indexedLeftValues[indexSlot].equals(leftValue)) {
+      indexSlot = (indexSlot + 1) & mask;
+    }
+    return indexSlot;
+  }
+
+  private void index(int slot) {
+    int indexSlot = indexSlot(leftValues[slot]);
+    if (indexedLeftValues[indexSlot] == null) {
+      indexedLeftValues[indexSlot] = leftValues[slot];
+      nextSlots[slot] = NO_SLOT;
+    } else {
+      nextSlots[slot] = firstSlots[indexSlot];
+    }
+    firstSlots[indexSlot] = slot;
+  }
+
+  private void resize(int capacity) {
+    SymbolicValue[] oldLeftValues = leftValues;
+    SymbolicValue[] oldRightValues = rightValues;
+    byte[] oldRelations = relations;
+    leftValues = new SymbolicValue[capacity];
+    rightValues = new SymbolicValue[capacity];
+    relations = new byte[capacity];
+    nextSlots = new int[capacity];
+    // there are at most as many left values as entries
+    indexedLeftValues = new SymbolicValue[capacity];
+    firstSlots = new int[capacity];
+    for (int i = 0; i < oldLeftValues.length; i++) {
+      if (oldLeftValues[i] != null) {
+        int slot = slot(oldLeftValues[i], oldRightValues[i]);
+        leftValues[slot] = oldLeftValues[i];
+        rightValues[slot] = oldRightValues[i];
+        relations[slot] = oldRelations[i];
+        index(slot);
+      }
+    }
+  }
+
+  private static int pairHash(SymbolicValue leftValue, SymbolicValue rightValue) {
+    return 31 * leftValue.hashCode() + rightValue.hashCode();
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int entryHash(SymbolicValue leftValue, SymbolicValue rightValue, SymbolicRelation relation) {
+    return 31 * pairHash(leftValue, rightValue) + relation.ordinal();
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int slots() {
+    return leftValues.length;
+  }
+
+  /**
+   * @return first slot whose left value is the given one, or -1 when there is none
+   */
+  int firstSlot(SymbolicValue leftValue) {
+    if (size == 0) {
+      return NO_SLOT;
+    }
+    int indexSlot = indexSlot(leftValue);
+    return indexedLeftValues[indexSlot] == null ? NO_SLOT : firstSlots[indexSlot];
+  }
+
+  /**
+   * @return next slot with the same left value as the given slot, or -1 when there is none
+   */
+  int nextSlot(int slot) {
+    return nextSlots[slot];
+  }
+
+  @CheckForNull
+  SymbolicValue leftValue(int slot) {
+    return leftValues[slot];
+  }
+
+  SymbolicValue rightValue(int slot) {
+    return rightValues[slot];
+  }
+
+  SymbolicRelation relation(int slot) {
+    return RELATIONS[relations[slot]];
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SymbolicRelationTable)) {
+      return false;
+    }
+    SymbolicRelationTable that = (SymbolicRelationTable) obj;
+    if (size != that.size || hashCode != that.hashCode) {
+      return false;
+    }
+    for (int i = 0; i < leftValues.length; i++) {
+      if (leftValues[i] != null && that.get(leftValues[i], rightValues[i]) != relation(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < leftValues.length; i++) {
+      if (leftValues[i] != null) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(leftValues[i]).append(' ').append(relation(i)).append(' ').append(rightValues[i]);
+      }
+    }
+    return sb.append('}').toString();
+  }
+
+}
@@ -13,5 +13,10 @@ class DuplicateConditionIfElseIf {
     } else if (condition2) {
     } else if (condition1) { // NOK
     }
+
+    if (condition3) {
+    } else if (condition3) { // NOK
+    } else if (condition3) { // NOK
+    }
   }
 }
@@ -0,0 +1,7 @@
+class A {
+  void foo(boolean a) {
+    a = true;
+    if (a) {
+    }
+  }
+}
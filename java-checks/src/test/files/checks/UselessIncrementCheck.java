@@ -18,4 +18,42 @@ class A {
     A.var = ++var;
     return ++j; //Compliant
   }
-}
\ No newline at end of file
+
+  private int count;
+
+  public int pickNumber3() {
+    return count++; // Noncompliant {{Remove this increment or correct the code not to waste it.}}
+  }
+
+  public int pickNumber4(int k) {
+    try {
+      return k++; // Compliant, the incremented value is read by the finally block
+    } finally {
+      use(k);
+    }
+  }
+
+  public int pickNumber5(int k) {
+    try {
+      return k--; // Noncompliant {{Remove this increment or correct the code not to waste it.}}
+    } finally {
+      use(0);
+    }
+  }
+
+  public java.util.concurrent.Callable<Integer> pickNumber6() {
+    return new java.util.concurrent.Callable<Integer>() {
+      int calls;
+      public Integer call() {
+        int local = calls;
+        if (local > 0) {
+          return calls++; // Noncompliant {{Remove this increment or correct the code not to waste it.}}
+        }
+        return local++; // Noncompliant {{Remove this increment or correct the code not to waste it.}}
+      }
+    };
+  }
+
+  void use(int i) {
+  }
+}
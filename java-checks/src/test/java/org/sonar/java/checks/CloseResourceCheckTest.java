@@ -22,10 +22,25 @@ package org.sonar.java.checks;
 import org.junit.Test;
 import org.sonar.java.checks.verifier.JavaCheckVerifier;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class CloseResourceCheckTest {
 
   @Test
   public void detected() {
     JavaCheckVerifier.verify("src/test/files/checks/CloseResourceCheck.java", new CloseResourceCheck());
   }
+
+  @Test
+  public void methods_analyzed_in_parallel() {
+    CloseResourceCheck parallelCheck = new CloseResourceCheck();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallelCheck.setMethodAnalysisPool(pool);
+      JavaCheckVerifier.verify("src/test/files/checks/CloseResourceCheck.java", parallelCheck);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
 }
@@ -39,7 +39,9 @@ public class DuplicateConditionIfElseIfCheckTest {
     checkMessagesVerifier.verify(file.getCheckMessages())
       .next().atLine(4).withMessage("This branch can not be reached because the condition duplicates a previous condition in the same sequence of \"if/else if\" statements")
       .next().atLine(9)
-      .next().atLine(14);
+      .next().atLine(14)
+      .next().atLine(18)
+      .next().atLine(19);
   }
 
 }
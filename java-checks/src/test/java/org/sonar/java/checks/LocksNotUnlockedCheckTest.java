@@ -22,6 +22,8 @@ package org.sonar.java.checks;
 import org.junit.Test;
 import org.sonar.java.checks.verifier.JavaCheckVerifier;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class LocksNotUnlockedCheckTest {
 
   private final LocksNotUnlockedCheck check = new LocksNotUnlockedCheck();
@@ -30,4 +32,16 @@ public class LocksNotUnlockedCheckTest {
   public void detected() {
     JavaCheckVerifier.verify("src/test/files/checks/LocksNotUnlockedCheck.java", check);
   }
+
+  @Test
+  public void methods_analyzed_in_parallel() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      check.setMethodAnalysisPool(pool);
+      JavaCheckVerifier.verify("src/test/files/checks/LocksNotUnlockedCheck.java", check);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
 }
@@ -0,0 +1,177 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.java.JavaAstScanner;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class MethodAnalysisVisitorTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void methods_are_analyzed_on_the_visiting_thread_without_pool() throws Exception {
+    MethodNames check = new MethodNames();
+    scan(check);
+    assertThat(check.reported).containsExactly("m0", "A", "m1", "m2", "m3", "m4", "m5", "m6", "m7");
+    assertThat(check.threads).containsOnly(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void results_are_reported_in_order_of_methods_with_pool() throws Exception {
+    MethodNames check = new MethodNames();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      check.setMethodAnalysisPool(pool);
+      scan(check);
+    } finally {
+      pool.shutdownNow();
+    }
+    assertThat(check.reported).containsExactly("m0", "A", "m1", "m2", "m3", "m4", "m5", "m6", "m7");
+    assertThat(check.threads).excludes(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void failures_of_analyses_are_propagated() throws Exception {
+    MethodNames check = new MethodNames();
+    check.failure = true;
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      check.setMethodAnalysisPool(pool);
+      scan(check);
+      fail("Failure of the analysis of a method should be propagated");
+    } catch (Exception e) {
+      assertThat(Throwables.getRootCause(e)).isInstanceOf(IllegalStateException.class).hasMessage("analysis failure");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void analyses_are_given_the_context_of_their_file() throws Exception {
+    MethodNames check = new MethodNames();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      check.setMethodAnalysisPool(pool);
+      scan(check);
+    } finally {
+      pool.shutdownNow();
+    }
+    assertThat(check.files).containsOnly("A.java");
+  }
+
+  @Test
+  public void pending_analyses_are_cancelled_when_reporting_fails() throws Exception {
+    final CountDownLatch scanFailed = new CountDownLatch(1);
+    final List<String> analyzed = Collections.synchronizedList(new ArrayList<String>());
+    MethodNames check = new MethodNames() {
+      @Override
+      protected String analyze(JavaFileScannerContext fileContext, MethodTree tree) {
+        String name = tree.simpleName().name();
+        if ("m0".equals(name)) {
+          throw new IllegalStateException("analysis failure");
+        }
+        try {
+          scanFailed.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        analyzed.add(name);
+        return name;
+      }
+    };
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      check.setMethodAnalysisPool(pool);
+      scan(check);
+      fail("Failure of the analysis of a method should be propagated");
+    } catch (Exception e) {
+      assertThat(Throwables.getRootCause(e)).hasMessage("analysis failure");
+    } finally {
+      scanFailed.countDown();
+      pool.shutdown();
+      pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    // only the analysis already running when the failure was reported completes
+    assertThat(analyzed.size()).isLessThanOrEqualTo(1);
+  }
+
+  private void scan(MethodAnalysisVisitor<?> check) throws Exception {
+    StringBuilder source = new StringBuilder("class A {\n  void m0() {}\n  A() {}\n");
+    for (int i = 1; i < 8; i++) {
+      source.append("  int m").append(i).append("(int p) { return p + ").append(i).append("; }\n");
+    }
+    File file = temp.newFile("A.java");
+    FileUtils.write(file, source.append("}\n").toString(), Charsets.UTF_8);
+    JavaAstScanner.scanSingleFile(file, new VisitorsBridge(check));
+  }
+
+  private static class MethodNames extends MethodAnalysisVisitor<String> {
+    private final List<String> reported = new ArrayList<>();
+    private final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> files = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private boolean failure;
+
+    @Override
+    protected List<Tree.Kind> methodKinds() {
+      return ImmutableList.of(Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR);
+    }
+
+    @Override
+    protected String analyze(JavaFileScannerContext fileContext, MethodTree tree) {
+      threads.add(Thread.currentThread().getName());
+      files.add(fileContext.getFile().getName());
+      if (failure) {
+        throw new IllegalStateException("analysis failure");
+      }
+      return tree.simpleName().name();
+    }
+
+    @Override
+    protected void report(String result) {
+      reported.add(result);
+    }
+  }
+
+}
@@ -21,12 +21,67 @@ package org.sonar.java.checks;
 
 import org.junit.Test;
 import org.sonar.java.checks.verifier.JavaCheckVerifier;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 public class UselessConditionCheckTest {
 
+  private static final long NANOS_PER_MILLI = 1000000L;
+
   @Test
   public void test() {
     JavaCheckVerifier.verify("src/test/files/checks/UselessConditionCheck.java", new UselessConditionCheck());
   }
 
+  @Test
+  public void time_budgets_are_disabled_by_default() {
+    UselessConditionCheck check = new UselessConditionCheck();
+    assertThat(check.maximumMethodTime).isEqualTo(0);
+    assertThat(check.maximumFileTime).isEqualTo(0);
+  }
+
+  @Test
+  public void bounded_method_time() {
+    UselessConditionCheck check = new UselessConditionCheck();
+    check.maximumMethodTime = 60000;
+    check.maximumFileTime = 600000;
+    JavaCheckVerifier.verify("src/test/files/checks/UselessConditionCheck.java", check);
+  }
+
+  @Test
+  public void exhausted_file_budget() {
+    UselessConditionCheck check = new UselessConditionCheck();
+    check.maximumFileTime = -1;
+    JavaCheckVerifier.verifyNoIssue("src/test/files/checks/UselessConditionCheckFileBudget.java", check);
+  }
+
+  @Test
+  public void running_analyses_are_counted_in_file_budget() {
+    UselessConditionCheck.FileTimeBudget budget = new UselessConditionCheck.FileTimeBudget(mock(JavaFileScannerContext.class), 10 * NANOS_PER_MILLI);
+    assertThat(budget.start(0)).isEqualTo(10);
+    assertThat(budget.start(2 * NANOS_PER_MILLI)).isEqualTo(8);
+    // the two running analyses already spent 8 ms
+    assertThat(budget.start(5 * NANOS_PER_MILLI)).isEqualTo(2);
+    budget.stop(0, 6 * NANOS_PER_MILLI);
+    budget.stop(2 * NANOS_PER_MILLI, 6 * NANOS_PER_MILLI);
+    budget.stop(5 * NANOS_PER_MILLI, 6 * NANOS_PER_MILLI);
+    assertThat(budget.start(7 * NANOS_PER_MILLI)).isEqualTo(-1);
+  }
+
+  @Test
+  public void methods_analyzed_in_parallel() {
+    UselessConditionCheck parallelCheck = new UselessConditionCheck();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallelCheck.setMethodAnalysisPool(pool);
+      JavaCheckVerifier.verify("src/test/files/checks/UselessConditionCheck.java", parallelCheck);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
 }
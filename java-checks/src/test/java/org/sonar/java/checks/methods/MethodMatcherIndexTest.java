@@ -0,0 +1,125 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.checks.methods;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.sonar.java.JavaAstScanner;
+import org.sonar.java.checks.SubscriptionBaseVisitor;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.MethodInvocationTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.NewClassTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MethodMatcherIndexTest {
+
+  private final MethodMatcher toString = MethodMatcher.create().name("toString");
+  private final MethodMatcher startsWithTo = MethodMatcher.create().name(NameCriteria.startsWith("to")).withNoParameterConstraint();
+  private final MethodMatcher integerConstructor = MethodMatcher.create().typeDefinition("java.lang.Integer").name("<init>").addParameter("int");
+  private final MethodMatcher mit = MethodMatcher.create().name("mit");
+
+  @Test
+  public void candidates_are_the_matchers_of_the_method_name_and_of_any_name_in_original_order() {
+    CandidatesVisitor visitor = scan(MethodMatcherIndex.of(ImmutableList.of(toString, startsWithTo, integerConstructor, mit)));
+
+    assertThat(visitor.methods).containsExactly(
+      ImmutableList.of(toString, startsWithTo),
+      ImmutableList.of(toString, startsWithTo),
+      ImmutableList.of(startsWithTo, mit));
+    assertThat(visitor.constructors).containsExactly(ImmutableList.of(startsWithTo, integerConstructor));
+    assertThat(visitor.invocations).containsExactly(ImmutableList.of(toString, startsWithTo));
+  }
+
+  @Test
+  public void unknown_names_have_no_candidate() {
+    CandidatesVisitor visitor = scan(MethodMatcherIndex.of(ImmutableList.of(mit)));
+
+    assertThat(visitor.methods).containsExactly(ImmutableList.<MethodMatcher>of(), ImmutableList.<MethodMatcher>of(), ImmutableList.of(mit));
+    assertThat(visitor.constructors).containsExactly(ImmutableList.<MethodMatcher>of());
+    assertThat(visitor.invocations).containsExactly(ImmutableList.<MethodMatcher>of());
+  }
+
+  @Test
+  public void trees_without_name_only_have_candidates_of_any_name() {
+    MethodMatcherIndex index = MethodMatcherIndex.of(ImmutableList.of(toString, startsWithTo));
+    assertThat(index.candidates(mock(MethodInvocationTree.class))).containsExactly(startsWithTo);
+    assertThat(index.candidates(mock(MethodTree.class))).containsExactly(startsWithTo);
+  }
+
+  @Test
+  public void explicit_constructor_invocations_have_candidates_of_constructors() {
+    MethodMatcherIndex index = MethodMatcherIndex.of(ImmutableList.of(toString, integerConstructor));
+    assertThat(index.candidates(invocationOf("super"))).containsExactly(integerConstructor);
+    assertThat(index.candidates(invocationOf("this"))).containsExactly(integerConstructor);
+  }
+
+  private static MethodInvocationTree invocationOf(String name) {
+    IdentifierTree identifier = mock(IdentifierTree.class);
+    when(identifier.name()).thenReturn(name);
+    MethodInvocationTree invocation = mock(MethodInvocationTree.class);
+    when(invocation.methodSelect()).thenReturn(identifier);
+    return invocation;
+  }
+
+  private static CandidatesVisitor scan(MethodMatcherIndex index) {
+    CandidatesVisitor visitor = new CandidatesVisitor(index);
+    JavaAstScanner.scanSingleFile(new File("src/test/files/checks/methodMatcher/Test.java"), new VisitorsBridge(visitor));
+    return visitor;
+  }
+
+  private static class CandidatesVisitor extends SubscriptionBaseVisitor {
+
+    private final MethodMatcherIndex index;
+    private final List<List<MethodMatcher>> methods = Lists.newArrayList();
+    private final List<List<MethodMatcher>> constructors = Lists.newArrayList();
+    private final List<List<MethodMatcher>> invocations = Lists.newArrayList();
+
+    CandidatesVisitor(MethodMatcherIndex index) {
+      this.index = index;
+    }
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return ImmutableList.of(Tree.Kind.METHOD, Tree.Kind.METHOD_INVOCATION, Tree.Kind.NEW_CLASS);
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      if (tree.is(Tree.Kind.METHOD)) {
+        methods.add(index.candidates((MethodTree) tree));
+      } else if (tree.is(Tree.Kind.NEW_CLASS)) {
+        constructors.add(index.candidates((NewClassTree) tree));
+      } else {
+        invocations.add(index.candidates((MethodInvocationTree) tree));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DefiniteAssignmentTest {
+
+  @Test
+  public void parameters_are_assigned_at_entry() {
+    MethodTree method = method("void foo(int a) { int b; bar(a); }");
+    CFG cfg = CFG.build(method);
+    DefiniteAssignment assignment = new DefiniteAssignment(cfg, new LocalVariables(method));
+    assertThat(assignment.isAssignedBefore(cfg.entry(), 0)).isTrue();
+    assertThat(assignment.isAssignedBefore(cfg.entry(), 1)).isFalse();
+    assertThat(assignment.before(cfg.exit()).toString()).isEqualTo("{0}");
+  }
+
+  @Test
+  public void variables_must_be_assigned_on_every_path() {
+    MethodTree method = method("void foo(boolean c) { int a; int b; if (c) { a = 1; b = 1; } else { a = 2; } bar(); }");
+    CFG cfg = CFG.build(method);
+    DefiniteAssignment assignment = new DefiniteAssignment(cfg, new LocalVariables(method));
+    Tree next = element(cfg, Tree.Kind.METHOD_INVOCATION, 0);
+    assertThat(assignment.before(block(cfg, next)).toString()).isEqualTo("{0, 1}");
+  }
+
+  @Test
+  public void loops_reach_a_fixpoint() {
+    MethodTree method = method("void foo(boolean c) { int a; int b; while (c) { a = 1; } b = 1; bar(); }");
+    CFG cfg = CFG.build(method);
+    DefiniteAssignment assignment = new DefiniteAssignment(cfg, new LocalVariables(method));
+    Tree next = element(cfg, Tree.Kind.METHOD_INVOCATION, 0);
+    assertThat(assignment.before(block(cfg, next)).toString()).isEqualTo("{0}");
+    assertThat(assignment.after(block(cfg, next), next).toString()).isEqualTo("{0, 2}");
+    assertThat(assignment.before(cfg.exit()).toString()).isEqualTo("{0, 2}");
+  }
+
+  @Test
+  public void handlers_only_rely_on_assignments_before_the_try_statement() {
+    MethodTree method = method("void foo(int p) { int a; int b = 0; try { a = 1; bar(); } catch (Exception e) { use(e); } }");
+    CFG cfg = CFG.build(method);
+    DefiniteAssignment assignment = new DefiniteAssignment(cfg, new LocalVariables(method));
+    Tree handler = element(cfg, Tree.Kind.METHOD_INVOCATION, 1);
+    assertThat(assignment.after(block(cfg, handler), handler).toString()).isEqualTo("{0, 2, 3}");
+  }
+
+  private static MethodTree method(String source) {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse("class A { " + source + " }");
+    SemanticModel.createFor(cut, ImmutableList.<File>of());
+    return (MethodTree) ((ClassTree) cut.types().get(0)).members().get(0);
+  }
+
+  /**
+   * @return the n-th element of the given kind, in order of blocks
+   */
+  private static Tree element(CFG cfg, Tree.Kind kind, int n) {
+    int count = 0;
+    for (CFG.Block block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        if (element.is(kind) && count++ == n) {
+          return element;
+        }
+      }
+    }
+    throw new IllegalArgumentException("No element " + kind + " #" + n);
+  }
+
+  private static CFG.Block block(CFG cfg, Tree element) {
+    for (CFG.Block block : cfg.blocks()) {
+      if (block.elements().contains(element)) {
+        return block;
+      }
+    }
+    throw new IllegalArgumentException("Element is not part of the graph");
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LiveVariablesTest {
+
+  @Test
+  public void sequence() {
+    MethodTree method = method("void foo(int a) { int b = a; a = 1; bar(b); }");
+    CFG cfg = CFG.build(method);
+    LiveVariables live = new LiveVariables(cfg, new LocalVariables(method));
+    assertThat(live.before(cfg.entry()).toString()).isEqualTo("{0}");
+    Tree declaration = element(cfg, Tree.Kind.VARIABLE, 0);
+    assertThat(live.after(cfg.entry(), declaration).toString()).isEqualTo("{1}");
+    assertThat(live.isLiveAfter(cfg.entry(), declaration, 0)).isFalse();
+    assertThat(live.after(cfg.entry()).isEmpty()).isTrue();
+    assertThat(live.before(cfg.exit()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void variables_read_in_loops_are_live_around_them() {
+    MethodTree method = method("void foo(int a) { int i = 0; int unused = 0; while (i < a) { i++; } }");
+    CFG cfg = CFG.build(method);
+    LiveVariables live = new LiveVariables(cfg, new LocalVariables(method));
+    Tree increment = element(cfg, Tree.Kind.POSTFIX_INCREMENT, 0);
+    assertThat(live.after(block(cfg, increment), increment).toString()).isEqualTo("{0, 1}");
+    assertThat(live.before(cfg.entry()).toString()).isEqualTo("{0}");
+    assertThat(live.iterations()).isGreaterThan(cfg.blocks().size());
+  }
+
+  @Test
+  public void variables_read_by_handlers_are_live_wherever_exceptions_may_be_thrown() {
+    MethodTree method = method("void foo() { int x = 0; int y = 0; try { x = 1; bar(); x = 2; y = 1; } catch (Exception e) { use(x); } use(y); }");
+    CFG cfg = CFG.build(method);
+    LiveVariables live = new LiveVariables(cfg, new LocalVariables(method));
+    Tree firstAssignment = element(cfg, Tree.Kind.ASSIGNMENT, 0);
+    CFG.Block tryBlock = block(cfg, firstAssignment);
+    assertThat(live.isLiveAfter(tryBlock, firstAssignment, 0)).isTrue();
+    // y is written by the try block, but read after the handler
+    assertThat(live.isLiveAfter(tryBlock, firstAssignment, 1)).isTrue();
+  }
+
+  @Test
+  public void variables_read_by_finally_blocks_are_live_after_returns() {
+    MethodTree method = method("int foo(int k) { try { return k++; } finally { use(k); } }");
+    CFG cfg = CFG.build(method);
+    LiveVariables live = new LiveVariables(cfg, new LocalVariables(method));
+    Tree increment = element(cfg, Tree.Kind.POSTFIX_INCREMENT, 0);
+    assertThat(live.isLiveAfter(block(cfg, increment), increment, 0)).isTrue();
+
+    method = method("int foo(int k) { try { return k++; } finally { use(0); } }");
+    cfg = CFG.build(method);
+    live = new LiveVariables(cfg, new LocalVariables(method));
+    increment = element(cfg, Tree.Kind.POSTFIX_INCREMENT, 0);
+    assertThat(live.isLiveAfter(block(cfg, increment), increment, 0)).isFalse();
+  }
+
+  @Test
+  public void conditional_writes_do_not_kill() {
+    MethodTree method = method("boolean foo(int a, boolean b) { boolean c = b && (a = 1) > 0; return a > 0; }");
+    CFG cfg = CFG.build(method);
+    LiveVariables live = new LiveVariables(cfg, new LocalVariables(method));
+    assertThat(live.before(cfg.entry()).toString()).isEqualTo("{0, 1}");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void elements_of_other_blocks_are_rejected() {
+    MethodTree method = method("void foo(int a) { bar(a); }");
+    CFG cfg = CFG.build(method);
+    new LiveVariables(cfg, new LocalVariables(method)).after(cfg.exit(), element(cfg, Tree.Kind.METHOD_INVOCATION, 0));
+  }
+
+  private static MethodTree method(String source) {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse("class A { " + source + " }");
+    SemanticModel.createFor(cut, ImmutableList.<File>of());
+    return (MethodTree) ((ClassTree) cut.types().get(0)).members().get(0);
+  }
+
+  /**
+   * @return the n-th element of the given kind, in order of blocks
+   */
+  private static Tree element(CFG cfg, Tree.Kind kind, int n) {
+    int count = 0;
+    for (CFG.Block block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        if (element.is(kind) && count++ == n) {
+          return element;
+        }
+      }
+    }
+    throw new IllegalArgumentException("No element " + kind + " #" + n);
+  }
+
+  private static CFG.Block block(CFG cfg, Tree element) {
+    for (CFG.Block block : cfg.blocks()) {
+      if (block.elements().contains(element)) {
+        return block;
+      }
+    }
+    throw new IllegalArgumentException("Element is not part of the graph");
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LocalVariablesTest {
+
+  @Test
+  public void parameters_and_locals_are_indexed() {
+    MethodTree method = method("void foo(int p) { int a = p; for (String s : list) { } try { } catch (Exception e) { } new Object() { int inner; }; }");
+    LocalVariables variables = new LocalVariables(method);
+    assertThat(variables.size()).isEqualTo(4);
+    assertThat(variables.symbol(0).name()).isEqualTo("p");
+    assertThat(variables.symbol(1).name()).isEqualTo("a");
+    assertThat(variables.symbol(2).name()).isEqualTo("s");
+    assertThat(variables.symbol(3).name()).isEqualTo("e");
+    assertThat(variables.index(variables.symbol(1))).isEqualTo(1);
+    assertThat(variables.parameters().cardinality()).isEqualTo(1);
+    assertThat(variables.parameters().get(0)).isTrue();
+  }
+
+  @Test
+  public void fields_are_not_indexed() {
+    ClassTree classTree = type("void foo() { field = 1; }");
+    LocalVariables variables = new LocalVariables((MethodTree) classTree.members().get(1));
+    assertThat(variables.size()).isEqualTo(0);
+    assertThat(variables.index(((VariableTree) classTree.members().get(0)).symbol())).isEqualTo(-1);
+  }
+
+  @Test
+  public void accesses_are_reported_in_order_of_evaluation() {
+    assertThat(accesses("void foo(int a, int b) { a += b; }")).isEqualTo("r0 r1 w0 ");
+    assertThat(accesses("void foo(int a, int b) { a = b++; }")).isEqualTo("r1 w1 w0 ");
+    assertThat(accesses("void foo(int a, int b) { int c = a; }")).isEqualTo("r0 w2 ");
+    assertThat(accesses("void foo(int a, int b) { int c; }")).isEqualTo("");
+    assertThat(accesses("void foo(int a, int b) { boolean c = a > 0 && (b = 1) > 0; }")).isEqualTo("r0 ?w1 w2 ");
+    assertThat(accesses("void foo(int a, int b) { a = b > 0 ? b-- : 0; }")).isEqualTo("r1 r1 ?w1 w0 ");
+    assertThat(accesses("void foo(int a, int[] b) { b[a] = 0; }")).isEqualTo("r1 r0 ");
+  }
+
+  /**
+   * @return accesses of the elements of the entry block, except the parameters which are not elements
+   */
+  private static String accesses(String source) {
+    MethodTree method = method(source);
+    LocalVariables variables = new LocalVariables(method);
+    final StringBuilder sb = new StringBuilder();
+    for (Tree element : CFG.build(method).entry().elements()) {
+      element.accept(variables.new AccessVisitor() {
+        @Override
+        void read(int variable) {
+          sb.append('r').append(variable).append(' ');
+        }
+
+        @Override
+        void write(int variable, Tree definition, boolean conditional) {
+          sb.append(conditional ? "?w" : "w").append(variable).append(' ');
+        }
+      });
+    }
+    return sb.toString();
+  }
+
+  private static MethodTree method(String source) {
+    return (MethodTree) type(source).members().get(1);
+  }
+
+  private static ClassTree type(String source) {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse("class A { int field; " + source + " }");
+    SemanticModel.createFor(cut, ImmutableList.<File>of());
+    return (ClassTree) cut.types().get(0);
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.dataflow;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import java.util.BitSet;
+
+public class ReachingDefinitionsTest {
+
+  @Test
+  public void definitions_are_killed_by_later_definitions() {
+    MethodTree method = method("void foo(int a) { int b = a; b++; a = b; bar(a, b); }");
+    CFG cfg = CFG.build(method);
+    ReachingDefinitions definitions = new ReachingDefinitions(method, cfg, new LocalVariables(method));
+    assertThat(definitions.definitionCount()).isEqualTo(4);
+    assertThat(definitions.definition(0).is(Tree.Kind.VARIABLE)).isTrue();
+    BitSet atExit = definitions.before(cfg.exit());
+    assertThat(definitions.definitions(atExit, 0)).containsOnly(element(cfg, Tree.Kind.ASSIGNMENT, 0));
+    assertThat(definitions.definitions(atExit, 1)).containsOnly(element(cfg, Tree.Kind.POSTFIX_INCREMENT, 0));
+  }
+
+  @Test
+  public void definitions_of_both_branches_reach_the_join() {
+    MethodTree method = method("void foo(boolean c) { int a = 0; if (c) { a = 1; } else if (a > 0) { bar(); } else { a = 2; } bar(a); }");
+    CFG cfg = CFG.build(method);
+    LocalVariables variables = new LocalVariables(method);
+    ReachingDefinitions definitions = new ReachingDefinitions(method, cfg, variables);
+    assertThat(definitions.definitions(definitions.before(cfg.exit()), 1)).containsOnly(
+      element(cfg, Tree.Kind.VARIABLE, 0), element(cfg, Tree.Kind.ASSIGNMENT, 0), element(cfg, Tree.Kind.ASSIGNMENT, 1));
+  }
+
+  @Test
+  public void definitions_within_try_statements_reach_handlers() {
+    MethodTree method = method("void foo(int a) { try { a = 1; bar(); a = 2; bar(); } catch (Exception e) { use(a); } }");
+    CFG cfg = CFG.build(method);
+    ReachingDefinitions definitions = new ReachingDefinitions(method, cfg, new LocalVariables(method));
+    Tree use = element(cfg, Tree.Kind.METHOD_INVOCATION, 2);
+    assertThat(definitions.definitions(definitions.before(block(cfg, use)), 0)).containsOnly(
+      method.parameters().get(0), element(cfg, Tree.Kind.ASSIGNMENT, 0), element(cfg, Tree.Kind.ASSIGNMENT, 1));
+  }
+
+  private static MethodTree method(String source) {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse("class A { " + source + " }");
+    SemanticModel.createFor(cut, ImmutableList.<File>of());
+    return (MethodTree) ((ClassTree) cut.types().get(0)).members().get(0);
+  }
+
+  /**
+   * @return the n-th element of the given kind, in order of blocks
+   */
+  private static Tree element(CFG cfg, Tree.Kind kind, int n) {
+    int count = 0;
+    for (CFG.Block block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        if (element.is(kind) && count++ == n) {
+          return element;
+        }
+      }
+    }
+    throw new IllegalArgumentException("No element " + kind + " #" + n);
+  }
+
+  private static CFG.Block block(CFG cfg, Tree element) {
+    for (CFG.Block block : cfg.blocks()) {
+      if (block.elements().contains(element)) {
+        return block;
+      }
+    }
+    throw new IllegalArgumentException("Element is not part of the graph");
+  }
+
+}
@@ -20,9 +20,11 @@
 package org.sonar.java.symexec;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import org.junit.Test;
 import org.sonar.plugins.java.api.semantic.Symbol;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -206,6 +208,28 @@ public class ExecutionStateTest {
     assertThat(state.getRelation(symbol12, symbol11)).isEqualTo(SymbolicRelation.GREATER_EQUAL);
   }
 
+  @Test
+  public void test_join() {
+    SymbolicValue.SymbolicVariableValue value1 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
+    SymbolicValue.SymbolicVariableValue value2 = new SymbolicValue.SymbolicVariableValue(mockLocalVariable());
+
+    ExecutionState parentState = new ExecutionState().setBooleanConstraint(value1, TRUE);
+    ExecutionState state1 = new ExecutionState(parentState).setBooleanConstraint(value2, TRUE);
+    ExecutionState state2 = new ExecutionState(new ExecutionState(parentState).setBooleanConstraint(value2, FALSE)).setBooleanConstraint(value2, TRUE);
+    // same constraint as the common ancestor.
+    ExecutionState state3 = new ExecutionState(parentState).setBooleanConstraint(value1, TRUE).setBooleanConstraint(value2, TRUE);
+    ExecutionState state4 = new ExecutionState(parentState).setBooleanConstraint(value2, FALSE);
+
+    List<ExecutionState> states = Lists.newArrayList(state1, state2, state3, state4);
+    ExecutionState.join(states);
+    assertThat(states).containsExactly(state1, state4);
+
+    // states without common ancestor.
+    states = Lists.newArrayList(new ExecutionState().setBooleanConstraint(value1, TRUE), new ExecutionState().setBooleanConstraint(value1, TRUE), new ExecutionState());
+    ExecutionState.join(states);
+    assertThat(states).hasSize(2);
+  }
+
   private Symbol.VariableSymbol mockLocalVariable() {
     Symbol.TypeSymbol methodSymbol = mock(Symbol.TypeSymbol.class);
     when(methodSymbol.isMethodSymbol()).thenReturn(true);
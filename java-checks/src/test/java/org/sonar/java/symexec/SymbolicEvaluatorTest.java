@@ -26,6 +26,7 @@ import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.java.resolve.SemanticModel;
 import org.sonar.java.symexec.SymbolicEvaluator.PackedStatementStates;
 import org.sonar.java.symexec.SymbolicEvaluator.PackedStates;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
@@ -33,13 +34,17 @@ import org.sonar.plugins.java.api.tree.ExpressionStatementTree;
 import org.sonar.plugins.java.api.tree.ExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.StatementTree;
+import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.VariableTree;
 
 import javax.annotation.Nullable;
 
 import java.io.File;
+import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.MapAssert.entry;
+import static org.mockito.Mockito.mock;
 import static org.sonar.java.symexec.SymbolicBooleanConstraint.FALSE;
 import static org.sonar.java.symexec.SymbolicBooleanConstraint.TRUE;
 import static org.sonar.java.symexec.SymbolicBooleanConstraint.UNKNOWN;
@@ -493,6 +498,64 @@ public class SymbolicEvaluatorTest {
     assertThat(unknownState.getBooleanConstraint(local2Symbol())).isSameAs(UNKNOWN);
   }
 
+  @Test
+  public void test_method_statistics() {
+    SymbolicEvaluator evaluator = new SymbolicEvaluator();
+    Map<Tree, SymbolicBooleanConstraint> result = evaluateMethod(evaluator, "if (false) {} if (local1) {}");
+    assertThat(result).hasSize(2);
+    assertThat(result).includes(entry(firstStatement(), FALSE));
+    assertThat(evaluator.getStatistics().getExecutionStates()).isEqualTo(2);
+    assertThat(evaluator.getStatistics().getMerges()).isEqualTo(2);
+    assertThat(evaluator.getStatistics().isComplete()).isTrue();
+  }
+
+  @Test
+  public void states_with_same_constraints_are_joined() {
+    SymbolicEvaluator evaluator = new SymbolicEvaluator();
+    evaluateMethod(evaluator, "if (local1 || local2) { local1 = true; local2 = true; if (field1) {} }");
+    // 4 states for the condition, 2 states for the nested condition explored once.
+    assertThat(evaluator.getStatistics().getExecutionStates()).isEqualTo(4 + 2);
+  }
+
+  @Test
+  public void exhausted_state_budget_keeps_fully_explored_statements() {
+    SymbolicEvaluator evaluator = new SymbolicEvaluator(2, SymbolicEvaluator.DEFAULT_MAXIMAL_TIME_MILLIS, SymbolicEvaluator.DEFAULT_MAXIMAL_NESTING_DEPTH);
+    Map<Tree, SymbolicBooleanConstraint> result = evaluateMethod(evaluator, "if (false) {} if (local1) { if (local2) {} }");
+    assertThat(result).hasSize(1);
+    assertThat(result).includes(entry(firstStatement(), FALSE));
+    assertThat(evaluator.getStatistics().getExecutionStates()).isEqualTo(2);
+    assertThat(evaluator.getStatistics().isComplete()).isFalse();
+  }
+
+  @Test
+  public void exhausted_nesting_depth_budget_keeps_fully_explored_statements() {
+    SymbolicEvaluator evaluator = new SymbolicEvaluator(SymbolicEvaluator.DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT, SymbolicEvaluator.DEFAULT_MAXIMAL_TIME_MILLIS, 2);
+    Map<Tree, SymbolicBooleanConstraint> result = evaluateMethod(evaluator, "if (false) {} { { if (local1) {} } }");
+    assertThat(result).hasSize(1);
+    assertThat(result).includes(entry(firstStatement(), FALSE));
+    assertThat(evaluator.getStatistics().isComplete()).isFalse();
+  }
+
+  @Test
+  public void exhausted_time_budget() {
+    SymbolicEvaluator evaluator = new SymbolicEvaluator(SymbolicEvaluator.DEFAULT_MAXIMAL_EXECUTION_STATE_COUNT, -1, SymbolicEvaluator.DEFAULT_MAXIMAL_NESTING_DEPTH);
+    assertThat(evaluateMethod(evaluator, "if (false) {}")).isEmpty();
+    assertThat(evaluator.getStatistics().isComplete()).isFalse();
+  }
+
+  private Map<Tree, SymbolicBooleanConstraint> evaluateMethod(SymbolicEvaluator evaluator, String input) {
+    analyzeStatement(input);
+    return evaluator.evaluateMethod(mock(JavaFileScannerContext.class), new ExecutionState(), wrapperMethod());
+  }
+
+  private MethodTree wrapperMethod() {
+    return (MethodTree) ((ClassTree) compilationUnit.types().get(0)).members().get(2);
+  }
+
+  private StatementTree firstStatement() {
+    return wrapperMethod().block().body().get(0);
+  }
+
   private CompilationUnitTree compilationUnit;
 
   private ExpressionTree analyze(String input) {
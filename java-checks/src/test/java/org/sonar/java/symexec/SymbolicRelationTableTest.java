@@ -0,0 +1,98 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.symexec;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SymbolicRelationTableTest {
+
+  @Test
+  public void test_get_put() {
+    SymbolicRelationTable table = new SymbolicRelationTable();
+    assertThat(table.isEmpty()).isTrue();
+    assertThat(table.get(value(1), value(2))).isNull();
+
+    for (int i = 0; i < 100; i++) {
+      table.put(value(i), value(i + 1), SymbolicRelation.LESS_THAN);
+    }
+    assertThat(table.size()).isEqualTo(100);
+    assertThat(table.get(value(42), value(43))).isSameAs(SymbolicRelation.LESS_THAN);
+    assertThat(table.get(value(43), value(42))).isNull();
+
+    table.put(value(42), value(43), SymbolicRelation.UNKNOWN);
+    assertThat(table.size()).isEqualTo(100);
+    assertThat(table.get(value(42), value(43))).isSameAs(SymbolicRelation.UNKNOWN);
+
+    int entries = 0;
+    for (int slot = 0; slot < table.slots(); slot++) {
+      if (table.leftValue(slot) != null) {
+        entries++;
+        assertThat(table.get(table.leftValue(slot), table.rightValue(slot))).isSameAs(table.relation(slot));
+      }
+    }
+    assertThat(entries).isEqualTo(100);
+  }
+
+  @Test
+  public void equality_does_not_depend_on_insertion_order() {
+    SymbolicRelationTable table1 = new SymbolicRelationTable();
+    table1.put(value(1), value(2), SymbolicRelation.EQUAL_TO);
+    table1.put(value(2), value(3), SymbolicRelation.NOT_EQUAL);
+    SymbolicRelationTable table2 = new SymbolicRelationTable();
+    table2.put(value(2), value(3), SymbolicRelation.GREATER_THAN);
+    table2.put(value(1), value(2), SymbolicRelation.EQUAL_TO);
+    assertThat(table1).isNotEqualTo(table2);
+
+    table2.put(value(2), value(3), SymbolicRelation.NOT_EQUAL);
+    assertThat(table1).isEqualTo(table2);
+    assertThat(table1.hashCode()).isEqualTo(table2.hashCode());
+    assertThat(table1).isNotEqualTo(new SymbolicRelationTable());
+    assertThat(table1.toString()).contains("EQUAL_TO").contains("NOT_EQUAL");
+  }
+
+  @Test
+  public void slots_of_a_left_value_are_chained() {
+    SymbolicRelationTable table = new SymbolicRelationTable();
+    assertThat(table.firstSlot(value(1))).isEqualTo(-1);
+    for (int i = 0; i < 50; i++) {
+      table.put(value(i % 5), value(i), SymbolicRelation.LESS_THAN);
+    }
+    // updates of an entry do not add a slot
+    table.put(value(1), value(1), SymbolicRelation.EQUAL_TO);
+
+    Set<SymbolicValue> rightValues = Sets.newHashSet();
+    for (int slot = table.firstSlot(value(1)); slot != -1; slot = table.nextSlot(slot)) {
+      assertThat(table.leftValue(slot)).isEqualTo(value(1));
+      assertThat(rightValues.add(table.rightValue(slot))).isTrue();
+    }
+    assertThat(rightValues).hasSize(10).contains(value(1), value(46));
+    assertThat(table.firstSlot(value(5))).isEqualTo(-1);
+  }
+
+  private static SymbolicValue value(long value) {
+    return new SymbolicValue.SymbolicLongValue(value);
+  }
+
+}
@@ -19,8 +19,10 @@
  */
 package org.sonar.plugins.jacoco;
 
-import com.google.common.collect.Lists;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.commons.lang.StringUtils;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.ICounter;
@@ -41,18 +43,34 @@ import org.sonar.api.test.MutableTestCase;
 import org.sonar.api.test.MutableTestPlan;
 import org.sonar.api.test.MutableTestable;
 import org.sonar.api.test.Testable;
+import org.sonar.api.utils.SonarException;
 import org.sonar.java.JavaClasspath;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 
+import javax.annotation.CheckForNull;
+
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.collect.Lists.newArrayList;
 
 public abstract class AbstractAnalyzer {
 
+  private static final int TESTS_AHEAD_PER_THREAD = 16;
+
   private final ResourcePerspectives perspectives;
   private final ModuleFileSystem fileSystem;
   private final PathResolver pathResolver;
@@ -78,13 +96,15 @@ public abstract class AbstractAnalyzer {
     this.javaClasspath = javaClasspath;
   }
 
-  private static String fullyQualifiedClassName(String packageName, String simpleClassName) {
+  static String fullyQualifiedClassName(String packageName, String simpleClassName) {
     return ("".equals(packageName) ? "" : (packageName + "/")) + StringUtils.substringBeforeLast(simpleClassName, ".");
   }
 
   private Resource getResource(ISourceFileCoverage coverage, SensorContext context) {
-    String className = fullyQualifiedClassName(coverage.getPackageName(), coverage.getName());
+    return getResource(fullyQualifiedClassName(coverage.getPackageName(), coverage.getName()), context);
+  }
 
+  private Resource getResource(String className, SensorContext context) {
     Resource resourceInContext = context.getResource(javaResourceLocator.findResourceByClassName(className));
     if (resourceInContext == null) {
       // Do not save measures on resource which doesn't exist in the context
@@ -160,66 +180,106 @@ public abstract class AbstractAnalyzer {
     }
   }
 
+  /**
+   * Each class file executed by tests is analyzed once into a {@link ProbeLineMapping}, from which lines covered by each test are computed.
+   * Both are computed on {@link #coveragePerTestThreads()} threads, while coverage is saved on the current thread in the order of tests.
+   */
   private boolean readCoveragePerTests(SensorContext context, ExecutionDataVisitor executionDataVisitor) {
     boolean collectedCoveragePerTest = false;
     if (readCoveragePerTests) {
+      List<TestExecution> tests = newArrayList();
       for (Map.Entry<String, ExecutionDataStore> entry : executionDataVisitor.getSessions().entrySet()) {
-        if (analyzeLinesCoveredByTests(entry.getKey(), entry.getValue(), context)) {
-          collectedCoveragePerTest = true;
+        TestExecution test = testExecution(entry.getKey(), entry.getValue(), context);
+        if (test != null) {
+          tests.add(test);
+        }
+      }
+      int threads = Math.max(1, coveragePerTestThreads());
+      ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads, new CoveragePerTestThreadFactory()) : MoreExecutors.sameThreadExecutor();
+      try {
+        Map<Long, ProbeLineMapping> probeLineMappings = probeLineMappings(tests, executor);
+        Iterator<TestExecution> testsToCompute = tests.iterator();
+        Deque<Future<Map<String, Set<Integer>>>> computedAhead = new ArrayDeque<>();
+        for (TestExecution test : tests) {
+          while (computedAhead.size() < TESTS_AHEAD_PER_THREAD * threads && testsToCompute.hasNext()) {
+            computedAhead.add(executor.submit(new CoveredLinesComputation(testsToCompute.next(), probeLineMappings)));
+          }
+          if (saveLinesCoveredByTest(test, waitFor(computedAhead.poll()), context)) {
+            collectedCoveragePerTest = true;
+          }
         }
+      } finally {
+        executor.shutdownNow();
       }
     }
     return collectedCoveragePerTest;
   }
 
-  private boolean analyzeLinesCoveredByTests(String sessionId, ExecutionDataStore executionDataStore, SensorContext context) {
+  /**
+   * Number of threads on which coverage per test is computed.
+   */
+  protected int coveragePerTestThreads() {
+    return 1;
+  }
+
+  @CheckForNull
+  private TestExecution testExecution(String sessionId, ExecutionDataStore executionDataStore, SensorContext context) {
     int i = sessionId.indexOf(' ');
     if (i < 0) {
-      return false;
+      return null;
     }
     String testClassName = sessionId.substring(0, i);
     String testName = sessionId.substring(i + 1);
     Resource testResource = context.getResource(javaResourceLocator.findResourceByClassName(testClassName));
     if (testResource == null) {
       // No such test class
-      return false;
+      return null;
     }
+    return new TestExecution(testResource, testName, executionDataStore);
+  }
 
-    boolean result = false;
-    CoverageBuilder coverageBuilder = jacocoReportReader.analyzeFiles(executionDataStore, classFilesOfStore(executionDataStore));
-    for (ISourceFileCoverage coverage : coverageBuilder.getSourceFiles()) {
-      Resource resource = getResource(coverage, context);
-      if (resource != null) {
-        CoverageMeasuresBuilder builder = analyzeFile(resource, coverage);
-        List<Integer> coveredLines = getCoveredLines(builder);
-        if (!coveredLines.isEmpty() && addCoverage(resource, testResource, testName, coveredLines)) {
-          result = true;
+  private Map<Long, ProbeLineMapping> probeLineMappings(List<TestExecution> tests, ExecutorService executor) {
+    Map<Long, Future<ProbeLineMapping>> analyzedClasses = Maps.newLinkedHashMap();
+    for (TestExecution test : tests) {
+      for (final ExecutionData data : test.executionDataStore.getContents()) {
+        final File classFile = classFilesCache.get(data.getName());
+        if (classFile != null && !analyzedClasses.containsKey(data.getId())) {
+          analyzedClasses.put(data.getId(), executor.submit(new Callable<ProbeLineMapping>() {
+            @Override
+            public ProbeLineMapping call() {
+              return ProbeLineMapping.analyze(jacocoReportReader, data, classFile);
+            }
+          }));
         }
       }
     }
+    Map<Long, ProbeLineMapping> result = Maps.newHashMap();
+    for (Map.Entry<Long, Future<ProbeLineMapping>> entry : analyzedClasses.entrySet()) {
+      result.put(entry.getKey(), waitFor(entry.getValue()));
+    }
     return result;
   }
 
-  private Collection<File> classFilesOfStore(ExecutionDataStore executionDataStore) {
-    Collection<File> result = Lists.newArrayList();
-    for (ExecutionData data : executionDataStore.getContents()) {
-      String vmClassName = data.getName();
-      File classFile = classFilesCache.get(vmClassName);
-      if (classFile != null) {
-        result.add(classFile);
-      }
+  private static <T> T waitFor(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SonarException("Interrupted while computing coverage per test", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
     }
-    return result;
   }
 
-  private static List<Integer> getCoveredLines(CoverageMeasuresBuilder builder) {
-    List<Integer> linesCover = newArrayList();
-    for (Map.Entry<Integer, Integer> hitsByLine : builder.getHitsByLine().entrySet()) {
-      if (hitsByLine.getValue() > 0) {
-        linesCover.add(hitsByLine.getKey());
+  private boolean saveLinesCoveredByTest(TestExecution test, Map<String, Set<Integer>> coveredLinesByClassName, SensorContext context) {
+    boolean result = false;
+    for (Map.Entry<String, Set<Integer>> entry : coveredLinesByClassName.entrySet()) {
+      Resource resource = getResource(entry.getKey(), context);
+      if (resource != null && addCoverage(resource, test.testResource, test.testName, newArrayList(entry.getValue()))) {
+        result = true;
       }
     }
-    return linesCover;
+    return result;
   }
 
   private boolean addCoverage(Resource resource, Resource testFile, String testName, List<Integer> coveredLines) {
@@ -268,6 +328,66 @@ public abstract class AbstractAnalyzer {
     return builder;
   }
 
+  private static class TestExecution {
+
+    private final Resource testResource;
+    private final String testName;
+    private final ExecutionDataStore executionDataStore;
+
+    TestExecution(Resource testResource, String testName, ExecutionDataStore executionDataStore) {
+      this.testResource = testResource;
+      this.testName = testName;
+      this.executionDataStore = executionDataStore;
+    }
+  }
+
+  /**
+   * Lines covered by a test, sorted, by class name of their source file.
+   */
+  private static class CoveredLinesComputation implements Callable<Map<String, Set<Integer>>> {
+
+    private final TestExecution test;
+    private final Map<Long, ProbeLineMapping> probeLineMappings;
+
+    CoveredLinesComputation(TestExecution test, Map<Long, ProbeLineMapping> probeLineMappings) {
+      this.test = test;
+      this.probeLineMappings = probeLineMappings;
+    }
+
+    @Override
+    public Map<String, Set<Integer>> call() {
+      Map<String, Set<Integer>> result = Maps.newLinkedHashMap();
+      for (ExecutionData data : test.executionDataStore.getContents()) {
+        ProbeLineMapping probeLineMapping = probeLineMappings.get(data.getId());
+        if (probeLineMapping != null && probeLineMapping.sourceClassName() != null) {
+          Set<Integer> lines = Sets.newTreeSet();
+          probeLineMapping.addCoveredLines(data.getProbes(), lines);
+          if (!lines.isEmpty()) {
+            Set<Integer> linesOfSource = result.get(probeLineMapping.sourceClassName());
+            if (linesOfSource == null) {
+              result.put(probeLineMapping.sourceClassName(), lines);
+            } else {
+              linesOfSource.addAll(lines);
+            }
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  private static class CoveragePerTestThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "jacoco-coverage-per-test-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
   protected abstract void saveMeasures(SensorContext context, Resource resource, Collection<Measure> measures);
 
   protected abstract String getReportPath(Project project);
@@ -78,6 +78,11 @@ public class JaCoCoItSensor implements Sensor {
       return configuration.getItReportPath();
     }
 
+    @Override
+    protected int coveragePerTestThreads() {
+      return configuration.getCoveragePerTestThreads();
+    }
+
     @Override
     protected void saveMeasures(SensorContext context, Resource resource, Collection<Measure> measures) {
       for (Measure measure : measures) {
@@ -87,6 +87,11 @@ public class JaCoCoSensor implements Sensor {
       return configuration.getReportPath();
     }
 
+    @Override
+    protected int coveragePerTestThreads() {
+      return configuration.getCoveragePerTestThreads();
+    }
+
     @Override
     protected void saveMeasures(SensorContext context, Resource resource, Collection<Measure> measures) {
       for (Measure measure : measures) {
@@ -27,6 +27,13 @@ import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.LabelInfo;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Label;
 import org.sonar.api.utils.SonarException;
 
 import javax.annotation.Nullable;
@@ -123,6 +130,23 @@ public class JacocoReportReader {
     return coverageBuilder;
   }
 
+  /**
+   * Visits the probes of a class file, with the flow analysis of the JaCoCo version which recorded them.
+   * Caller must guarantee that {@code classBytes} are actually the content of a class file.
+   */
+  void analyzeProbes(byte[] classBytes, String location, ProbeLineMapping.Builder builder) {
+    try {
+      ClassReader classReader = new ClassReader(classBytes);
+      if (useCurrentBinaryFormat) {
+        classReader.accept(new ClassProbesAdapter(new ClassProbesLines(builder), false), 0);
+      } else {
+        classReader.accept(new org.jacoco.previous.core.internal.flow.ClassProbesAdapter(new PreviousClassProbesLines(builder), false), 0);
+      }
+    } catch (RuntimeException e) {
+      JaCoCoExtensions.LOG.warn("Exception during analysis of file " + location, e);
+    }
+  }
+
   /**
    * Caller must guarantee that {@code classFile} is actually class file.
    */
@@ -144,4 +168,150 @@ public class JacocoReportReader {
     }
   }
 
+  /**
+   * Relies on the flow analysis of JaCoCo, which is an internal API, see {@link ProbeLineMapping}.
+   */
+  private static class ClassProbesLines extends ClassProbesVisitor {
+
+    private final ProbeLineMapping.Builder builder;
+    private String className;
+
+    ClassProbesLines(ProbeLineMapping.Builder builder) {
+      this.builder = builder;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+      className = name;
+    }
+
+    @Override
+    public void visitSource(String source, String debug) {
+      builder.visitClass(className, source);
+    }
+
+    @Override
+    public MethodProbesVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+      if (ProbeLineMapping.Builder.isMethodFiltered(access, name)) {
+        return null;
+      }
+      final ProbeLineMapping.MethodProbes methodProbes = new ProbeLineMapping.MethodProbes(builder) {
+        @Override
+        boolean isSuccessor(Label label) {
+          return LabelInfo.isSuccessor(label);
+        }
+
+        @Override
+        int probeId(Label label) {
+          return LabelInfo.getProbeId(label);
+        }
+      };
+      return new MethodProbesVisitor(methodProbes) {
+        @Override
+        public void visitProbe(int probeId) {
+          methodProbes.visitProbe(probeId);
+        }
+
+        @Override
+        public void visitJumpInsnWithProbe(int opcode, Label label, int probeId, IFrame frame) {
+          methodProbes.visitInsnWithProbe(probeId);
+        }
+
+        @Override
+        public void visitInsnWithProbe(int opcode, int probeId) {
+          methodProbes.visitInsnWithProbe(probeId);
+        }
+
+        @Override
+        public void visitTableSwitchInsnWithProbes(int min, int max, Label dflt, Label[] labels, IFrame frame) {
+          methodProbes.visitSwitchInsnWithProbes(dflt, labels);
+        }
+
+        @Override
+        public void visitLookupSwitchInsnWithProbes(Label dflt, int[] keys, Label[] labels, IFrame frame) {
+          methodProbes.visitSwitchInsnWithProbes(dflt, labels);
+        }
+      };
+    }
+
+    @Override
+    public void visitTotalProbeCount(int count) {
+      // lines are recorded by probe ids
+    }
+
+  }
+
+  /**
+   * Relies on the flow analysis of the previous version of JaCoCo, which is an internal API, see {@link ProbeLineMapping}.
+   */
+  private static class PreviousClassProbesLines extends org.jacoco.previous.core.internal.flow.ClassProbesVisitor {
+
+    private final ProbeLineMapping.Builder builder;
+    private String className;
+
+    PreviousClassProbesLines(ProbeLineMapping.Builder builder) {
+      this.builder = builder;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+      className = name;
+    }
+
+    @Override
+    public void visitSource(String source, String debug) {
+      builder.visitClass(className, source);
+    }
+
+    @Override
+    public org.jacoco.previous.core.internal.flow.MethodProbesVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+      if (ProbeLineMapping.Builder.isMethodFiltered(access, name)) {
+        return null;
+      }
+      final ProbeLineMapping.MethodProbes methodProbes = new ProbeLineMapping.MethodProbes(builder) {
+        @Override
+        boolean isSuccessor(Label label) {
+          return org.jacoco.previous.core.internal.flow.LabelInfo.isSuccessor(label);
+        }
+
+        @Override
+        int probeId(Label label) {
+          return org.jacoco.previous.core.internal.flow.LabelInfo.getProbeId(label);
+        }
+      };
+      return new org.jacoco.previous.core.internal.flow.MethodProbesVisitor(methodProbes) {
+        @Override
+        public void visitProbe(int probeId) {
+          methodProbes.visitProbe(probeId);
+        }
+
+        @Override
+        public void visitJumpInsnWithProbe(int opcode, Label label, int probeId, org.jacoco.previous.core.internal.flow.IFrame frame) {
+          methodProbes.visitInsnWithProbe(probeId);
+        }
+
+        @Override
+        public void visitInsnWithProbe(int opcode, int probeId) {
+          methodProbes.visitInsnWithProbe(probeId);
+        }
+
+        @Override
+        public void visitTableSwitchInsnWithProbes(int min, int max, Label dflt, Label[] labels, org.jacoco.previous.core.internal.flow.IFrame frame) {
+          methodProbes.visitSwitchInsnWithProbes(dflt, labels);
+        }
+
+        @Override
+        public void visitLookupSwitchInsnWithProbes(Label dflt, int[] keys, Label[] labels, org.jacoco.previous.core.internal.flow.IFrame frame) {
+          methodProbes.visitSwitchInsnWithProbes(dflt, labels);
+        }
+      };
+    }
+
+    @Override
+    public void visitTotalProbeCount(int count) {
+      // lines are recorded by probe ids
+    }
+
+  }
+
 }
@@ -0,0 +1,372 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2010 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.jacoco;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+import org.apache.commons.lang.StringUtils;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.internal.data.CRC64;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lines of a class file covered by each of its probes.
+ * A line is covered as soon as one of the probes following one of its instructions is hit,
+ * so that lines covered by a test are the union of the lines of the probes it hit :
+ * the class file is analyzed once, whatever the number of its probes and of the tests which executed it.
+ * <p>
+ * Probes are visited with the flow analysis of JaCoCo, and class files are identified by their CRC64 checksum.
+ * Both are internal APIs of JaCoCo ({@code org.jacoco.core.internal}), which may change with any version of JaCoCo :
+ * {@code ProbeLineMappingTest} compares the mapping with the analysis of JaCoCo, and guards upgrades of JaCoCo.
+ */
+class ProbeLineMapping {
+
+  private static final int[] NO_LINES = new int[0];
+
+  @Nullable
+  private final String sourceClassName;
+  private final int[][] linesByProbe;
+
+  private ProbeLineMapping(@Nullable String sourceClassName, int[][] linesByProbe) {
+    this.sourceClassName = sourceClassName;
+    this.linesByProbe = linesByProbe;
+  }
+
+  /**
+   * Caller must guarantee that {@code classFile} is a class file named as {@code data}.
+   * When the class file is not the one which was executed, for instance because it was compiled again since, it has no lines.
+   */
+  static ProbeLineMapping analyze(JacocoReportReader jacocoReportReader, ExecutionData data, File classFile) {
+    byte[] classBytes;
+    try {
+      classBytes = Files.toByteArray(classFile);
+    } catch (IOException e) {
+      JaCoCoExtensions.LOG.warn("Exception during analysis of file " + classFile.getAbsolutePath(), e);
+      return noLines();
+    }
+    if (CRC64.checksum(classBytes) != data.getId()) {
+      // same check as JaCoCo's analyzer, which looks execution data up by this id
+      return noLines();
+    }
+    Builder builder = new Builder(data.getProbes().length);
+    jacocoReportReader.analyzeProbes(classBytes, classFile.getPath(), builder);
+    return builder.build();
+  }
+
+  private static ProbeLineMapping noLines() {
+    return new ProbeLineMapping(null, new int[0][]);
+  }
+
+  /**
+   * @return class name of the source file, as expected by {@link org.sonar.plugins.java.api.JavaResourceLocator#findResourceByClassName(String)},
+   * null when the class file does not tell it
+   */
+  @CheckForNull
+  String sourceClassName() {
+    return sourceClassName;
+  }
+
+  void addCoveredLines(boolean[] hitProbes, Collection<Integer> lines) {
+    for (int probe = 0; probe < Math.min(hitProbes.length, linesByProbe.length); probe++) {
+      if (hitProbes[probe]) {
+        for (int line : linesByProbe[probe]) {
+          lines.add(line);
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the lines of each probe while the probes of a class file are visited, see {@link JacocoReportReader#analyzeProbes(byte[], String, Builder)}.
+   */
+  static class Builder {
+
+    private final int[][] linesByProbe;
+    private String className;
+    private String sourceFileName;
+    private boolean hasInstructions;
+
+    Builder(int probes) {
+      linesByProbe = new int[probes][];
+    }
+
+    void visitClass(String className, @Nullable String sourceFileName) {
+      this.className = className;
+      this.sourceFileName = sourceFileName;
+    }
+
+    /**
+     * Same filter as JaCoCo's class analyzer : synthetic methods are not part of the coverage, unless they are lambdas.
+     */
+    static boolean isMethodFiltered(int access, String name) {
+      return (access & Opcodes.ACC_SYNTHETIC) != 0 && !name.startsWith("lambda$");
+    }
+
+    ProbeLineMapping build() {
+      String sourceClassName = null;
+      if (hasInstructions && sourceFileName != null) {
+        String packageName = className.contains("/") ? StringUtils.substringBeforeLast(className, "/") : "";
+        sourceClassName = AbstractAnalyzer.fullyQualifiedClassName(packageName, sourceFileName);
+      }
+      for (int probe = 0; probe < linesByProbe.length; probe++) {
+        if (linesByProbe[probe] == null) {
+          linesByProbe[probe] = NO_LINES;
+        }
+      }
+      return new ProbeLineMapping(sourceClassName, linesByProbe);
+    }
+
+  }
+
+  /**
+   * Instructions of a method linked to the instruction which precedes them in the control flow, the same way as JaCoCo's method analyzer does :
+   * a probe covers the instruction it follows, and all the instructions up the chain of predecessors.
+   * Version specific visitors of JaCoCo forward to it the instructions and the probes, and tell how labels were marked by the flow analysis.
+   */
+  abstract static class MethodProbes extends MethodVisitor {
+
+    /**
+     * Value of {@code LabelInfo.NO_PROBE} in all versions of JaCoCo.
+     */
+    static final int NO_PROBE = -1;
+
+    private final Builder builder;
+    private int currentLine = -1;
+    private final List<Label> currentLabels = Lists.newArrayList();
+    private final Map<Label, Instruction> instructionByLabel = Maps.newHashMap();
+    private final List<Jump> jumps = Lists.newArrayList();
+    private final Map<Integer, Instruction> probes = Maps.newHashMap();
+    private Instruction lastInstruction;
+
+    MethodProbes(Builder builder) {
+      super(Opcodes.ASM5);
+      this.builder = builder;
+    }
+
+    abstract boolean isSuccessor(Label label);
+
+    /**
+     * @return id of the probe inserted at the given switch target, {@link #NO_PROBE} when there is none
+     */
+    abstract int probeId(Label label);
+
+    void visitProbe(int probeId) {
+      addProbe(probeId);
+      lastInstruction = null;
+    }
+
+    void visitInsnWithProbe(int probeId) {
+      visitInstruction();
+      addProbe(probeId);
+    }
+
+    void visitSwitchInsnWithProbes(Label dflt, Label[] labels) {
+      visitInstruction();
+      Set<Label> done = Sets.newHashSet();
+      visitSwitchTarget(dflt, done);
+      for (Label label : labels) {
+        visitSwitchTarget(label, done);
+      }
+    }
+
+    private void visitSwitchTarget(Label label, Set<Label> done) {
+      if (done.add(label)) {
+        int probeId = probeId(label);
+        if (probeId == NO_PROBE) {
+          jumps.add(new Jump(lastInstruction, label));
+        } else {
+          addProbe(probeId);
+        }
+      }
+    }
+
+    private void addProbe(int probeId) {
+      probes.put(probeId, lastInstruction);
+    }
+
+    private void visitInstruction() {
+      Instruction instruction = new Instruction(currentLine);
+      builder.hasInstructions = true;
+      instruction.predecessor = lastInstruction;
+      for (Label label : currentLabels) {
+        instructionByLabel.put(label, instruction);
+      }
+      currentLabels.clear();
+      lastInstruction = instruction;
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+      currentLabels.add(label);
+      if (!isSuccessor(label)) {
+        lastInstruction = null;
+      }
+    }
+
+    @Override
+    public void visitLineNumber(int line, Label start) {
+      currentLine = line;
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+      visitInstruction();
+      jumps.add(new Jump(lastInstruction, label));
+    }
+
+    @Override
+    public void visitLdcInsn(Object cst) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+      visitSwitchInsn(dflt, labels);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+      visitSwitchInsn(dflt, labels);
+    }
+
+    private void visitSwitchInsn(Label dflt, Label[] labels) {
+      visitInstruction();
+      Set<Label> done = Sets.newHashSet();
+      for (Label label : Lists.asList(dflt, labels)) {
+        if (done.add(label)) {
+          jumps.add(new Jump(lastInstruction, label));
+        }
+      }
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String desc, int dims) {
+      visitInstruction();
+    }
+
+    @Override
+    public void visitEnd() {
+      for (Jump jump : jumps) {
+        Instruction target = instructionByLabel.get(jump.target);
+        // a label without instruction is not expected from a valid class file, but the flow analysis of JaCoCo does not guarantee it
+        if (target != null) {
+          target.predecessor = jump.source;
+        }
+      }
+      for (Map.Entry<Integer, Instruction> probe : probes.entrySet()) {
+        if (probe.getKey() < builder.linesByProbe.length) {
+          builder.linesByProbe[probe.getKey()] = coveredLines(probe.getValue());
+        }
+      }
+    }
+
+    private static int[] coveredLines(Instruction probeInstruction) {
+      Set<Instruction> covered = Sets.newIdentityHashSet();
+      Set<Integer> lines = Sets.newTreeSet();
+      for (Instruction instruction = probeInstruction; instruction != null && covered.add(instruction); instruction = instruction.predecessor) {
+        if (instruction.line != -1) {
+          lines.add(instruction.line);
+        }
+      }
+      return lines.isEmpty() ? NO_LINES : Ints.toArray(lines);
+    }
+
+  }
+
+  private static class Instruction {
+
+    private final int line;
+    private Instruction predecessor;
+
+    Instruction(int line) {
+      this.line = line;
+    }
+
+  }
+
+  private static class Jump {
+
+    private final Instruction source;
+    private final Label target;
+
+    Jump(Instruction source, Label target) {
+      this.source = source;
+      this.target = target;
+    }
+
+  }
+
+}
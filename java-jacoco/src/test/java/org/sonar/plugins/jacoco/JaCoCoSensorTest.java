@@ -163,6 +163,12 @@ public class JaCoCoSensorTest {
     testExecutionDataForLinesCoveredByTest("/org/sonar/plugins/jacoco/JaCoCov0_7_5_coverage_per_test/", newArrayList(3, 4, 5, 8, 12));
   }
 
+  @Test
+  public void test_read_execution_data_for_lines_covered_by_tests_on_several_threads() throws IOException {
+    when(configuration.getCoveragePerTestThreads()).thenReturn(4);
+    testExecutionDataForLinesCoveredByTest("/org/sonar/plugins/jacoco/JaCoCov0_7_5_coverage_per_test/", newArrayList(3, 4, 5, 8, 12));
+  }
+
   @Test
   public void test_read_execution_data_for_lines_covered_by_tests_v0_7_4() throws IOException {
     testExecutionDataForLinesCoveredByTest("/org/sonar/plugins/jacoco/JaCoCov0_7_4_coverage_per_test/", newArrayList(3, 4, 5, 8, 12));
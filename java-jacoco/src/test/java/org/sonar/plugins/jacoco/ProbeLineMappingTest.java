@@ -0,0 +1,143 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2010 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.jacoco;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.Test;
+import org.sonar.test.TestUtils;
+
+import java.io.File;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Mapping of probes to lines relies on internal APIs of JaCoCo : comparisons with the analysis of JaCoCo must pass with every version of JaCoCo.
+ */
+public class ProbeLineMappingTest {
+
+  @Test
+  public void lines_of_hit_probes_are_lines_covered_by_test_v0_7_5() {
+    assertSameLinesAsAnalysisOfEachTest("/org/sonar/plugins/jacoco/JaCoCov0_7_5_coverage_per_test/");
+  }
+
+  @Test
+  public void lines_of_hit_probes_are_lines_covered_by_test_v0_7_4() {
+    assertSameLinesAsAnalysisOfEachTest("/org/sonar/plugins/jacoco/JaCoCov0_7_4_coverage_per_test/");
+  }
+
+  private static void assertSameLinesAsAnalysisOfEachTest(String path) {
+    File outputDir = TestUtils.getResource(path);
+    File classFile = new File(outputDir, "example/One.class");
+    ExecutionDataVisitor executionDataVisitor = new ExecutionDataVisitor();
+    JacocoReportReader jacocoReportReader = new JacocoReportReader(new File(outputDir, "jacoco.exec")).readJacocoReport(executionDataVisitor, executionDataVisitor);
+
+    assertThat(executionDataVisitor.getSessions()).isNotEmpty();
+    for (ExecutionDataStore executionDataStore : executionDataVisitor.getSessions().values()) {
+      for (ExecutionData data : executionDataStore.getContents()) {
+        if ("example/One".equals(data.getName())) {
+          ProbeLineMapping probeLineMapping = ProbeLineMapping.analyze(jacocoReportReader, data, classFile);
+          assertThat(probeLineMapping.sourceClassName()).isEqualTo("example/One");
+          Set<Integer> lines = Sets.newTreeSet();
+          probeLineMapping.addCoveredLines(data.getProbes(), lines);
+          assertThat(lines).isEqualTo(coveredLines(jacocoReportReader, executionDataStore, classFile));
+        }
+      }
+    }
+  }
+
+  private static Set<Integer> coveredLines(JacocoReportReader jacocoReportReader, ExecutionDataStore executionDataStore, File classFile) {
+    Set<Integer> lines = Sets.newTreeSet();
+    for (ISourceFileCoverage coverage : jacocoReportReader.analyzeFiles(executionDataStore, ImmutableList.of(classFile)).getSourceFiles()) {
+      for (int line = coverage.getFirstLine(); line <= coverage.getLastLine(); line++) {
+        if (coverage.getLine(line).getInstructionCounter().getCoveredCount() > 0) {
+          lines.add(line);
+        }
+      }
+    }
+    return lines;
+  }
+
+  @Test
+  public void class_file_is_analyzed_once_whatever_the_number_of_probes() {
+    File outputDir = TestUtils.getResource("/org/sonar/plugins/jacoco/JaCoCov0_7_5_coverage_per_test/");
+    File classFile = new File(outputDir, "example/One.class");
+    ExecutionDataVisitor executionDataVisitor = new ExecutionDataVisitor();
+    JacocoReportReader jacocoReportReader = spy(new JacocoReportReader(new File(outputDir, "jacoco.exec")).readJacocoReport(executionDataVisitor, executionDataVisitor));
+    ExecutionData data = null;
+    for (ExecutionData executionData : executionDataVisitor.getMerged().getContents()) {
+      if ("example/One".equals(executionData.getName())) {
+        data = executionData;
+      }
+    }
+    assertThat(data.getProbes().length).isGreaterThan(1);
+
+    ProbeLineMapping.analyze(jacocoReportReader, data, classFile);
+    verify(jacocoReportReader, times(1)).analyzeProbes(any(byte[].class), eq(classFile.getPath()), any(ProbeLineMapping.Builder.class));
+    verify(jacocoReportReader, never()).analyzeFiles(any(ExecutionDataStore.class), anyCollectionOf(File.class));
+  }
+
+  @Test
+  public void no_lines_when_class_file_was_compiled_again() {
+    File outputDir = TestUtils.getResource("/org/sonar/plugins/jacoco/JaCoCov0_7_5_coverage_per_test/");
+    File recompiledClassFile = TestUtils.getResource("/org/sonar/plugins/jacoco/JaCoCov0_7_5_incompatible_coverage_per_test/example/One.class");
+    ExecutionDataVisitor executionDataVisitor = new ExecutionDataVisitor();
+    JacocoReportReader jacocoReportReader = spy(new JacocoReportReader(new File(outputDir, "jacoco.exec")).readJacocoReport(executionDataVisitor, executionDataVisitor));
+    ExecutionData data = executionDataVisitor.getMerged().get(oneClassId(executionDataVisitor));
+
+    ProbeLineMapping probeLineMapping = ProbeLineMapping.analyze(jacocoReportReader, data, recompiledClassFile);
+    assertThat(probeLineMapping.sourceClassName()).isNull();
+    Set<Integer> lines = Sets.newTreeSet();
+    probeLineMapping.addCoveredLines(data.getProbes(), lines);
+    assertThat(lines).isEmpty();
+    verify(jacocoReportReader, never()).analyzeProbes(any(byte[].class), any(String.class), any(ProbeLineMapping.Builder.class));
+  }
+
+  private static long oneClassId(ExecutionDataVisitor executionDataVisitor) {
+    for (ExecutionData executionData : executionDataVisitor.getMerged().getContents()) {
+      if ("example/One".equals(executionData.getName())) {
+        return executionData.getId();
+      }
+    }
+    throw new AssertionError("No execution data of example/One");
+  }
+
+  @Test
+  public void no_lines_when_class_file_cannot_be_read() {
+    JacocoReportReader jacocoReportReader = new JacocoReportReader(null);
+    ProbeLineMapping probeLineMapping = ProbeLineMapping.analyze(jacocoReportReader, new ExecutionData(1, "Foo", 3), new File("DummyFile.dummy"));
+    assertThat(probeLineMapping.sourceClassName()).isNull();
+    Set<Integer> lines = Sets.newTreeSet();
+    probeLineMapping.addCoveredLines(new boolean[] {true, true, true}, lines);
+    assertThat(lines).isEmpty();
+  }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.utils.AnnotationUtils;
+import org.sonar.check.Rule;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Opt-in profiling of visitors : wall time, CPU time and allocated bytes spent by each visitor, indexed by rule key for checks,
+ * and by class name for other visitors, along with the files on which each visitor was the slowest.
+ * Allocated bytes are only measured on JVMs which provide them (<tt>com.sun.management.ThreadMXBean</tt>).
+ * Calls are expected to be made on a single thread, one visitor at a time : time spent by visitors on other threads would not be measured,
+ * so {@link JavaSquid} analyzes methods on the visiting thread when visitors are profiled.
+ * Measurement of thread CPU time is enabled for the whole JVM while profiling, and restored by {@link #close()}.
+ */
+public class ChecksProfiler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ChecksProfiler.class);
+
+  private static final int SLOWEST_FILES = 5;
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  private static final Comparator<Stats> BY_CPU_TIME = new Comparator<Stats>() {
+    @Override
+    public int compare(Stats o1, Stats o2) {
+      return Long.valueOf(o2.cpuNanos).compareTo(o1.cpuNanos);
+    }
+  };
+
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private final boolean cpuTimeSupported;
+  private final boolean cpuTimeWasEnabled;
+  @Nullable
+  private final Method allocatedBytesMethod;
+  private final Map<String, Stats> statsByKey = Maps.newHashMap();
+
+  private long startWall;
+  private long startCpu;
+  private long startAllocated;
+
+  public ChecksProfiler() {
+    cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported();
+    cpuTimeWasEnabled = cpuTimeSupported && threadBean.isThreadCpuTimeEnabled();
+    if (cpuTimeSupported && !cpuTimeWasEnabled) {
+      threadBean.setThreadCpuTimeEnabled(true);
+    }
+    allocatedBytesMethod = allocatedBytesMethod(threadBean);
+  }
+
+  @Nullable
+  private static Method allocatedBytesMethod(ThreadMXBean threadBean) {
+    try {
+      Class<?> sunThreadBean = Class.forName("com.sun.management.ThreadMXBean");
+      if (sunThreadBean.isInstance(threadBean)) {
+        Method method = sunThreadBean.getMethod("getThreadAllocatedBytes", long.class);
+        // fails if allocation measurement is not supported
+        method.invoke(threadBean, Thread.currentThread().getId());
+        return method;
+      }
+    } catch (Exception e) {
+      LOG.debug("Allocated bytes can not be measured on this JVM", e);
+    }
+    return null;
+  }
+
+  /**
+   * Ends profiling : measurement of thread CPU time is disabled again if it was disabled before profiling.
+   */
+  public void close() {
+    if (cpuTimeSupported && !cpuTimeWasEnabled) {
+      threadBean.setThreadCpuTimeEnabled(false);
+    }
+  }
+
+  public void start() {
+    startWall = System.nanoTime();
+    startCpu = cpuTime();
+    startAllocated = allocatedBytes();
+  }
+
+  /**
+   * Records the time and memory spent by the given visitor since the last call to {@link #start()}.
+   *
+   * @param location path of the analyzed file, or name of the analyzed class
+   */
+  public void stop(Object visitor, @Nullable String location) {
+    long wall = System.nanoTime() - startWall;
+    long cpu = cpuTime() - startCpu;
+    long allocated = allocatedBytes() - startAllocated;
+    String key = key(visitor);
+    Stats stats = statsByKey.get(key);
+    if (stats == null) {
+      stats = new Stats(key);
+      statsByKey.put(key, stats);
+    }
+    stats.add(wall, cpu, allocated, location);
+  }
+
+  private long cpuTime() {
+    return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0;
+  }
+
+  private long allocatedBytes() {
+    if (allocatedBytesMethod == null) {
+      return 0;
+    }
+    try {
+      return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+    } catch (Exception e) {
+      return 0;
+    }
+  }
+
+  @VisibleForTesting
+  static String key(Object visitor) {
+    Rule rule = AnnotationUtils.getAnnotation(visitor, Rule.class);
+    if (rule != null) {
+      return rule.key();
+    }
+    return visitor.getClass().getSimpleName();
+  }
+
+  @VisibleForTesting
+  List<Stats> getStats() {
+    List<Stats> result = Lists.newArrayList(statsByKey.values());
+    Collections.sort(result, BY_CPU_TIME);
+    return result;
+  }
+
+  /**
+   * Logs the visitors which spent the most CPU time.
+   */
+  public void log(int top) {
+    List<Stats> stats = getStats();
+    LOG.info("Top {} of {} profiled visitors by CPU time:", Math.min(top, stats.size()), stats.size());
+    for (Stats stat : stats.subList(0, Math.min(top, stats.size()))) {
+      LOG.info(String.format(Locale.ENGLISH, "  %s: cpu %d ms, wall %d ms, allocated %d MB, slowest on %s",
+        stat.key, stat.cpuNanos / NANOS_PER_MILLI, stat.wallNanos / NANOS_PER_MILLI, stat.allocatedBytes / 1024 / 1024,
+        stat.slowestFiles.isEmpty() ? "-" : stat.slowestFiles.get(0).path));
+    }
+  }
+
+  /**
+   * Writes the stats of all visitors as JSON.
+   */
+  public void save(File file) {
+    StringBuilder json = new StringBuilder("[");
+    boolean first = true;
+    for (Stats stat : getStats()) {
+      if (!first) {
+        json.append(',');
+      }
+      first = false;
+      stat.appendJson(json);
+    }
+    json.append("]\n");
+    try {
+      Files.createParentDirs(file);
+      Files.write(json, file, Charsets.UTF_8);
+      LOG.info("Profiling of visitors written to {}", file.getAbsolutePath());
+    } catch (IOException e) {
+      LOG.warn("Unable to write profiling of visitors to " + file.getAbsolutePath(), e);
+    }
+  }
+
+  private static String quote(String value) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < ' ') {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  @VisibleForTesting
+  static class Stats {
+    final String key;
+    int calls;
+    long wallNanos;
+    long cpuNanos;
+    long allocatedBytes;
+    /**
+     * Sorted by decreasing wall time.
+     */
+    final List<FileTime> slowestFiles = Lists.newArrayList();
+
+    Stats(String key) {
+      this.key = key;
+    }
+
+    void add(long wall, long cpu, long allocated, @Nullable String location) {
+      calls++;
+      wallNanos += wall;
+      cpuNanos += cpu;
+      allocatedBytes += allocated;
+      if (location != null && (slowestFiles.size() < SLOWEST_FILES || slowestFiles.get(SLOWEST_FILES - 1).wallNanos < wall)) {
+        int index = 0;
+        while (index < slowestFiles.size() && slowestFiles.get(index).wallNanos >= wall) {
+          index++;
+        }
+        slowestFiles.add(index, new FileTime(location, wall));
+        if (slowestFiles.size() > SLOWEST_FILES) {
+          slowestFiles.remove(SLOWEST_FILES);
+        }
+      }
+    }
+
+    void appendJson(StringBuilder json) {
+      json.append("{\"key\":").append(quote(key))
+        .append(",\"calls\":").append(calls)
+        .append(",\"cpuMs\":").append(cpuNanos / NANOS_PER_MILLI)
+        .append(",\"wallMs\":").append(wallNanos / NANOS_PER_MILLI)
+        .append(",\"allocatedBytes\":").append(allocatedBytes)
+        .append(",\"slowestFiles\":[");
+      for (int i = 0; i < slowestFiles.size(); i++) {
+        FileTime fileTime = slowestFiles.get(i);
+        if (i > 0) {
+          json.append(',');
+        }
+        json.append("{\"path\":").append(quote(fileTime.path)).append(",\"wallMs\":").append(fileTime.wallNanos / NANOS_PER_MILLI).append('}');
+      }
+      json.append("]}");
+    }
+  }
+
+  @VisibleForTesting
+  static class FileTime {
+    final String path;
+    final long wallNanos;
+
+    FileTime(String path, long wallNanos) {
+      this.path = path;
+      this.wallNanos = wallNanos;
+    }
+  }
+
+}
@@ -20,6 +20,7 @@
 package org.sonar.java;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
 import com.sonar.sslr.impl.Parser;
 import org.sonar.java.ast.AstScanner;
 import org.sonar.java.ast.parser.JavaParser;
@@ -68,10 +69,18 @@ public final class JavaAstScanner {
     return (SourceFile) sources.iterator().next();
   }
 
-  public static AstScanner create(JavaConfiguration conf, SquidAstVisitor<LexerlessGrammar>... visitors) {
+  public static AstScanner create(final JavaConfiguration conf, SquidAstVisitor<LexerlessGrammar>... visitors) {
     final Parser parser = JavaParser.createParser(conf.getCharset());
 
     AstScanner builder = new AstScanner(parser);
+    if (conf.getAnalysisThreads() > 1) {
+      builder.setParsingThreads(conf.getAnalysisThreads(), new Supplier<Parser<LexerlessGrammar>>() {
+        @Override
+        public Parser<LexerlessGrammar> get() {
+          return JavaParser.createParser(conf.getCharset());
+        }
+      });
+    }
 
     /* Files */
     builder.withSquidAstVisitor(new FileVisitor());
@@ -19,12 +19,19 @@
  */
 package org.sonar.java;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.io.File;
 import java.nio.charset.Charset;
 
 public class JavaConfiguration {
 
   private final Charset charset;
   private boolean separateAccessorsFromMethods = true;
+  private int analysisThreads = 1;
+  private int methodAnalysisThreads = 1;
+  private File classSignaturesDirectory;
+  private ChecksProfiler checksProfiler;
 
   public JavaConfiguration(Charset charset) {
     this.charset = charset;
@@ -42,4 +49,50 @@ public class JavaConfiguration {
     this.separateAccessorsFromMethods = separateAccessorsFromMethods;
   }
 
+  /**
+   * @return number of threads parsing source files and .class files, rules still visit files one after another
+   */
+  public int getAnalysisThreads() {
+    return analysisThreads;
+  }
+
+  public void setAnalysisThreads(int analysisThreads) {
+    this.analysisThreads = Math.max(1, analysisThreads);
+  }
+
+  /**
+   * @return number of threads analyzing the methods of a file, for visitors implementing {@link org.sonar.java.ast.visitors.ParallelMethodAnalysis}
+   */
+  public int getMethodAnalysisThreads() {
+    return methodAnalysisThreads;
+  }
+
+  public void setMethodAnalysisThreads(int methodAnalysisThreads) {
+    this.methodAnalysisThreads = Math.max(1, methodAnalysisThreads);
+  }
+
+  /**
+   * @return directory where class signatures of the classpath are kept between analyses, or <tt>null</tt> if they are not kept
+   */
+  @CheckForNull
+  public File getClassSignaturesDirectory() {
+    return classSignaturesDirectory;
+  }
+
+  public void setClassSignaturesDirectory(@Nullable File classSignaturesDirectory) {
+    this.classSignaturesDirectory = classSignaturesDirectory;
+  }
+
+  /**
+   * @return profiler of visitors, or <tt>null</tt> if visitors are not profiled
+   */
+  @CheckForNull
+  public ChecksProfiler getChecksProfiler() {
+    return checksProfiler;
+  }
+
+  public void setChecksProfiler(@Nullable ChecksProfiler checksProfiler) {
+    this.checksProfiler = checksProfiler;
+  }
+
 }
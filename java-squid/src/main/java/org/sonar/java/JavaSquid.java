@@ -33,6 +33,7 @@ import org.sonar.graph.DirectedGraph;
 import org.sonar.java.ast.AstScanner;
 import org.sonar.java.ast.visitors.FileLinesVisitor;
 import org.sonar.java.ast.visitors.FileVisitor;
+import org.sonar.java.ast.visitors.ParallelMethodAnalysis;
 import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
 import org.sonar.java.bytecode.BytecodeScanner;
 import org.sonar.java.bytecode.visitor.DependenciesVisitor;
@@ -49,6 +50,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class JavaSquid implements SourceCodeSearchEngine {
 
@@ -60,6 +62,9 @@ public class JavaSquid implements SourceCodeSearchEngine {
   private final BytecodeScanner bytecodeScanner;
   private final DirectedGraph<Resource, Dependency> graph = new DirectedGraph<>();
 
+  private final int methodAnalysisThreads;
+  private final List<ParallelMethodAnalysis> parallelMethodAnalyses = Lists.newArrayList();
+
   private boolean bytecodeScanned = false;
 
   @VisibleForTesting
@@ -99,12 +104,23 @@ public class JavaSquid implements SourceCodeSearchEngine {
 
     bytecodeScanner = new BytecodeScanner(squidIndex, javaResourceLocator);
     bytecodeScanner.accept(new DependenciesVisitor(graph));
+    bytecodeScanner.setProfiler(conf.getChecksProfiler());
+    bytecodeScanner.setParsingThreads(conf.getAnalysisThreads());
 
+    if (conf.getChecksProfiler() != null && conf.getMethodAnalysisThreads() > 1) {
+      LOG.info("Methods are analyzed on a single thread, as checks are profiled");
+      methodAnalysisThreads = 1;
+    } else {
+      methodAnalysisThreads = conf.getMethodAnalysisThreads();
+    }
     // External visitors (typically Check ones):
     for (CodeVisitor visitor : visitors) {
       if (visitor instanceof CharsetAwareVisitor) {
         ((CharsetAwareVisitor) visitor).setCharset(conf.getCharset());
       }
+      if (visitor instanceof ParallelMethodAnalysis) {
+        parallelMethodAnalyses.add((ParallelMethodAnalysis) visitor);
+      }
       astScanner.accept(visitor);
       bytecodeScanner.accept(visitor);
     }
@@ -119,15 +135,32 @@ public class JavaSquid implements SourceCodeSearchEngine {
     VisitorsBridge visitorsBridgeTest = new VisitorsBridge(visitorsToBridge, classpath, sonarComponents);
     visitorsBridgeTest.setCharset(conf.getCharset());
     visitorsBridgeTest.setAnalyseAccessors(conf.separatesAccessorsFromMethods());
+    visitorsBridgeTest.setClassSignaturesDirectory(conf.getClassSignaturesDirectory());
+    visitorsBridgeTest.setProfiler(conf.getChecksProfiler());
     astScanner.accept(visitorsBridgeTest);
   }
 
 
 
   public void scan(Iterable<File> sourceFiles, Iterable<File> testFiles, Collection<File> bytecodeFilesOrDirectories) {
-    scanSources(sourceFiles);
-    scanBytecode(bytecodeFilesOrDirectories);
-    scanTests(testFiles);
+    ForkJoinPool methodAnalysisPool = methodAnalysisThreads > 1 ? new ForkJoinPool(methodAnalysisThreads) : null;
+    setMethodAnalysisPool(methodAnalysisPool);
+    try {
+      scanSources(sourceFiles);
+      scanBytecode(bytecodeFilesOrDirectories);
+      scanTests(testFiles);
+    } finally {
+      setMethodAnalysisPool(null);
+      if (methodAnalysisPool != null) {
+        methodAnalysisPool.shutdownNow();
+      }
+    }
+  }
+
+  private void setMethodAnalysisPool(@Nullable ForkJoinPool methodAnalysisPool) {
+    for (ParallelMethodAnalysis parallelMethodAnalysis : parallelMethodAnalyses) {
+      parallelMethodAnalysis.setMethodAnalysisPool(methodAnalysisPool);
+    }
   }
 
   private void scanSources(Iterable<File> sourceFiles) {
@@ -19,6 +19,9 @@
  */
 package org.sonar.java.ast;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
@@ -39,9 +42,20 @@ import org.sonar.squidbridge.api.SourceProject;
 import org.sonar.squidbridge.indexer.SquidIndex;
 import org.sonar.sslr.parser.LexerlessGrammar;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AstScanner {
 
@@ -52,6 +66,8 @@ public class AstScanner {
   private final List<AstScannerExceptionHandler> astScannerExceptionHandlers = Lists.newArrayList();
   private final Parser<LexerlessGrammar> parser;
   private CommentAnalyser commentAnalyser;
+  private int parsingThreads = 1;
+  private Supplier<? extends Parser<LexerlessGrammar>> parserSupplier;
 
   public AstScanner(Parser<LexerlessGrammar> parser) {
     this.parser = parser;
@@ -59,11 +75,25 @@ public class AstScanner {
   }
 
   /**
-   * Takes parser and index from another instance of {@link AstScanner}
+   * Takes parser, parallelism and index from another instance of {@link AstScanner}
    */
   public AstScanner(AstScanner astScanner) {
     this.parser = astScanner.parser;
     this.index = astScanner.index;
+    this.parsingThreads = astScanner.parsingThreads;
+    this.parserSupplier = astScanner.parserSupplier;
+  }
+
+  /**
+   * Parses files on the given number of threads, ahead of the visit.
+   * Visitors are still notified on the calling thread and in the order of files, so that results do not depend on the number of threads.
+   *
+   * @param parserSupplier provides one parser per thread, as parsers are not thread-safe
+   */
+  public void setParsingThreads(int parsingThreads, @Nullable Supplier<? extends Parser<LexerlessGrammar>> parserSupplier) {
+    Preconditions.checkArgument(parsingThreads == 1 || parserSupplier != null, "A parser supplier is required to parse on several threads");
+    this.parsingThreads = Math.max(1, parsingThreads);
+    this.parserSupplier = parserSupplier;
   }
 
   public void scan(Iterable<File> files) {
@@ -92,19 +122,18 @@ public class AstScanner {
     AstWalker astWalker = new AstWalker(visitors);
     ProgressReport progressReport = new ProgressReport("Report about progress of Java AST analyzer", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(Lists.newArrayList(files));
-    for (File file : files) {
-      context.setFile(file);
-      try {
-        AstNode ast = parser.parse(file);
-        astWalker.walkAndVisit(ast);
-        progressReport.nextFile();
-      } catch (RecognitionException e) {
-        LOG.error("Unable to parse source file : " + file.getAbsolutePath());
-        LOG.error(e.getMessage());
-
-        parseErrorWalkAndVisit(e, file);
-      } catch (Exception e) {
-        throw new AnalysisException(getAnalyisExceptionMessage(file), e);
+    if (parsingThreads > 1) {
+      parallelScan(files, context, astWalker, progressReport);
+    } else {
+      for (File file : files) {
+        context.setFile(file);
+        try {
+          walkAndVisit(astWalker, parser.parse(file), progressReport);
+        } catch (RecognitionException e) {
+          parseError(e, file);
+        } catch (Exception e) {
+          throw new AnalysisException(getAnalyisExceptionMessage(file), e);
+        }
       }
     }
     progressReport.stop();
@@ -114,6 +143,64 @@ public class AstScanner {
     }
   }
 
+  /**
+   * Keeps at most two files per thread parsed ahead of the visit, in order to bound memory consumed by syntax trees.
+   */
+  private void parallelScan(Iterable<File> files, VisitorContext context, AstWalker astWalker, ProgressReport progressReport) {
+    ExecutorService executor = Executors.newFixedThreadPool(parsingThreads, new ParserThreadFactory());
+    final ThreadLocal<Parser<LexerlessGrammar>> parsers = new ThreadLocal<Parser<LexerlessGrammar>>() {
+      @Override
+      protected Parser<LexerlessGrammar> initialValue() {
+        return parserSupplier.get();
+      }
+    };
+    try {
+      Iterator<File> filesToParse = files.iterator();
+      Deque<Future<AstNode>> parsedAhead = new ArrayDeque<Future<AstNode>>();
+      for (File file : files) {
+        while (parsedAhead.size() < 2 * parsingThreads && filesToParse.hasNext()) {
+          final File fileToParse = filesToParse.next();
+          parsedAhead.add(executor.submit(new Callable<AstNode>() {
+            @Override
+            public AstNode call() {
+              return parsers.get().parse(fileToParse);
+            }
+          }));
+        }
+        context.setFile(file);
+        try {
+          walkAndVisit(astWalker, getParsed(parsedAhead.poll()), progressReport);
+        } catch (RecognitionException e) {
+          parseError(e, file);
+        } catch (Exception e) {
+          throw new AnalysisException(getAnalyisExceptionMessage(file), e);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static AstNode getParsed(Future<AstNode> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private static void walkAndVisit(AstWalker astWalker, AstNode ast, ProgressReport progressReport) {
+    astWalker.walkAndVisit(ast);
+    progressReport.nextFile();
+  }
+
+  private void parseError(RecognitionException e, File file) {
+    LOG.error("Unable to parse source file : " + file.getAbsolutePath());
+    LOG.error(e.getMessage());
+
+    parseErrorWalkAndVisit(e, file);
+  }
+
   private void parseErrorWalkAndVisit(RecognitionException e, File file) {
     try {
       // Process the exception
@@ -159,4 +246,16 @@ public class AstScanner {
     }
   }
 
+  private static class ParserThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "java-parser-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
 }
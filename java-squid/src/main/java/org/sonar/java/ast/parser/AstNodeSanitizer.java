@@ -22,6 +22,7 @@ package org.sonar.java.ast.parser;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class AstNodeSanitizer {
@@ -53,6 +54,10 @@ public class AstNodeSanitizer {
         }
       }
 
+      if (children instanceof ArrayList) {
+        // tree is not modified after parsing
+        ((ArrayList<AstNode>) children).trimToSize();
+      }
       AstNodeReflector.setToken(astNode, token);
       astNode.setFromIndex(fromIndex);
       astNode.setToIndex(toIndex);
@@ -0,0 +1,38 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.visitors;
+
+import javax.annotation.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Visitor which can analyze the methods of a file on the threads of a pool while the file is visited.
+ * Tasks only read the syntax tree and the semantic model, whose lazy completion of symbols is synchronized.
+ * Results have to be reported on the visiting thread, in an order which does not depend on the pool.
+ */
+public interface ParallelMethodAnalysis {
+
+  /**
+   * @param pool pool shared by all visitors during a scan, or <tt>null</tt> to analyze methods on the visiting thread
+   */
+  void setMethodAnalysisPool(@Nullable ForkJoinPool pool);
+
+}
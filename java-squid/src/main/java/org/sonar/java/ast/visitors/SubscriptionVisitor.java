@@ -61,12 +61,19 @@ public abstract class SubscriptionVisitor implements JavaFileScanner {
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
-    this.context = context;
-    semanticModel = (SemanticModel) context.getSemanticModel();
+    setContext(context);
     scanTree(context.getTree());
     visitTokens(context.getTree());
   }
 
+  /**
+   * Prepares this visitor for a file without scanning it. Used when the file is scanned by a {@link SubscriptionVisitorsMultiplexer}.
+   */
+  public void setContext(JavaFileScannerContext context) {
+    this.context = context;
+    semanticModel = (SemanticModel) context.getSemanticModel();
+  }
+
   protected void scanTree(Tree tree) {
     nodesToVisit = nodesToVisit();
     visit(tree);
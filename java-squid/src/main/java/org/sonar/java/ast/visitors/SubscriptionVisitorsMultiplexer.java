@@ -0,0 +1,181 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.visitors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.sonar.sslr.api.Token;
+import org.sonar.java.CharsetAwareVisitor;
+import org.sonar.java.model.InternalSyntaxToken;
+import org.sonar.java.model.JavaTree;
+import org.sonar.plugins.java.api.JavaFileScanner;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scans a file once for all the given {@link SubscriptionVisitor}s: each node of the tree, and then each token, is dispatched to the visitors which subscribed to its kind.
+ * Visitors are notified in the same order as if they were scanning the file one after another.
+ * Only visitors relying on the default scanning of {@link SubscriptionVisitor} can be multiplexed, see {@link #canBeMultiplexed(JavaFileScanner)}.
+ */
+public class SubscriptionVisitorsMultiplexer implements JavaFileScanner, CharsetAwareVisitor {
+
+  private final List<SubscriptionVisitor> visitors;
+  private Map<Tree.Kind, List<SubscriptionVisitor>> visitorsByKind;
+  private List<SubscriptionVisitor> tokenVisitors;
+  private Set<SubscriptionVisitor> triviaVisitors;
+
+  public SubscriptionVisitorsMultiplexer(List<SubscriptionVisitor> visitors) {
+    this.visitors = ImmutableList.copyOf(visitors);
+  }
+
+  /**
+   * Visitors overriding one of the scanning methods of {@link SubscriptionVisitor} (for instance to reset their state before each file) must scan files on their own.
+   */
+  public static boolean canBeMultiplexed(JavaFileScanner scanner) {
+    if (!(scanner instanceof SubscriptionVisitor)) {
+      return false;
+    }
+    Class<?> visitorClass = scanner.getClass();
+    return isNotOverridden(visitorClass, "scanFile", JavaFileScannerContext.class)
+      && isNotOverridden(visitorClass, "scanTree", Tree.class)
+      && isNotOverridden(visitorClass, "visitTokens", CompilationUnitTree.class)
+      && isNotOverridden(visitorClass, "isSubscribed", Tree.class);
+  }
+
+  private static boolean isNotOverridden(Class<?> visitorClass, String methodName, Class<?> parameterType) {
+    Class<?> currentClass = visitorClass;
+    while (currentClass != SubscriptionVisitor.class) {
+      try {
+        currentClass.getDeclaredMethod(methodName, parameterType);
+        return false;
+      } catch (NoSuchMethodException e) {
+        currentClass = currentClass.getSuperclass();
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void setCharset(Charset charset) {
+    for (SubscriptionVisitor visitor : visitors) {
+      if (visitor instanceof CharsetAwareVisitor) {
+        ((CharsetAwareVisitor) visitor).setCharset(charset);
+      }
+    }
+  }
+
+  @Override
+  public void scanFile(JavaFileScannerContext context) {
+    if (visitorsByKind == null) {
+      buildDispatchTable();
+    }
+    for (SubscriptionVisitor visitor : visitors) {
+      visitor.setContext(context);
+    }
+    visit(context.getTree());
+    if (!tokenVisitors.isEmpty()) {
+      visitTokens(context.getTree());
+    }
+  }
+
+  /**
+   * Built on first scan rather than at construction, as subscriptions of a visitor can depend on its configuration.
+   */
+  private void buildDispatchTable() {
+    visitorsByKind = new EnumMap<Tree.Kind, List<SubscriptionVisitor>>(Tree.Kind.class);
+    tokenVisitors = Lists.newArrayList();
+    triviaVisitors = Sets.newHashSet();
+    for (SubscriptionVisitor visitor : visitors) {
+      List<Tree.Kind> kinds = visitor.nodesToVisit();
+      for (Tree.Kind kind : kinds) {
+        List<SubscriptionVisitor> subscribers = visitorsByKind.get(kind);
+        if (subscribers == null) {
+          subscribers = Lists.newArrayList();
+          visitorsByKind.put(kind, subscribers);
+        }
+        if (!subscribers.contains(visitor)) {
+          subscribers.add(visitor);
+        }
+      }
+      if (kinds.contains(Tree.Kind.TOKEN) || kinds.contains(Tree.Kind.TRIVIA)) {
+        tokenVisitors.add(visitor);
+      }
+      if (kinds.contains(Tree.Kind.TRIVIA)) {
+        triviaVisitors.add(visitor);
+      }
+    }
+  }
+
+  private void visit(Tree tree) {
+    List<SubscriptionVisitor> subscribers = subscribers(((JavaTree) tree).getKind());
+    for (SubscriptionVisitor subscriber : subscribers) {
+      subscriber.visitNode(tree);
+    }
+    visitChildren(tree);
+    for (SubscriptionVisitor subscriber : subscribers) {
+      subscriber.leaveNode(tree);
+    }
+  }
+
+  private List<SubscriptionVisitor> subscribers(Tree.Kind kind) {
+    List<SubscriptionVisitor> subscribers = visitorsByKind.get(kind);
+    return subscribers == null ? Collections.<SubscriptionVisitor>emptyList() : subscribers;
+  }
+
+  private void visitChildren(Tree tree) {
+    JavaTree javaTree = (JavaTree) tree;
+    if (!javaTree.isLeaf()) {
+      for (Iterator<Tree> iter = javaTree.childrenIterator(); iter.hasNext(); ) {
+        Tree next = iter.next();
+        if (next != null) {
+          visit(next);
+        }
+      }
+    }
+  }
+
+  private void visitTokens(CompilationUnitTree compilationUnitTree) {
+    //FIXME relying on ASTNode to iterate over tokens.
+    for (Token token : ((JavaTree) compilationUnitTree).getAstNode().getTokens()) {
+      SyntaxToken syntaxToken = new InternalSyntaxToken(token);
+      for (SubscriptionVisitor visitor : tokenVisitors) {
+        visitor.visitToken(syntaxToken);
+        if (triviaVisitors.contains(visitor)) {
+          for (SyntaxTrivia syntaxTrivia : syntaxToken.trivias()) {
+            visitor.visitTrivia(syntaxTrivia);
+          }
+        }
+      }
+    }
+  }
+
+}
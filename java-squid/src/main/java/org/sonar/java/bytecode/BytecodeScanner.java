@@ -19,6 +19,8 @@
  */
 package org.sonar.java.bytecode;
 
+import com.google.common.base.Throwables;
+import org.sonar.java.ChecksProfiler;
 import org.sonar.java.bytecode.asm.AsmClass;
 import org.sonar.java.bytecode.asm.AsmClassProvider;
 import org.sonar.java.bytecode.asm.AsmClassProvider.DETAIL_LEVEL;
@@ -32,20 +34,49 @@ import org.sonar.squidbridge.api.CodeScanner;
 import org.sonar.squidbridge.api.CodeVisitor;
 import org.sonar.squidbridge.indexer.SquidIndex;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BytecodeScanner extends CodeScanner<BytecodeVisitor> {
 
+  private static final int PRELOADED_CLASSES_PER_THREAD = 8;
+
   private final SquidIndex indexer;
   private JavaResourceLocator javaResourceLocator;
+  private ChecksProfiler profiler;
+  private int parsingThreads = 1;
 
   public BytecodeScanner(SquidIndex indexer, JavaResourceLocator javaResourceLocator) {
     this.indexer = indexer;
     this.javaResourceLocator = javaResourceLocator;
   }
 
+  /**
+   * @param profiler records time and memory spent by each visitor, in which case visitors are notified one at a time
+   */
+  public void setProfiler(@Nullable ChecksProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  /**
+   * Reads and parses .class files on the given number of threads, ahead of the loading of classes.
+   * Classes are still loaded, linked and visited on the calling thread and in the same order, so that results do not depend on the number of threads.
+   */
+  public void setParsingThreads(int parsingThreads) {
+    this.parsingThreads = Math.max(1, parsingThreads);
+  }
+
   public BytecodeScanner scan(Collection<File> bytecodeFilesOrDirectories) {
     ClassLoader classLoader = ClassLoaderBuilder.create(bytecodeFilesOrDirectories);
     scanClasses(javaResourceLocator.classKeys(), new AsmClassProviderImpl(classLoader));
@@ -76,17 +107,66 @@ public class BytecodeScanner extends CodeScanner<BytecodeVisitor> {
     for (String key : keys) {
       try {
         AsmClass asmClass = classProvider.getClass(key, DETAIL_LEVEL.STRUCTURE_AND_CALLS);
-        BytecodeVisitorNotifier visitorNotifier = new BytecodeVisitorNotifier(asmClass, visitorArray);
-        visitorNotifier.notifyVisitors(indexer, javaResourceLocator);
+        if (profiler == null) {
+          BytecodeVisitorNotifier visitorNotifier = new BytecodeVisitorNotifier(asmClass, visitorArray);
+          visitorNotifier.notifyVisitors(indexer, javaResourceLocator);
+        } else {
+          for (BytecodeVisitor visitor : visitorArray) {
+            profiler.start();
+            new BytecodeVisitorNotifier(asmClass, new BytecodeVisitor[] {visitor}).notifyVisitors(indexer, javaResourceLocator);
+            profiler.stop(visitor, key);
+          }
+        }
       } catch (Exception exception) {
         throw new AnalysisException("Unable to analyze .class file " + key, exception);
       }
     }
   }
 
-  private static void loadByteCodeInformation(Collection<String> keys, AsmClassProvider classProvider) {
-    for (String key : keys) {
-      classProvider.getClass(key, DETAIL_LEVEL.STRUCTURE_AND_CALLS);
+  private void loadByteCodeInformation(Collection<String> keys, AsmClassProvider classProvider) {
+    if (parsingThreads > 1) {
+      parallelLoadByteCodeInformation(keys, classProvider);
+    } else {
+      for (String key : keys) {
+        classProvider.getClass(key, DETAIL_LEVEL.STRUCTURE_AND_CALLS);
+      }
+    }
+  }
+
+  /**
+   * Keeps at most {@link #PRELOADED_CLASSES_PER_THREAD} classes per thread parsed ahead of their loading, in order to bound memory consumed by parsed bytecode.
+   */
+  private void parallelLoadByteCodeInformation(Collection<String> keys, final AsmClassProvider classProvider) {
+    ExecutorService executor = Executors.newFixedThreadPool(parsingThreads, new BytecodeParserThreadFactory());
+    try {
+      Iterator<String> keysToPreload = keys.iterator();
+      Deque<Future<?>> preloadedAhead = new ArrayDeque<Future<?>>();
+      for (String key : keys) {
+        while (preloadedAhead.size() < PRELOADED_CLASSES_PER_THREAD * parsingThreads && keysToPreload.hasNext()) {
+          final String keyToPreload = keysToPreload.next();
+          preloadedAhead.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+              classProvider.preload(keyToPreload);
+            }
+          }));
+        }
+        waitFor(preloadedAhead.poll());
+        classProvider.getClass(key, DETAIL_LEVEL.STRUCTURE_AND_CALLS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while loading bytecode", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
     }
   }
 
@@ -102,4 +182,16 @@ public class BytecodeScanner extends CodeScanner<BytecodeVisitor> {
     }
   }
 
+  private static class BytecodeParserThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "java-bytecode-parser-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
 }
@@ -48,6 +48,14 @@ public abstract class AsmClassProvider {
 
   public abstract AsmClass getClass(String internalName, DETAIL_LEVEL level);
 
+  /**
+   * Prepares the given class to be loaded later on by {@link #getClass(String, DETAIL_LEVEL)}.
+   * Can be called from another thread than the one loading classes, and does nothing by default.
+   */
+  public void preload(String internalName) {
+    // Do nothing by default
+  }
+
   public final AsmClass getClass(String internalName) {
     return getClass(internalName, DETAIL_LEVEL.STRUCTURE_AND_CALLS);
   }
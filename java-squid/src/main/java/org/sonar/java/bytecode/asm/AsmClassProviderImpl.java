@@ -21,13 +21,18 @@ package org.sonar.java.bytecode.asm;
 
 import org.apache.commons.io.IOUtils;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class AsmClassProviderImpl extends AsmClassProvider {
 
@@ -35,6 +40,10 @@ public class AsmClassProviderImpl extends AsmClassProvider {
 
   private final ClassLoader classLoader;
   private final Map<String, AsmClass> asmClassCache = new HashMap<String, AsmClass>();
+  /**
+   * Bytecode parsed ahead of the decoration of classes, kept until classes are decorated with all their details.
+   */
+  private final ConcurrentMap<String, ClassNode> preloadedClasses = new ConcurrentHashMap<String, ClassNode>();
 
   public AsmClassProviderImpl() {
     this.classLoader = Thread.currentThread().getContextClassLoader();
@@ -57,6 +66,28 @@ public class AsmClassProviderImpl extends AsmClassProvider {
     return asmClass;
   }
 
+  /**
+   * Reads and parses the bytecode of the class, which leaves only the replay of parsed bytecode to {@link #getClass(String, DETAIL_LEVEL)}.
+   * Does not touch any {@link AsmClass}, as decorating a class links it to other classes : classes are still decorated one at a time.
+   */
+  @Override
+  public void preload(String internalName) {
+    InputStream input = null;
+    try {
+      input = classLoader.getResourceAsStream(internalName + ".class");
+      if (input != null) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(input).accept(classNode, 0);
+        preloadedClasses.putIfAbsent(internalName, classNode);
+      }
+    } catch (Exception e) {
+      // Bytecode is read again and failure is logged when the class gets decorated
+      LOG.debug("Unable to preload bytecode of class '" + internalName + "'", e);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
   private AsmClass getAsmClassFromCacheOrCreateIt(String internalName) {
     AsmClass asmClass = asmClassCache.get(internalName);
     if (asmClass == null) {
@@ -71,9 +102,14 @@ public class AsmClassProviderImpl extends AsmClassProvider {
     try {
 
       AsmClassVisitor classVisitor = new AsmClassVisitor(this, asmClass, level);
-      input = classLoader.getResourceAsStream(asmClass.getInternalName() + ".class");
-      ClassReader asmReader = new ClassReader(input);
-      asmReader.accept(classVisitor, 0);
+      ClassNode preloaded = preloaded(asmClass.getInternalName(), level);
+      if (preloaded != null) {
+        preloaded.accept(classVisitor);
+      } else {
+        input = classLoader.getResourceAsStream(asmClass.getInternalName() + ".class");
+        ClassReader asmReader = new ClassReader(input);
+        asmReader.accept(classVisitor, 0);
+      }
     } catch (IOException e) {
       LOG.warn("Class '" + asmClass.getInternalName() + "' is not accessible through the ClassLoader.");
     } catch (SecurityException e) {
@@ -85,4 +121,12 @@ public class AsmClassProviderImpl extends AsmClassProvider {
     }
   }
 
+  @CheckForNull
+  private ClassNode preloaded(String internalName, DETAIL_LEVEL level) {
+    if (preloadedClasses.isEmpty()) {
+      return null;
+    }
+    return level == DETAIL_LEVEL.STRUCTURE_AND_CALLS ? preloadedClasses.remove(internalName) : preloadedClasses.get(internalName);
+  }
+
 }
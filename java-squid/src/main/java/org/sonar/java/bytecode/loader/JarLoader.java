@@ -19,6 +19,7 @@
  */
 package org.sonar.java.bytecode.loader;
 
+import com.google.common.collect.Maps;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
@@ -28,6 +29,9 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -35,6 +39,11 @@ class JarLoader implements Loader {
 
   private final JarFile jarFile;
   private final URL jarUrl;
+  /**
+   * Entries of the jar indexed by name, read once from its central directory,
+   * so that looking for a missing resource is a hash miss, which is the most frequent case with a long classpath.
+   */
+  private Map<String, ZipEntry> entries;
 
   /**
    * @throws IllegalStateException if an I/O error has occurred
@@ -49,11 +58,23 @@ class JarLoader implements Loader {
     } catch (IOException e) {
       throw new IllegalStateException("Unable to open " + file.getAbsolutePath(), e);
     }
+    entries = Maps.newHashMap();
+    for (Enumeration<JarEntry> jarEntries = jarFile.entries(); jarEntries.hasMoreElements(); ) {
+      JarEntry entry = jarEntries.nextElement();
+      entries.put(entry.getName(), entry);
+    }
+  }
+
+  private ZipEntry getEntry(String name) {
+    if (entries == null) {
+      throw new IllegalStateException("zip file closed");
+    }
+    return entries.get(name);
   }
 
   @Override
   public URL findResource(String name) {
-    ZipEntry entry = jarFile.getEntry(name);
+    ZipEntry entry = getEntry(name);
     if (entry != null) {
       try {
         return new URL(jarUrl, name, new JarEntryHandler(entry));
@@ -66,14 +87,16 @@ class JarLoader implements Loader {
 
   @Override
   public byte[] loadBytes(String name) {
+    ZipEntry entry = getEntry(name);
+    if (entry == null) {
+      return null;
+    }
     InputStream is = null;
     try {
-      ZipEntry entry = jarFile.getEntry(name);
-      if (entry == null) {
-        return null;
-      }
       is = jarFile.getInputStream(entry);
-      return IOUtils.toByteArray(is);
+      long size = entry.getSize();
+      // size is known for all entries written by standard tools, which allows to read them without intermediate buffers
+      return size >= 0 ? IOUtils.toByteArray(is, size) : IOUtils.toByteArray(is);
     } catch (IOException e) {
       // TODO Godin: not sure that we should silently ignore exception here,
       // e.g. it can be thrown if file corrupted
@@ -85,6 +108,7 @@ class JarLoader implements Loader {
 
   @Override
   public void close() {
+    entries = null;
     try {
       jarFile.close();
     } catch (IOException e) {
@@ -20,10 +20,14 @@
 package org.sonar.java.bytecode.loader;
 
 import com.google.common.collect.Iterators;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.Nullable;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -34,6 +38,12 @@ import java.util.List;
  */
 public class SquidClassLoader extends ClassLoader implements Closeable {
 
+  /**
+   * Gives access to resources of the JDK, which take precedence over the ones of the analyzed files, as for {@link #getResource(String)}.
+   */
+  private static final ClassLoader BOOTSTRAP = new ClassLoader(null) {
+  };
+
   private final List<Loader> loaders;
 
   /**
@@ -66,6 +76,33 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
     throw new ClassNotFoundException(name);
   }
 
+  /**
+   * Loads bytes of the resource with the given name, looking for it in the same order as {@link #getResource(String)},
+   * but without creating any URL for the resources of the analyzed files.
+   *
+   * @return content of the resource, or <tt>null</tt> if it could not be found
+   */
+  @Nullable
+  public byte[] loadBytes(String name) {
+    InputStream is = BOOTSTRAP.getResourceAsStream(name);
+    if (is != null) {
+      try {
+        return IOUtils.toByteArray(is);
+      } catch (IOException e) {
+        return null;
+      } finally {
+        IOUtils.closeQuietly(is);
+      }
+    }
+    for (Loader loader : loaders) {
+      byte[] bytes = loader.loadBytes(name);
+      if (bytes != null) {
+        return bytes;
+      }
+    }
+    return null;
+  }
+
   @Override
   public URL findResource(String name) {
     for (Loader loader : loaders) {
@@ -70,8 +70,7 @@ public class DependenciesVisitor extends BytecodeVisitor {
         dependency.setWeight(1);
         graph.addEdge(dependency);
       }
-      if (subDependency != null && !resourceMapping.getSubDependencies(dependency).contains(subDependency)) {
-        resourceMapping.addSubDependency(dependency, subDependency);
+      if (subDependency != null && resourceMapping.addSubDependency(dependency, subDependency)) {
         dependency.setWeight(dependency.getWeight() + 1);
         subDependency.setParent(dependency);
       }
@@ -23,12 +23,14 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import org.sonar.api.design.Dependency;
 import org.sonar.api.resources.Directory;
 import org.sonar.api.resources.File;
 import org.sonar.api.resources.Resource;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,12 +39,15 @@ import java.util.Set;
 public class ResourceMapping {
 
   private Multimap<Directory, File> directories;
-  private Multimap<Dependency, Dependency> subDependencies;
+  /**
+   * Sub dependencies are kept in insertion order.
+   */
+  private Map<Dependency, Set<Dependency>> subDependencies;
   private Map<File, String> fileKeyByResource;
 
   public ResourceMapping() {
     directories = ArrayListMultimap.create();
-    subDependencies = ArrayListMultimap.create();
+    subDependencies = new HashMap<Dependency, Set<Dependency>>();
     fileKeyByResource = new HashMap<File, String>();
   }
 
@@ -69,13 +74,21 @@ public class ResourceMapping {
     return ImmutableSet.<Resource>builder().addAll(directories.get(directory)).build();
   }
 
-  public void addSubDependency(Dependency parent, Dependency subDependency) {
-    subDependencies.put(parent, subDependency);
+  /**
+   * @return false if the sub dependency was already added to the parent
+   */
+  public boolean addSubDependency(Dependency parent, Dependency subDependency) {
+    Set<Dependency> dependencies = subDependencies.get(parent);
+    if (dependencies == null) {
+      dependencies = Sets.newLinkedHashSet();
+      subDependencies.put(parent, dependencies);
+    }
+    return dependencies.add(subDependency);
   }
 
   public Collection<Dependency> getSubDependencies(Dependency parent) {
-    return subDependencies.get(parent);
+    Set<Dependency> dependencies = subDependencies.get(parent);
+    return dependencies == null ? Collections.<Dependency>emptySet() : Collections.unmodifiableSet(dependencies);
   }
 
-
 }
@@ -0,0 +1,630 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.cfg;
+
+import com.google.common.collect.Lists;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.declaration.MethodTreeImpl;
+import org.sonar.plugins.java.api.tree.BlockTree;
+import org.sonar.plugins.java.api.tree.BreakStatementTree;
+import org.sonar.plugins.java.api.tree.CaseGroupTree;
+import org.sonar.plugins.java.api.tree.CaseLabelTree;
+import org.sonar.plugins.java.api.tree.CatchTree;
+import org.sonar.plugins.java.api.tree.ContinueStatementTree;
+import org.sonar.plugins.java.api.tree.DoWhileStatementTree;
+import org.sonar.plugins.java.api.tree.ExpressionStatementTree;
+import org.sonar.plugins.java.api.tree.ForEachStatement;
+import org.sonar.plugins.java.api.tree.ForStatementTree;
+import org.sonar.plugins.java.api.tree.IdentifierTree;
+import org.sonar.plugins.java.api.tree.IfStatementTree;
+import org.sonar.plugins.java.api.tree.LabeledStatementTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.ReturnStatementTree;
+import org.sonar.plugins.java.api.tree.StatementTree;
+import org.sonar.plugins.java.api.tree.SwitchStatementTree;
+import org.sonar.plugins.java.api.tree.SynchronizedStatementTree;
+import org.sonar.plugins.java.api.tree.ThrowStatementTree;
+import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.TryStatementTree;
+import org.sonar.plugins.java.api.tree.VariableTree;
+import org.sonar.plugins.java.api.tree.WhileStatementTree;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Control flow graph of the body of a method, made of basic blocks.
+ * <p/>
+ * Each block holds the trees evaluated in sequence (statements, conditions, and expressions of the statements which branch),
+ * and ends with an optional terminator : the statement which branches to the successors of the block.
+ * Expressions are not split : conditional operators and lambdas are part of the elements which contain them.
+ * Blocks within the body or the catch blocks of a try statement have exception successors : its catch blocks,
+ * and its finally block or the handlers of the enclosing try statement or the exit block.
+ * Jumps out of a try statement with a finally block go through the finally block, whose last block then has all those jump targets as successors.
+ * <p/>
+ * Graphs are built once per method, see {@link #of(MethodTree)}.
+ */
+public class CFG {
+
+  private final List<Block> blocks;
+  private final Block entry;
+  private final Block exit;
+
+  private CFG(List<Block> blocks, Block entry, Block exit) {
+    this.blocks = Collections.unmodifiableList(blocks);
+    this.entry = entry;
+    this.exit = exit;
+  }
+
+  /**
+   * @return the graph of the given method, built on first call and kept by the tree
+   */
+  public static CFG of(MethodTree tree) {
+    return ((MethodTreeImpl) tree).cfg();
+  }
+
+  public static CFG build(MethodTree tree) {
+    return new Builder().build(tree);
+  }
+
+  /**
+   * @return all the blocks, ordered by id : the entry block first and the exit block last
+   */
+  public List<Block> blocks() {
+    return blocks;
+  }
+
+  public Block entry() {
+    return entry;
+  }
+
+  /**
+   * @return the empty block reached by returns, and by uncaught exceptions
+   */
+  public Block exit() {
+    return exit;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Block block : blocks) {
+      sb.append(block).append('\n');
+    }
+    return sb.toString();
+  }
+
+  public static class Block {
+    private int id;
+    private final List<Tree> elements = new ArrayList<>();
+    private final Set<Block> successors = new LinkedHashSet<>();
+    private final Set<Block> exceptions = new LinkedHashSet<>();
+    private final Set<Block> predecessors = new LinkedHashSet<>();
+    private Tree terminator;
+    private Block trueSuccessor;
+    private Block falseSuccessor;
+
+    private Block() {
+    }
+
+    /**
+     * @return index of the block in {@link CFG#blocks()}
+     */
+    public int id() {
+      return id;
+    }
+
+    public List<Tree> elements() {
+      return Collections.unmodifiableList(elements);
+    }
+
+    public Set<Block> successors() {
+      return Collections.unmodifiableSet(successors);
+    }
+
+    /**
+     * @return blocks reached when the evaluation of one of the elements throws
+     */
+    public Set<Block> exceptions() {
+      return Collections.unmodifiableSet(exceptions);
+    }
+
+    /**
+     * @return blocks of which this block is a successor or an exception successor
+     */
+    public Set<Block> predecessors() {
+      return Collections.unmodifiableSet(predecessors);
+    }
+
+    @CheckForNull
+    public Tree terminator() {
+      return terminator;
+    }
+
+    /**
+     * @return successor when the condition of the terminator is true, null when the terminator has no condition
+     */
+    @CheckForNull
+    public Block trueSuccessor() {
+      return trueSuccessor;
+    }
+
+    /**
+     * @return successor when the condition of the terminator is false, null when the terminator has no condition or when it has no end
+     */
+    @CheckForNull
+    public Block falseSuccessor() {
+      return falseSuccessor;
+    }
+
+    private void setBranches(Block trueSuccessor, @Nullable Block falseSuccessor) {
+      this.trueSuccessor = trueSuccessor;
+      this.falseSuccessor = falseSuccessor;
+      successors.add(trueSuccessor);
+      if (falseSuccessor != null) {
+        successors.add(falseSuccessor);
+      }
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("B").append(id).append(' ').append(elements.size()).append(" elements");
+      if (terminator != null) {
+        sb.append(", ").append(((JavaTree) terminator).getKind());
+      }
+      appendIds(sb, " -> ", successors);
+      appendIds(sb, " exceptions ", exceptions);
+      return sb.toString();
+    }
+
+    private static void appendIds(StringBuilder sb, String prefix, Set<Block> blocks) {
+      if (!blocks.isEmpty()) {
+        sb.append(prefix);
+        boolean first = true;
+        for (Block block : blocks) {
+          sb.append(first ? "B" : ", B").append(block.id);
+          first = false;
+        }
+      }
+    }
+  }
+
+  private static class Target {
+    private final Block block;
+    /**
+     * Number of enclosing try statements with a finally block.
+     */
+    private final int finallyDepth;
+
+    Target(Block block, int finallyDepth) {
+      this.block = block;
+      this.finallyDepth = finallyDepth;
+    }
+  }
+
+  private static class Finally {
+    private final Block start;
+    private final Block end;
+
+    Finally(Block start, Block end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /**
+   * Builds blocks from the end of the method to its beginning : when a statement is built, the block which follows it is already known.
+   * Elements are thus added in reverse order of evaluation, and reversed at the end.
+   */
+  private static class Builder {
+    private final List<Block> createdBlocks = new ArrayList<>();
+    private final Deque<Target> breakTargets = new LinkedList<>();
+    private final Deque<Target> continueTargets = new LinkedList<>();
+    private final Map<String, Target> labelBreakTargets = new HashMap<>();
+    private final Map<String, Target> labelContinueTargets = new HashMap<>();
+    /**
+     * Innermost first.
+     */
+    private final Deque<List<Block>> exceptionTargets = new LinkedList<>();
+    /**
+     * Outermost first.
+     */
+    private final List<Finally> finallies = new ArrayList<>();
+    private Block exitBlock;
+    private Block currentBlock;
+    @Nullable
+    private String pendingLabel;
+
+    CFG build(MethodTree tree) {
+      exitBlock = createBlock();
+      currentBlock = createBlock(exitBlock);
+      if (tree.block() != null) {
+        build(tree.block().body());
+      }
+      Block entry = currentBlock;
+      List<Block> blocks = new ArrayList<>();
+      // entry is the last block created
+      for (Block block : Lists.reverse(createdBlocks)) {
+        if (block == entry || block == exitBlock || !isEmptyJump(block)) {
+          blocks.add(block);
+        }
+      }
+      for (int i = 0; i < blocks.size(); i++) {
+        Block block = blocks.get(i);
+        block.id = i;
+        Collections.reverse(block.elements);
+        replaceEmptyJumps(block.successors);
+        replaceEmptyJumps(block.exceptions);
+        if (block.trueSuccessor != null) {
+          block.trueSuccessor = skipEmptyJumps(block.trueSuccessor);
+        }
+        if (block.falseSuccessor != null) {
+          block.falseSuccessor = skipEmptyJumps(block.falseSuccessor);
+        }
+        for (Block successor : block.successors) {
+          successor.predecessors.add(block);
+        }
+        for (Block successor : block.exceptions) {
+          successor.predecessors.add(block);
+        }
+      }
+      return new CFG(blocks, entry, exitBlock);
+    }
+
+    /**
+     * Empty blocks created at the end of branches and before loops are replaced by their successor.
+     */
+    private static boolean isEmptyJump(Block block) {
+      return block.elements.isEmpty() && block.terminator == null && block.successors.size() == 1;
+    }
+
+    private static Block skipEmptyJumps(Block block) {
+      Block result = block;
+      // there is no cycle of empty blocks, as each loop has a terminator
+      while (isEmptyJump(result)) {
+        result = result.successors.iterator().next();
+      }
+      return result;
+    }
+
+    private static void replaceEmptyJumps(Set<Block> blocks) {
+      List<Block> replaced = new ArrayList<>(blocks.size());
+      for (Block block : blocks) {
+        replaced.add(skipEmptyJumps(block));
+      }
+      blocks.clear();
+      blocks.addAll(replaced);
+    }
+
+    private Block createBlock() {
+      Block block = new Block();
+      if (!exceptionTargets.isEmpty()) {
+        block.exceptions.addAll(exceptionTargets.peek());
+      }
+      createdBlocks.add(block);
+      return block;
+    }
+
+    private Block createBlock(Block successor) {
+      Block block = createBlock();
+      block.successors.add(successor);
+      return block;
+    }
+
+    private Block createJump(Tree terminator, Block target) {
+      Block block = createBlock(target);
+      block.terminator = terminator;
+      return block;
+    }
+
+    private void build(List<? extends Tree> trees) {
+      for (Tree tree : Lists.reverse(trees)) {
+        build(tree);
+      }
+    }
+
+    private void build(Tree tree) {
+      String label = pendingLabel;
+      pendingLabel = null;
+      switch (((JavaTree) tree).getKind()) {
+        case BLOCK:
+          build(((BlockTree) tree).body());
+          break;
+        case EMPTY_STATEMENT:
+          break;
+        case EXPRESSION_STATEMENT:
+          currentBlock.elements.add(((ExpressionStatementTree) tree).expression());
+          break;
+        case LABELED_STATEMENT:
+          buildLabeledStatement((LabeledStatementTree) tree);
+          break;
+        case IF_STATEMENT:
+          buildIfStatement((IfStatementTree) tree);
+          break;
+        case WHILE_STATEMENT:
+          buildWhileStatement((WhileStatementTree) tree, label);
+          break;
+        case DO_STATEMENT:
+          buildDoWhileStatement((DoWhileStatementTree) tree, label);
+          break;
+        case FOR_STATEMENT:
+          buildForStatement((ForStatementTree) tree, label);
+          break;
+        case FOR_EACH_STATEMENT:
+          buildForEachStatement((ForEachStatement) tree, label);
+          break;
+        case SWITCH_STATEMENT:
+          buildSwitchStatement((SwitchStatementTree) tree);
+          break;
+        case TRY_STATEMENT:
+          buildTryStatement((TryStatementTree) tree);
+          break;
+        case SYNCHRONIZED_STATEMENT:
+          build(((SynchronizedStatementTree) tree).block());
+          currentBlock.elements.add(((SynchronizedStatementTree) tree).expression());
+          break;
+        case RETURN_STATEMENT:
+          currentBlock = createJump(tree, route(new Target(exitBlock, 0)));
+          addElement(((ReturnStatementTree) tree).expression());
+          break;
+        case THROW_STATEMENT:
+          buildThrowStatement((ThrowStatementTree) tree);
+          break;
+        case BREAK_STATEMENT:
+          IdentifierTree breakLabel = ((BreakStatementTree) tree).label();
+          currentBlock = createJump(tree, route(breakLabel == null ? breakTargets.peek() : labelBreakTargets.get(breakLabel.name())));
+          break;
+        case CONTINUE_STATEMENT:
+          IdentifierTree continueLabel = ((ContinueStatementTree) tree).label();
+          currentBlock = createJump(tree, route(continueLabel == null ? continueTargets.peek() : labelContinueTargets.get(continueLabel.name())));
+          break;
+        default:
+          // variables, local classes, assertions...
+          currentBlock.elements.add(tree);
+          break;
+      }
+    }
+
+    private void addElement(@Nullable Tree tree) {
+      if (tree != null) {
+        currentBlock.elements.add(tree);
+      }
+    }
+
+    /**
+     * @return block to jump to in order to reach the given target, going through the finally blocks left on the way
+     */
+    private Block route(@Nullable Target target) {
+      if (target == null) {
+        // jump to an unknown label : code does not compile
+        return exitBlock;
+      }
+      Block result = target.block;
+      for (int i = target.finallyDepth; i < finallies.size(); i++) {
+        finallies.get(i).end.successors.add(result);
+        result = finallies.get(i).start;
+      }
+      return result;
+    }
+
+    private Target target(Block block) {
+      return new Target(block, finallies.size());
+    }
+
+    private void pushLoopTargets(@Nullable String label, Block breakTarget, Block continueTarget) {
+      breakTargets.push(target(breakTarget));
+      continueTargets.push(target(continueTarget));
+      if (label != null) {
+        labelContinueTargets.put(label, continueTargets.peek());
+      }
+    }
+
+    private void popLoopTargets(@Nullable String label) {
+      breakTargets.pop();
+      continueTargets.pop();
+      if (label != null) {
+        labelContinueTargets.remove(label);
+      }
+    }
+
+    private void buildLabeledStatement(LabeledStatementTree tree) {
+      String label = tree.label().name();
+      labelBreakTargets.put(label, target(currentBlock));
+      pendingLabel = label;
+      build(tree.statement());
+      pendingLabel = null;
+      labelBreakTargets.remove(label);
+    }
+
+    private void buildIfStatement(IfStatementTree tree) {
+      Block next = currentBlock;
+      Block elseStart = next;
+      if (tree.elseStatement() != null) {
+        currentBlock = createBlock(next);
+        build(tree.elseStatement());
+        elseStart = currentBlock;
+      }
+      currentBlock = createBlock(next);
+      build(tree.thenStatement());
+      Block thenStart = currentBlock;
+      currentBlock = createBlock();
+      currentBlock.terminator = tree;
+      currentBlock.setBranches(thenStart, elseStart);
+      currentBlock.elements.add(tree.condition());
+    }
+
+    private void buildWhileStatement(WhileStatementTree tree, @Nullable String label) {
+      Block next = currentBlock;
+      Block conditionBlock = createBlock();
+      conditionBlock.terminator = tree;
+      conditionBlock.elements.add(tree.condition());
+      pushLoopTargets(label, next, conditionBlock);
+      currentBlock = createBlock(conditionBlock);
+      build(tree.statement());
+      popLoopTargets(label);
+      conditionBlock.setBranches(currentBlock, next);
+      currentBlock = createBlock(conditionBlock);
+    }
+
+    private void buildDoWhileStatement(DoWhileStatementTree tree, @Nullable String label) {
+      Block next = currentBlock;
+      Block conditionBlock = createBlock();
+      conditionBlock.terminator = tree;
+      conditionBlock.elements.add(tree.condition());
+      pushLoopTargets(label, next, conditionBlock);
+      currentBlock = createBlock(conditionBlock);
+      build(tree.statement());
+      popLoopTargets(label);
+      Block bodyStart = currentBlock;
+      conditionBlock.setBranches(bodyStart, next);
+      currentBlock = createBlock(bodyStart);
+    }
+
+    private void buildForStatement(ForStatementTree tree, @Nullable String label) {
+      Block next = currentBlock;
+      Block conditionBlock = createBlock();
+      conditionBlock.terminator = tree;
+      addElementTo(conditionBlock, tree.condition());
+      currentBlock = createBlock(conditionBlock);
+      build(tree.update());
+      Block updateBlock = currentBlock;
+      pushLoopTargets(label, next, updateBlock);
+      currentBlock = createBlock(updateBlock);
+      build(tree.statement());
+      popLoopTargets(label);
+      conditionBlock.setBranches(currentBlock, tree.condition() == null ? null : next);
+      currentBlock = createBlock(conditionBlock);
+      build(tree.initializer());
+    }
+
+    private static void addElementTo(Block block, @Nullable Tree tree) {
+      if (tree != null) {
+        block.elements.add(tree);
+      }
+    }
+
+    private void buildForEachStatement(ForEachStatement tree, @Nullable String label) {
+      Block next = currentBlock;
+      Block loopBlock = createBlock();
+      loopBlock.terminator = tree;
+      pushLoopTargets(label, next, loopBlock);
+      currentBlock = createBlock(loopBlock);
+      build(tree.statement());
+      currentBlock.elements.add(tree.variable());
+      popLoopTargets(label);
+      loopBlock.setBranches(currentBlock, next);
+      currentBlock = createBlock(loopBlock);
+      currentBlock.elements.add(tree.expression());
+    }
+
+    private void buildSwitchStatement(SwitchStatementTree tree) {
+      Block next = currentBlock;
+      breakTargets.push(target(next));
+      LinkedList<Block> caseStarts = new LinkedList<>();
+      boolean hasDefault = false;
+      Block fallThrough = next;
+      for (CaseGroupTree caseGroup : Lists.reverse(tree.cases())) {
+        currentBlock = createBlock(fallThrough);
+        build(caseGroup.body());
+        caseStarts.addFirst(currentBlock);
+        fallThrough = currentBlock;
+        hasDefault |= isDefault(caseGroup);
+      }
+      breakTargets.pop();
+      currentBlock = createBlock();
+      currentBlock.terminator = tree;
+      currentBlock.successors.addAll(caseStarts);
+      if (!hasDefault) {
+        currentBlock.successors.add(next);
+      }
+      currentBlock.elements.add(tree.expression());
+    }
+
+    private static boolean isDefault(CaseGroupTree caseGroup) {
+      for (CaseLabelTree caseLabel : caseGroup.labels()) {
+        if ("default".equals(caseLabel.caseOrDefaultKeyword().text())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void buildThrowStatement(ThrowStatementTree tree) {
+      currentBlock = createBlock();
+      currentBlock.terminator = tree;
+      currentBlock.successors.addAll(enclosingExceptionTargets());
+      currentBlock.elements.add(tree.expression());
+    }
+
+    private List<Block> enclosingExceptionTargets() {
+      return exceptionTargets.isEmpty() ? Collections.singletonList(exitBlock) : exceptionTargets.peek();
+    }
+
+    private void buildTryStatement(TryStatementTree tree) {
+      Block next = currentBlock;
+      List<Block> enclosingTargets = enclosingExceptionTargets();
+      Block afterTry = next;
+      List<Block> handlerTargets = enclosingTargets;
+      if (tree.finallyBlock() != null) {
+        Block finallyEnd = createBlock(next);
+        // exception thrown again after the finally block
+        finallyEnd.successors.addAll(enclosingTargets);
+        currentBlock = finallyEnd;
+        build(tree.finallyBlock());
+        afterTry = currentBlock;
+        handlerTargets = Collections.singletonList(afterTry);
+        finallies.add(new Finally(afterTry, finallyEnd));
+      }
+      exceptionTargets.push(handlerTargets);
+      List<Block> catchStarts = new ArrayList<>();
+      for (CatchTree catchTree : Lists.reverse(tree.catches())) {
+        currentBlock = createBlock(afterTry);
+        build(catchTree.block());
+        currentBlock.elements.add(catchTree.parameter());
+        catchStarts.add(0, currentBlock);
+      }
+      exceptionTargets.pop();
+      List<Block> bodyTargets = new ArrayList<>(catchStarts);
+      bodyTargets.addAll(handlerTargets);
+      exceptionTargets.push(bodyTargets);
+      currentBlock = createBlock(afterTry);
+      build(tree.block());
+      for (VariableTree resource : Lists.reverse(tree.resources())) {
+        currentBlock.elements.add(resource);
+      }
+      exceptionTargets.pop();
+      if (tree.finallyBlock() != null) {
+        finallies.remove(finallies.size() - 1);
+      }
+      currentBlock = createBlock(currentBlock);
+    }
+  }
+
+}
@@ -31,6 +31,7 @@ import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.plugins.java.api.tree.TreeVisitor;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -71,8 +72,13 @@ public class InternalSyntaxToken extends JavaTree implements SyntaxToken {
   }
 
   private static List<SyntaxTrivia> createTrivias(Token token) {
-    List<SyntaxTrivia> result = Lists.newArrayList();
-    for (Trivia trivia : token.getTrivia()) {
+    List<Trivia> tokenTrivias = token.getTrivia();
+    if (tokenTrivias.isEmpty()) {
+      // most of tokens have no trivia
+      return Collections.emptyList();
+    }
+    List<SyntaxTrivia> result = Lists.newArrayListWithCapacity(tokenTrivias.size());
+    for (Trivia trivia : tokenTrivias) {
       Token trivialToken = trivia.getToken();
       result.add(InternalSyntaxTrivia.create(trivialToken.getValue(), trivialToken.getLine(), trivialToken.getColumn()));
     }
@@ -68,6 +68,11 @@ public abstract class JavaTree extends AstNode implements Tree {
 
   private final AstNode astNode;
 
+  /**
+   * Structural hash of the subtree, 0 until computed by {@link SyntacticEquivalence#hash(Tree)}.
+   */
+  int syntacticHash;
+
   public JavaTree(AstNodeType type) {
     super(type, type.toString(), null);
     this.astNode = this;
@@ -56,9 +56,64 @@ public final class SyntacticEquivalence {
   * @return true, if nodes are syntactically equivalent
   */
   public static boolean areEquivalent(@Nullable Tree leftNode, @Nullable Tree rightNode) {
+    if (leftNode != null && rightNode != null && hash(leftNode) != hash(rightNode)) {
+      return false;
+    }
     return areEquivalent((JavaTree) leftNode, (JavaTree) rightNode);
   }
 
+  /**
+   * Structural hash of a subtree, computed once per node : equivalent subtrees have the same hash,
+   * so that candidates for equivalence can be grouped by hash before being compared.
+   */
+  public static int hash(@Nullable Tree tree) {
+    if (tree == null) {
+      return 0;
+    }
+    JavaTree javaTree = (JavaTree) tree;
+    if (javaTree.syntacticHash == 0) {
+      int hash = computeHash(javaTree);
+      // 0 means not computed
+      javaTree.syntacticHash = hash == 0 ? 1 : hash;
+    }
+    return javaTree.syntacticHash;
+  }
+
+  /**
+   * @return hash of a list of subtrees, equal for lists which are syntactically equivalent
+   */
+  public static int hash(List<? extends Tree> trees) {
+    int hash = 1;
+    for (Tree tree : trees) {
+      hash = 31 * hash + hash(tree);
+    }
+    return hash;
+  }
+
+  private static int computeHash(JavaTree tree) {
+    Tree.Kind kind = tree.getKind();
+    int hash = kind == null ? 0 : (kind.ordinal() + 1);
+    if (tree.isLeaf()) {
+      return 31 * hash + leafHash(tree);
+    }
+    Iterator<Tree> children = tree.childrenIterator();
+    while (children.hasNext()) {
+      hash = 31 * hash + hash(children.next());
+    }
+    return hash;
+  }
+
+  private static int leafHash(JavaTree leaf) {
+    if (leaf instanceof IdentifierTree) {
+      return Objects.hashCode(((IdentifierTree) leaf).name());
+    } else if (leaf instanceof PrimitiveTypeTree) {
+      return Objects.hashCode(((PrimitiveTypeTree) leaf).keyword().text());
+    } else if (leaf instanceof SyntaxToken) {
+      return Objects.hashCode(((SyntaxToken) leaf).text());
+    }
+    return 0;
+  }
+
   private static boolean areEquivalent(@Nullable JavaTree leftNode, @Nullable JavaTree rightNode) {
     if (leftNode == rightNode) {
       return true;
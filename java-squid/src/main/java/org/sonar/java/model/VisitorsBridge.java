@@ -28,9 +28,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.java.CharsetAwareVisitor;
+import org.sonar.java.ChecksProfiler;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.ast.visitors.ComplexityVisitor;
 import org.sonar.java.ast.visitors.SonarSymbolTableVisitor;
+import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.ast.visitors.SubscriptionVisitorsMultiplexer;
+import org.sonar.java.resolve.ClassFileCache;
 import org.sonar.java.resolve.SemanticModel;
 import org.sonar.plugins.java.api.JavaCheck;
 import org.sonar.plugins.java.api.JavaFileScanner;
@@ -60,10 +64,17 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
   private static final Logger LOG = LoggerFactory.getLogger(VisitorsBridge.class);
 
   private final List<JavaFileScanner> scanners;
+  /**
+   * Same as {@link #scanners}, without multiplexing of subscription visitors, so that each visitor can be profiled.
+   */
+  private final List<JavaFileScanner> visitorScanners;
   private final SonarComponents sonarComponents;
   private SemanticModel semanticModel;
   private List<File> projectClasspath;
+  private ClassFileCache classFileCache;
+  private File classSignaturesDirectory;
   private boolean analyseAccessors;
+  private ChecksProfiler profiler;
 
   @VisibleForTesting
   public VisitorsBridge(JavaFileScanner visitor) {
@@ -76,13 +87,30 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
   }
 
   public VisitorsBridge(Iterable visitors, List<File> projectClasspath, @Nullable SonarComponents sonarComponents) {
-    ImmutableList.Builder<JavaFileScanner> scannersBuilder = ImmutableList.builder();
+    List<JavaFileScanner> scannersList = Lists.newArrayList();
+    List<JavaFileScanner> visitorScannersList = Lists.newArrayList();
+    List<SubscriptionVisitor> multiplexedVisitors = Lists.newArrayList();
+    int multiplexerIndex = -1;
     for (Object visitor : visitors) {
       if (visitor instanceof JavaFileScanner) {
-        scannersBuilder.add((JavaFileScanner) visitor);
+        JavaFileScanner scanner = (JavaFileScanner) visitor;
+        visitorScannersList.add(scanner);
+        if (SubscriptionVisitorsMultiplexer.canBeMultiplexed(scanner)) {
+          if (multiplexedVisitors.isEmpty()) {
+            multiplexerIndex = scannersList.size();
+          }
+          multiplexedVisitors.add((SubscriptionVisitor) scanner);
+        } else {
+          scannersList.add(scanner);
+        }
       }
     }
-    this.scanners = scannersBuilder.build();
+    if (!multiplexedVisitors.isEmpty()) {
+      // Subscription visitors share a single walk of the tree, which takes place of the first of them
+      scannersList.add(multiplexerIndex, new SubscriptionVisitorsMultiplexer(multiplexedVisitors));
+    }
+    this.scanners = ImmutableList.copyOf(scannersList);
+    this.visitorScanners = ImmutableList.copyOf(visitorScannersList);
     this.sonarComponents = sonarComponents;
     this.projectClasspath = projectClasspath;
   }
@@ -91,6 +119,17 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
     this.analyseAccessors = analyseAccessors;
   }
 
+  public void setClassSignaturesDirectory(@Nullable File classSignaturesDirectory) {
+    this.classSignaturesDirectory = classSignaturesDirectory;
+  }
+
+  /**
+   * @param profiler records time and memory spent by each visitor, in which case subscription visitors are no longer multiplexed
+   */
+  public void setProfiler(@Nullable ChecksProfiler profiler) {
+    this.profiler = profiler;
+  }
+
   @Override
   public void setCharset(Charset charset) {
     for (JavaFileScanner scanner : scanners) {
@@ -100,6 +139,19 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
     }
   }
 
+  @Override
+  public void init() {
+    classFileCache = new ClassFileCache(projectClasspath, classSignaturesDirectory);
+  }
+
+  @Override
+  public void destroy() {
+    if (classFileCache != null) {
+      classFileCache.close();
+      classFileCache = null;
+    }
+  }
+
   @Override
   public void visitFile(@Nullable AstNode astNode) {
     semanticModel = null;
@@ -107,7 +159,13 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
       CompilationUnitTree tree = (CompilationUnitTree) astNode;
       if (isNotJavaLangOrSerializable()) {
         try {
-          semanticModel = SemanticModel.createFor(tree, getProjectClasspath());
+          if (profiler != null) {
+            profiler.start();
+          }
+          semanticModel = SemanticModel.createFor(tree, getClassFileCache());
+          if (profiler != null) {
+            profiler.stop(semanticModel, getContext().getFile().getPath());
+          }
         } catch (Exception e) {
           LOG.error("Unable to create symbol table for : " + getContext().getFile().getAbsolutePath(), e);
           return;
@@ -117,11 +175,19 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
         SemanticModel.handleMissingTypes(tree);
       }
       JavaFileScannerContext context = new DefaultJavaFileScannerContext(tree, (SourceFile) getContext().peekSourceCode(), getContext().getFile(), semanticModel, analyseAccessors);
-      for (JavaFileScanner scanner : scanners) {
-        scanner.scanFile(context);
+      if (profiler == null) {
+        for (JavaFileScanner scanner : scanners) {
+          scanner.scanFile(context);
+        }
+      } else {
+        String path = getContext().getFile().getPath();
+        for (JavaFileScanner scanner : visitorScanners) {
+          profiler.start();
+          scanner.scanFile(context);
+          profiler.stop(scanner, path);
+        }
       }
       if (semanticModel != null) {
-        // Close class loader after all the checks.
         semanticModel.done();
       }
     }
@@ -136,8 +202,11 @@ public class VisitorsBridge extends SquidAstVisitor<LexerlessGrammar> implements
     return !(isJavaLang || isJavaLangAnnotation || isSerializable);
   }
 
-  private List<File> getProjectClasspath() {
-    return projectClasspath;
+  private ClassFileCache getClassFileCache() {
+    if (classFileCache == null) {
+      init();
+    }
+    return classFileCache;
   }
 
   private void createSonarSymbolTable(CompilationUnitTree tree) {
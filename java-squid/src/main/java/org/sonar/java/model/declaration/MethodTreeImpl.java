@@ -25,6 +25,7 @@ import com.google.common.collect.Iterators;
 import com.sonar.sslr.api.AstNode;
 import org.sonar.java.ast.parser.FormalParametersListTreeImpl;
 import org.sonar.java.ast.parser.TypeParameterListTreeImpl;
+import org.sonar.java.cfg.CFG;
 import org.sonar.java.model.JavaTree;
 import org.sonar.java.model.ModifiersUtils;
 import org.sonar.java.resolve.JavaSymbol;
@@ -72,6 +73,9 @@ public class MethodTreeImpl extends JavaTree implements MethodTree {
   @Nullable
   private JavaSymbol.MethodJavaSymbol symbol;
 
+  @Nullable
+  private CFG cfg;
+
   public MethodTreeImpl(FormalParametersListTreeImpl parameters, @Nullable SyntaxToken defaultToken, @Nullable ExpressionTree defaultValue) {
     super(Kind.METHOD);
     this.typeParameters = new TypeParameterListTreeImpl();
@@ -227,6 +231,16 @@ public class MethodTreeImpl extends JavaTree implements MethodTree {
     this.symbol = symbol;
   }
 
+  /**
+   * @return control flow graph of the body of this method, built on first call
+   */
+  public CFG cfg() {
+    if (cfg == null) {
+      cfg = CFG.build(this);
+    }
+    return cfg;
+  }
+
   @Override
   public int getLine() {
     return parameters.openParenToken().getLine();
@@ -63,11 +63,7 @@ public class Input {
   }
 
   public String substring(int from, int to) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = from; i < to; i++) {
-      sb.append(input[i]);
-    }
-    return sb.toString();
+    return new String(input, from, to - from);
   }
 
   public int[] lineAndColumnAt(int index) {
@@ -22,6 +22,7 @@ package org.sonar.java.parser.sslr;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
@@ -39,6 +40,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class SyntaxTreeCreator<T> {
 
@@ -71,6 +73,10 @@ public class SyntaxTreeCreator<T> {
 
   private final Token.Builder tokenBuilder = Token.builder();
   private final List<Trivia> trivias = Lists.newArrayList();
+  /**
+   * Values of tokens of the current file, so that keywords, punctuators and repeated identifiers share a single string.
+   */
+  private final Map<String, String> tokenValues = Maps.newHashMap();
 
   private Input input;
 
@@ -82,7 +88,11 @@ public class SyntaxTreeCreator<T> {
   public T create(ParseNode node, Input input) {
     this.input = input;
     this.trivias.clear();
-    return (T) visit(node);
+    try {
+      return (T) visit(node);
+    } finally {
+      tokenValues.clear();
+    }
   }
 
   private Object visit(ParseNode node) {
@@ -203,7 +213,12 @@ public class SyntaxTreeCreator<T> {
     tokenBuilder.setColumn(lineAndColumn[1] - 1);
     tokenBuilder.setURI(input.uri());
     String value = input.substring(node.getStartIndex(), node.getEndIndex());
-    tokenBuilder.setValueAndOriginalValue(value);
+    String sharedValue = tokenValues.get(value);
+    if (sharedValue == null) {
+      tokenValues.put(value, value);
+      sharedValue = value;
+    }
+    tokenBuilder.setValueAndOriginalValue(sharedValue);
   }
 
 }
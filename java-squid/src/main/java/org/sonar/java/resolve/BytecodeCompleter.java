@@ -21,20 +21,14 @@ package org.sonar.java.resolve;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
-import com.google.common.io.Closeables;
 import org.apache.commons.lang.StringUtils;
 import org.objectweb.asm.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.java.bytecode.ClassLoaderBuilder;
 
 import javax.annotation.Nullable;
-import java.io.Closeable;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,7 +43,8 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
       Flags.ABSTRACT | Flags.STRICTFP | Flags.DEPRECATED;
 
   private Symbols symbols;
-  private final List<File> projectClasspath;
+  private final ClassFileCache classFileCache;
+  private final boolean ownsClassFileCache;
   private final ParametrizedTypeCache parametrizedTypeCache;
 
   /**
@@ -58,10 +53,20 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
   private final Map<String, JavaSymbol.TypeJavaSymbol> classes = new HashMap<String, JavaSymbol.TypeJavaSymbol>();
   private final Map<String, JavaSymbol.PackageJavaSymbol> packages = new HashMap<String, JavaSymbol.PackageJavaSymbol>();
 
-  private ClassLoader classLoader;
-
   public BytecodeCompleter(List<File> projectClasspath, ParametrizedTypeCache parametrizedTypeCache) {
-    this.projectClasspath = projectClasspath;
+    this(new ClassFileCache(projectClasspath), true, parametrizedTypeCache);
+  }
+
+  /**
+   * @param classFileCache shared with other files of the analysis, so not closed by {@link #done()}
+   */
+  public BytecodeCompleter(ClassFileCache classFileCache, ParametrizedTypeCache parametrizedTypeCache) {
+    this(classFileCache, false, parametrizedTypeCache);
+  }
+
+  private BytecodeCompleter(ClassFileCache classFileCache, boolean ownsClassFileCache, ParametrizedTypeCache parametrizedTypeCache) {
+    this.classFileCache = classFileCache;
+    this.ownsClassFileCache = ownsClassFileCache;
     this.parametrizedTypeCache = parametrizedTypeCache;
   }
 
@@ -87,35 +92,17 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     JavaSymbol.TypeJavaSymbol classSymbol = getClassSymbol(bytecodeName);
     Preconditions.checkState(classSymbol == symbol);
 
-    InputStream inputStream = null;
-    ClassReader classReader = null;
-    try {
-      inputStream = inputStreamFor(bytecodeName);
-      if(inputStream != null) {
-        classReader = new ClassReader(inputStream);
-      }
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    } finally {
-      Closeables.closeQuietly(inputStream);
-    }
-    if (classReader != null) {
-      classReader.accept(
+    byte[] bytes = bytesFor(bytecodeName);
+    if (bytes != null) {
+      new ClassReader(bytes).accept(
           new BytecodeVisitor(this, symbols, (JavaSymbol.TypeJavaSymbol) symbol, parametrizedTypeCache),
           ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
     }
   }
 
   @Nullable
-  private InputStream inputStreamFor(String fullname) {
-    return getClassLoader().getResourceAsStream(Convert.bytecodeName(fullname) + ".class");
-  }
-
-  private ClassLoader getClassLoader() {
-    if (classLoader == null) {
-      classLoader = ClassLoaderBuilder.create(projectClasspath);
-    }
-    return classLoader;
+  private byte[] bytesFor(String fullname) {
+    return classFileCache.getBytes(Convert.bytecodeName(fullname));
   }
 
   public String formFullName(JavaSymbol symbol) {
@@ -160,7 +147,7 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
       symbol.typeParameters = new Scope(symbol);
 
       // (Godin): IOException will happen without this condition in case of missing class:
-      if (getClassLoader().getResource(Convert.bytecodeName(flatName) + ".class") != null) {
+      if (classFileCache.contains(Convert.bytecodeName(flatName))) {
         symbol.completer = this;
       } else {
         LOG.error("Class not found: " + bytecodeName);
@@ -192,23 +179,16 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     }
 
     // TODO(Godin): pull out conversion of name from the next method to avoid unnecessary conversion afterwards:
-    InputStream inputStream = inputStreamFor(fullname);
+    byte[] bytes = bytesFor(fullname);
     String bytecodeName = Convert.bytecodeName(fullname);
 
-    if (inputStream == null) {
+    if (bytes == null) {
       return new Resolve.JavaSymbolNotFound();
     }
 
-    try {
-      ClassReader classReader = new ClassReader(inputStream);
-      String className = classReader.getClassName();
-      if (!className.equals(bytecodeName)) {
-        return new Resolve.JavaSymbolNotFound();
-      }
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    } finally {
-      Closeables.closeQuietly(inputStream);
+    String className = new ClassReader(bytes).getClassName();
+    if (!className.equals(bytecodeName)) {
+      return new Resolve.JavaSymbolNotFound();
     }
 
     return getClassSymbol(fullname);
@@ -227,8 +207,8 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
   }
 
   public void done() {
-    if (classLoader != null && classLoader instanceof Closeable) {
-      Closeables.closeQuietly((Closeable) classLoader);
+    if (ownsClassFileCache) {
+      classFileCache.close();
     }
   }
 
@@ -0,0 +1,179 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.sonar.java.bytecode.ClassLoaderBuilder;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Project-scoped store of class files read from the analysis classpath.
+ * Shared by all the {@link BytecodeCompleter}s of an analysis, so that the classpath is opened once
+ * and every class file is read at most once, whatever the number of analyzed files.
+ * Symbols themselves are still completed per file, as they reference source symbols and usages of the file being analyzed.
+ * When a store directory is provided, class signatures of jars are read from {@link ClassSignaturesStore}s kept in this directory
+ * across analyses. Classes of the JDK are looked up first, and then the entries of the classpath in their order, whether they are stored or not.
+ * This class is thread-safe, and can no longer be used once closed.
+ */
+public class ClassFileCache implements Closeable {
+
+  private static final byte[] ABSENT = new byte[0];
+
+  private final List<File> classpath;
+  @Nullable
+  private final File storeDirectory;
+  /**
+   * Indexed by bytecode name.
+   */
+  private final ConcurrentMap<String, byte[]> classFiles = Maps.newConcurrentMap();
+  /**
+   * Stores and class loaders of the classpath entries, in the order of the classpath.
+   */
+  private List<Source> sources;
+  private boolean closed = false;
+
+  public ClassFileCache(List<File> classpath) {
+    this(classpath, null);
+  }
+
+  /**
+   * @param storeDirectory directory where class signatures of jars are persisted, or <tt>null</tt> to always read jars
+   */
+  public ClassFileCache(List<File> classpath, @Nullable File storeDirectory) {
+    this.classpath = classpath;
+    this.storeDirectory = storeDirectory;
+  }
+
+  /**
+   * @return content of the class file, or <tt>null</tt> if there is no such class on the classpath
+   */
+  @Nullable
+  public byte[] getBytes(String bytecodeName) {
+    byte[] bytes = classFiles.get(bytecodeName);
+    if (bytes == null) {
+      bytes = read(bytecodeName);
+      byte[] previous = classFiles.putIfAbsent(bytecodeName, bytes);
+      if (previous != null) {
+        bytes = previous;
+      }
+    }
+    return bytes == ABSENT ? null : bytes;
+  }
+
+  public boolean contains(String bytecodeName) {
+    return getBytes(bytecodeName) != null;
+  }
+
+  private byte[] read(String bytecodeName) {
+    for (Source source : getSources()) {
+      byte[] bytes = source.getBytes(bytecodeName);
+      if (bytes != null) {
+        return bytes;
+      }
+    }
+    return ABSENT;
+  }
+
+  /**
+   * Consecutive entries which are not stored are read by a same class loader.
+   * The first source is always a class loader, as it looks classes of the JDK up before the ones of its entries.
+   */
+  private synchronized List<Source> getSources() {
+    if (closed) {
+      throw new IllegalStateException("Class files of the classpath can no longer be read once closed");
+    }
+    if (sources == null) {
+      List<Source> opened = Lists.newArrayList();
+      List<File> notStored = Lists.newArrayList();
+      for (File file : classpath) {
+        ClassSignaturesStore store = null;
+        if (storeDirectory != null && file.isFile() && file.getName().endsWith(".jar")) {
+          store = ClassSignaturesStore.open(file, storeDirectory);
+        }
+        if (store == null) {
+          notStored.add(file);
+        } else {
+          if (opened.isEmpty() || !notStored.isEmpty()) {
+            opened.add(new ClassLoaderSource(ClassLoaderBuilder.create(notStored)));
+            notStored = Lists.newArrayList();
+          }
+          opened.add(store);
+        }
+      }
+      if (opened.isEmpty() || !notStored.isEmpty()) {
+        opened.add(new ClassLoaderSource(ClassLoaderBuilder.create(notStored)));
+      }
+      sources = opened;
+    }
+    return sources;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (sources != null) {
+      for (Source source : sources) {
+        source.close();
+      }
+      sources = null;
+    }
+    closed = true;
+    classFiles.clear();
+  }
+
+  interface Source extends Closeable {
+
+    /**
+     * @return content of the class file, or <tt>null</tt> if the source does not contain such class
+     */
+    @Nullable
+    byte[] getBytes(String bytecodeName);
+
+    @Override
+    void close();
+
+  }
+
+  private static class ClassLoaderSource implements Source {
+
+    private final SquidClassLoader classLoader;
+
+    ClassLoaderSource(SquidClassLoader classLoader) {
+      this.classLoader = classLoader;
+    }
+
+    @Override
+    public byte[] getBytes(String bytecodeName) {
+      return classLoader.loadBytes(bytecodeName + ".class");
+    }
+
+    @Override
+    public void close() {
+      classLoader.close();
+    }
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * On-disk store of the class signatures of a jar, so that they are computed once and reused by subsequent analyses.
+ * Each class file is stored stripped of everything that {@link BytecodeVisitor} does not read (code, frames and debug information).
+ * The store is identified by the path of the jar, and is rebuilt as soon as size or modification date of the jar change.
+ * <p/>
+ * File format: header (magic, version, jar path, size and modification date, number of classes, size of index),
+ * index (bytecode name, offset and length of each class), and then content of classes.
+ * <p/>
+ * This class is thread-safe.
+ */
+class ClassSignaturesStore implements ClassFileCache.Source {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ClassSignaturesStore.class);
+
+  private static final int MAGIC = 0x4A534947;
+  private static final int VERSION = 1;
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final FileChannel channel;
+  private final long dataStart;
+  /**
+   * Offset and length of classes, indexed by bytecode name.
+   */
+  private final Map<String, long[]> index;
+
+  private ClassSignaturesStore(RandomAccessFile file, long dataStart, Map<String, long[]> index) {
+    this.channel = file.getChannel();
+    this.dataStart = dataStart;
+    this.index = index;
+  }
+
+  /**
+   * @return store of the given jar, created if it does not exist or if it is outdated, or <tt>null</tt> if it can't be read nor created
+   */
+  @CheckForNull
+  static ClassSignaturesStore open(File jar, File storeDirectory) {
+    File storeFile = new File(storeDirectory, jar.getName() + "-" + Integer.toHexString(jar.getAbsolutePath().hashCode()) + ".sig");
+    ClassSignaturesStore store;
+    try {
+      store = read(jar, storeFile);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Class signatures store " + storeFile.getAbsolutePath() + " is corrupted, rebuilding it", e);
+      store = null;
+    }
+    try {
+      if (store == null) {
+        write(jar, storeFile);
+        store = read(jar, storeFile);
+      }
+      return store;
+    } catch (IOException | RuntimeException e) {
+      // the jar is then read directly
+      LOG.warn("Unable to use class signatures store " + storeFile.getAbsolutePath() + " : " + e.getMessage());
+      return null;
+    }
+  }
+
+  @Nullable
+  private static ClassSignaturesStore read(File jar, File storeFile) throws IOException {
+    if (!storeFile.isFile()) {
+      return null;
+    }
+    CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+    DataInputStream in = new DataInputStream(counter);
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !jar.getAbsolutePath().equals(in.readUTF())
+        || in.readLong() != jar.length() || in.readLong() != jar.lastModified()) {
+        return null;
+      }
+      int count = in.readInt();
+      int indexLength = in.readInt();
+      long dataStart = counter.getByteCount() + indexLength;
+      Map<String, long[]> index = Maps.newHashMapWithExpectedSize(count);
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        index.put(name, new long[] {in.readInt(), in.readInt()});
+      }
+      return new ClassSignaturesStore(new RandomAccessFile(storeFile, "r"), dataStart, index);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  private static void write(File jar, File storeFile) throws IOException {
+    List<String> names = Lists.newArrayList();
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    DataOutputStream index = new DataOutputStream(indexBytes);
+    JarFile jarFile = new JarFile(jar);
+    try {
+      for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+        JarEntry entry = entries.nextElement();
+        String entryName = entry.getName();
+        if (entryName.endsWith(CLASS_EXTENSION)) {
+          byte[] signature = strip(jarFile, entry);
+          String name = entryName.substring(0, entryName.length() - CLASS_EXTENSION.length());
+          names.add(name);
+          index.writeUTF(name);
+          index.writeInt(data.size());
+          index.writeInt(signature.length);
+          data.write(signature);
+        }
+      }
+    } finally {
+      jarFile.close();
+    }
+    index.flush();
+
+    FileUtils.forceMkdir(storeFile.getParentFile());
+    // written aside and then renamed, so that concurrent analyses never read a partially written store
+    File tmpFile = File.createTempFile(storeFile.getName(), ".tmp", storeFile.getParentFile());
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(jar.getAbsolutePath());
+      out.writeLong(jar.length());
+      out.writeLong(jar.lastModified());
+      out.writeInt(names.size());
+      out.writeInt(indexBytes.size());
+      indexBytes.writeTo(out);
+      data.writeTo(out);
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    FileUtils.deleteQuietly(storeFile);
+    if (!tmpFile.renameTo(storeFile)) {
+      FileUtils.deleteQuietly(tmpFile);
+      throw new IOException("Unable to create " + storeFile.getAbsolutePath());
+    }
+  }
+
+  /**
+   * @return class file stripped, or as is when ASM can't read it (unknown class file version, malformed class file),
+   * so that it is read as if the jar was not stored
+   */
+  private static byte[] strip(JarFile jarFile, JarEntry entry) throws IOException {
+    byte[] classFile;
+    InputStream inputStream = jarFile.getInputStream(entry);
+    try {
+      classFile = IOUtils.toByteArray(inputStream);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    try {
+      ClassWriter classWriter = new ClassWriter(0);
+      new ClassReader(classFile).accept(classWriter, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+      return classWriter.toByteArray();
+    } catch (RuntimeException e) {
+      LOG.debug("Unable to strip " + entry.getName() + " of " + jarFile.getName() + ", storing it as is", e);
+      return classFile;
+    }
+  }
+
+  /**
+   * @return stripped class file, or <tt>null</tt> if the jar does not contain such class
+   */
+  @CheckForNull
+  @Override
+  public byte[] getBytes(String bytecodeName) {
+    long[] location = index.get(bytecodeName);
+    if (location == null) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+    long position = dataStart + location[0];
+    try {
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, position + buffer.position());
+        if (read < 0) {
+          throw new IOException("Unexpected end of file");
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to read " + bytecodeName + " from class signatures store : " + e.getMessage());
+      return null;
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(channel);
+  }
+
+}
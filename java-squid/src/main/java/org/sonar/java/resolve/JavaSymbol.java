@@ -60,7 +60,16 @@ public class JavaSymbol implements Symbol {
 
   JavaSymbol owner;
 
-  Completer completer;
+  /**
+   * Completer of the symbol, <tt>null</tt> once it is complete.
+   * Volatile, as methods of a file may be analyzed in parallel.
+   */
+  volatile Completer completer;
+
+  /**
+   * Guarded by the lock of {@link #completer}.
+   */
+  private boolean completing;
 
   JavaType type;
 
@@ -97,11 +106,25 @@ public class JavaSymbol implements Symbol {
     return symbolMetadata;
   }
 
+  /**
+   * Completions of a completer are serialized on its lock, as they share the state of its semantic model and of the classpath.
+   * A thread which requests a symbol being completed by another thread waits for the end of its completion,
+   * while a completion which requests its own symbol gets it as it is.
+   */
   public void complete() {
-    if (completer != null) {
-      Completer c = completer;
-      completer = null;
-      c.complete(this);
+    Completer c = completer;
+    if (c != null) {
+      synchronized (c) {
+        if (completer == c && !completing) {
+          completing = true;
+          try {
+            c.complete(this);
+          } finally {
+            completing = false;
+            completer = null;
+          }
+        }
+      }
     }
   }
 
@@ -286,6 +309,8 @@ public class JavaSymbol implements Symbol {
     Scope typeParameters;
     List<JavaType.TypeVariableJavaType> typeVariableTypes;
     ClassTree declaration;
+    private Set<JavaType.ClassJavaType> superTypes;
+    private Set<JavaType> erasedSuperTypes;
 
     public TypeJavaSymbol(int flags, String name, JavaSymbol owner) {
       super(TYP, flags, name, owner);
@@ -328,19 +353,38 @@ public class JavaSymbol implements Symbol {
 
     /**
      * Includes superclass and super interface hierarchy.
+     * Computed once, as the hierarchy is fully completed when it is first requested.
      * @return list of classTypes.
      */
     public Set<JavaType.ClassJavaType> superTypes() {
-      ImmutableSet.Builder<JavaType.ClassJavaType> types = ImmutableSet.builder();
-      JavaType.ClassJavaType superClassType = (JavaType.ClassJavaType) this.superClass();
-      types.addAll(this.interfacesOfType());
-      while (superClassType != null) {
-        types.add(superClassType);
-        TypeJavaSymbol superClassSymbol = superClassType.getSymbol();
-        types.addAll(superClassSymbol.interfacesOfType());
-        superClassType = (JavaType.ClassJavaType) superClassSymbol.superClass();
+      if (superTypes == null) {
+        ImmutableSet.Builder<JavaType.ClassJavaType> types = ImmutableSet.builder();
+        JavaType.ClassJavaType superClassType = (JavaType.ClassJavaType) this.superClass();
+        types.addAll(this.interfacesOfType());
+        while (superClassType != null) {
+          types.add(superClassType);
+          TypeJavaSymbol superClassSymbol = superClassType.getSymbol();
+          types.addAll(superClassSymbol.interfacesOfType());
+          superClassType = (JavaType.ClassJavaType) superClassSymbol.superClass();
+        }
+        superTypes = types.build();
+      }
+      return superTypes;
+    }
+
+    /**
+     * Erasures of {@link #superTypes()}, computed once for subtyping checks.
+     */
+    Set<JavaType> erasedSuperTypes() {
+      if (erasedSuperTypes == null) {
+        ImmutableSet.Builder<JavaType> erasures = ImmutableSet.builder();
+        for (JavaType.ClassJavaType classType : superTypes()) {
+          erasures.add(classType.erasure());
+        }
+        // immutable, so that it is safely published to threads analyzing methods in parallel
+        erasedSuperTypes = erasures.build();
       }
-      return types.build();
+      return erasedSuperTypes;
     }
 
     private Set<JavaType.ClassJavaType> interfacesOfType() {
@@ -21,24 +21,38 @@ package org.sonar.java.resolve;
 
 import com.google.common.collect.Maps;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Canonical instances of parametrized types, so that a parametrization of a type is represented by a single instance.
+ * As symbols, including those read from bytecode, belong to the semantic model of a file, so does this cache.
+ * This class is thread-safe.
+ */
 public class ParametrizedTypeCache {
 
-  private Map<JavaSymbol, Map<TypeSubstitution, JavaType.ParametrizedTypeJavaType>> typeCache = Maps.newHashMap();
+  private final ConcurrentMap<JavaSymbol, ConcurrentMap<TypeSubstitution, JavaType.ParametrizedTypeJavaType>> typeCache = Maps.newConcurrentMap();
 
   public JavaType getParametrizedTypeType(JavaSymbol.TypeJavaSymbol symbol, TypeSubstitution typeSubstitution) {
     if (symbol.getType().isTagged(JavaType.UNKNOWN)) {
       return symbol.getType();
     }
-    if (typeCache.get(symbol) == null) {
-      Map<TypeSubstitution, JavaType.ParametrizedTypeJavaType> map = Maps.newHashMap();
-      typeCache.put(symbol, map);
+    ConcurrentMap<TypeSubstitution, JavaType.ParametrizedTypeJavaType> parametrizations = typeCache.get(symbol);
+    if (parametrizations == null) {
+      parametrizations = Maps.newConcurrentMap();
+      ConcurrentMap<TypeSubstitution, JavaType.ParametrizedTypeJavaType> previous = typeCache.putIfAbsent(symbol, parametrizations);
+      if (previous != null) {
+        parametrizations = previous;
+      }
     }
-    if (typeCache.get(symbol).get(typeSubstitution) == null) {
-      typeCache.get(symbol).put(typeSubstitution, new JavaType.ParametrizedTypeJavaType(symbol, typeSubstitution));
+    JavaType.ParametrizedTypeJavaType type = parametrizations.get(typeSubstitution);
+    if (type == null) {
+      type = new JavaType.ParametrizedTypeJavaType(symbol, typeSubstitution);
+      JavaType.ParametrizedTypeJavaType previous = parametrizations.putIfAbsent(typeSubstitution, type);
+      if (previous != null) {
+        type = previous;
+      }
     }
-    return typeCache.get(symbol).get(typeSubstitution);
+    return type;
   }
 
 }
@@ -20,7 +20,9 @@
 package org.sonar.java.resolve;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -46,6 +48,10 @@ public class Resolve {
   private final ParametrizedTypeCache parametrizedTypeCache;
   private final Types types = new Types();
   private final Symbols symbols;
+  /**
+   * Methods already resolved in this file : call sites with same arguments and those of the hierarchy of a site resolve once.
+   */
+  private final Map<MethodKey, Resolution> resolvedMethods = Maps.newHashMap();
 
   public Resolve(Symbols symbols, BytecodeCompleter bytecodeCompleter, ParametrizedTypeCache parametrizedTypeCache) {
     this.symbols = symbols;
@@ -375,10 +381,17 @@ public class Resolve {
   }
 
   public Resolution findMethod(Env env, JavaType site, String name, List<JavaType> argTypes) {
-    return findMethod(env, site, name, argTypes, ImmutableList.<JavaType>of(), false);
+    return findMethod(env, site, name, argTypes, ImmutableList.<JavaType>of());
   }
+
   public Resolution findMethod(Env env, JavaType site, String name, List<JavaType> argTypes, List<JavaType> typeParams) {
-    return findMethod(env, site, name, argTypes, typeParams, false);
+    MethodKey key = new MethodKey(env, site, name, argTypes, typeParams);
+    Resolution resolution = resolvedMethods.get(key);
+    if (resolution == null) {
+      resolution = findMethod(env, site, name, argTypes, typeParams, false);
+      resolvedMethods.put(key, resolution);
+    }
+    return resolution;
   }
 
   private Resolution findMethod(Env env, JavaType site, String name, List<JavaType> argTypes, List<JavaType> typeParams, boolean autoboxing) {
@@ -670,6 +683,53 @@ public class Resolve {
     return resolution;
   }
 
+  /**
+   * Resolution of a method only depends on the class and package from which it is invoked, and not on the rest of the environment.
+   */
+  private static class MethodKey {
+
+    private final JavaSymbol.TypeJavaSymbol enclosingClass;
+    private final JavaSymbol.PackageJavaSymbol packge;
+    private final JavaType site;
+    private final String name;
+    private final List<JavaType> argTypes;
+    private final List<JavaType> typeParams;
+    private final int hashCode;
+
+    MethodKey(Env env, JavaType site, String name, List<JavaType> argTypes, List<JavaType> typeParams) {
+      this.enclosingClass = env.enclosingClass;
+      this.packge = env.packge;
+      this.site = site;
+      this.name = name;
+      this.argTypes = argTypes;
+      this.typeParams = typeParams;
+      this.hashCode = Objects.hashCode(enclosingClass, packge, site, name, argTypes, typeParams);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MethodKey)) {
+        return false;
+      }
+      MethodKey other = (MethodKey) obj;
+      return hashCode == other.hashCode
+        && enclosingClass == other.enclosingClass
+        && packge == other.packge
+        && site == other.site
+        && name.equals(other.name)
+        && argTypes.equals(other.argTypes)
+        && typeParams.equals(other.typeParams);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /**
    * Resolution holds the symbol resolved and its type in this context.
    * This is required to handle type substitution for generics.
@@ -52,10 +52,15 @@ public class Scope {
 
   public List<JavaSymbol> lookup(String name) {
     Scope scope = this;
-    while (scope != null && !scope.symbols.containsKey(name)) {
+    while (scope != null) {
+      // single hash lookup per scope, values of a list multimap are lists
+      List<JavaSymbol> found = (List<JavaSymbol>) scope.symbols.asMap().get(name);
+      if (found != null) {
+        return found;
+      }
       scope = scope.next;
     }
-    return scope == null ? ImmutableList.<JavaSymbol>of() : scope.symbols.get(name);
+    return ImmutableList.of();
   }
 
   public Collection<JavaSymbol> scopeSymbols() {
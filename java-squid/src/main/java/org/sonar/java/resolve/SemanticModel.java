@@ -54,7 +54,18 @@ public class SemanticModel {
 
   public static SemanticModel createFor(CompilationUnitTree tree, List<File> projectClasspath) {
     ParametrizedTypeCache parametrizedTypeCache = new ParametrizedTypeCache();
-    BytecodeCompleter bytecodeCompleter = new BytecodeCompleter(projectClasspath, parametrizedTypeCache);
+    return createFor(tree, new BytecodeCompleter(projectClasspath, parametrizedTypeCache), parametrizedTypeCache);
+  }
+
+  /**
+   * @param classFileCache class files of the project classpath, shared by all the files of the analysis
+   */
+  public static SemanticModel createFor(CompilationUnitTree tree, ClassFileCache classFileCache) {
+    ParametrizedTypeCache parametrizedTypeCache = new ParametrizedTypeCache();
+    return createFor(tree, new BytecodeCompleter(classFileCache, parametrizedTypeCache), parametrizedTypeCache);
+  }
+
+  private static SemanticModel createFor(CompilationUnitTree tree, BytecodeCompleter bytecodeCompleter, ParametrizedTypeCache parametrizedTypeCache) {
     Symbols symbols = new Symbols(bytecodeCompleter);
     SemanticModel semanticModel = new SemanticModel();
     semanticModel.bytecodeCompleter = bytecodeCompleter;
@@ -19,16 +19,46 @@
  */
 package org.sonar.java.resolve;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import javax.annotation.CheckForNull;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Ordered substitution of type variables.
+ * Accessors return read-only views, and the hash code is maintained as substitutions are added,
+ * so that lookups of parametrized types do not allocate. A substitution must not be modified once it has been used
+ * to get a parametrized type from {@link ParametrizedTypeCache}.
+ */
 public class TypeSubstitution {
-  private Map<JavaType.TypeVariableJavaType, JavaType> substitutions = Maps.newLinkedHashMap();
+
+  private static final Function<Map.Entry<JavaType.TypeVariableJavaType, JavaType>, JavaType.TypeVariableJavaType> TYPE_VARIABLE =
+    new Function<Map.Entry<JavaType.TypeVariableJavaType, JavaType>, JavaType.TypeVariableJavaType>() {
+      @Override
+      public JavaType.TypeVariableJavaType apply(Map.Entry<JavaType.TypeVariableJavaType, JavaType> entry) {
+        return entry.getKey();
+      }
+    };
+
+  private static final Function<Map.Entry<JavaType.TypeVariableJavaType, JavaType>, JavaType> SUBSTITUTED_TYPE =
+    new Function<Map.Entry<JavaType.TypeVariableJavaType, JavaType>, JavaType>() {
+      @Override
+      public JavaType apply(Map.Entry<JavaType.TypeVariableJavaType, JavaType> entry) {
+        return entry.getValue();
+      }
+    };
+
+  private final Map<JavaType.TypeVariableJavaType, JavaType> substitutions = Maps.newHashMap();
+  /**
+   * Substitutions in order of addition.
+   */
+  private final List<Map.Entry<JavaType.TypeVariableJavaType, JavaType>> entries = Lists.newArrayList();
+  private int hashCode = 1;
 
   @CheckForNull
   public JavaType substitutedType(JavaType javaType) {
@@ -36,24 +66,33 @@ public class TypeSubstitution {
   }
 
   public List<JavaType.TypeVariableJavaType> typeVariables() {
-    return Lists.newArrayList(substitutions.keySet());
+    return Collections.unmodifiableList(Lists.transform(entries, TYPE_VARIABLE));
   }
 
   public List<Map.Entry<JavaType.TypeVariableJavaType, JavaType>> substitutionEntries() {
-    return Lists.newArrayList(substitutions.entrySet());
+    return Collections.unmodifiableList(entries);
   }
 
   public List<JavaType> substitutedTypes() {
-    return Lists.newArrayList(substitutions.values());
+    return Collections.unmodifiableList(Lists.transform(entries, SUBSTITUTED_TYPE));
   }
 
   public TypeSubstitution add(JavaType.TypeVariableJavaType typeVariableType, JavaType javaType) {
+    Map.Entry<JavaType.TypeVariableJavaType, JavaType> entry = Maps.immutableEntry(typeVariableType, javaType);
+    if (substitutions.containsKey(typeVariableType)) {
+      // substitution is replaced in place, as in a LinkedHashMap
+      entries.set(entries.indexOf(Maps.immutableEntry(typeVariableType, substitutions.get(typeVariableType))), entry);
+      hashCode = entries.hashCode();
+    } else {
+      entries.add(entry);
+      hashCode = 31 * hashCode + entry.hashCode();
+    }
     substitutions.put(typeVariableType, javaType);
     return this;
   }
 
   public int size() {
-    return substitutions.size();
+    return entries.size();
   }
 
   @Override
@@ -66,13 +105,12 @@ public class TypeSubstitution {
       TypeSubstitution newSubstitution = (TypeSubstitution) obj;
 
       // take order of entries into account
-      return substitutions.equals(newSubstitution.substitutions)
-        && this.substitutionEntries().equals(newSubstitution.substitutionEntries());
+      return hashCode == newSubstitution.hashCode && entries.equals(newSubstitution.entries);
     }
   }
 
   @Override
   public int hashCode() {
-    return this.substitutionEntries().hashCode();
+    return hashCode;
   }
 }
@@ -19,10 +19,6 @@
  */
 package org.sonar.java.resolve;
 
-import com.google.common.collect.Sets;
-
-import java.util.Set;
-
 public class Types {
 
   /**
@@ -65,12 +61,7 @@ public class Types {
           }
 
           //FIXME work on erased types while generics method is not implemented/read from bytecode.
-          Set<JavaType> erasedTypes = Sets.newHashSet();
-          for (JavaType.ClassJavaType classType : t.getSymbol().superTypes()) {
-            erasedTypes.add(classType.erasure());
-          }
-
-          result = erasedTypes.contains(s);
+          result = t.getSymbol().erasedSuperTypes().contains(s);
           break;
         case JavaType.BOT:
           result = s.tag == JavaType.BOT || s.tag == JavaType.CLASS || s.tag == JavaType.ARRAY;
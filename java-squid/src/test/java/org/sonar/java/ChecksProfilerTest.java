@@ -0,0 +1,155 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ChecksProfilerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void key_is_rule_key_or_class_name() {
+    assertThat(ChecksProfiler.key(new ProfiledCheck())).isEqualTo("S42");
+    assertThat(ChecksProfiler.key(new ClassVisitor())).isEqualTo("ClassVisitor");
+  }
+
+  @Test
+  public void cpu_time_measurement_is_restored_when_closed() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadBean.isCurrentThreadCpuTimeSupported());
+    boolean enabled = threadBean.isThreadCpuTimeEnabled();
+    try {
+      threadBean.setThreadCpuTimeEnabled(false);
+      ChecksProfiler profiler = new ChecksProfiler();
+      assertThat(threadBean.isThreadCpuTimeEnabled()).isTrue();
+      profiler.close();
+      assertThat(threadBean.isThreadCpuTimeEnabled()).isFalse();
+
+      threadBean.setThreadCpuTimeEnabled(true);
+      new ChecksProfiler().close();
+      assertThat(threadBean.isThreadCpuTimeEnabled()).isTrue();
+    } finally {
+      threadBean.setThreadCpuTimeEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void stats_are_sorted_by_cpu_time() throws Exception {
+    ChecksProfiler profiler = new ChecksProfiler();
+    ProfiledCheck check = new ProfiledCheck();
+    ClassVisitor visitor = new ClassVisitor();
+    for (int i = 0; i < 7; i++) {
+      profiler.start();
+      busy(10);
+      profiler.stop(check, "file" + i);
+    }
+    profiler.start();
+    profiler.stop(visitor, null);
+
+    List<ChecksProfiler.Stats> stats = profiler.getStats();
+    assertThat(stats).hasSize(2);
+    assertThat(stats.get(0).key).isEqualTo("S42");
+    assertThat(stats.get(0).calls).isEqualTo(7);
+    assertThat(stats.get(0).wallNanos).isGreaterThan(stats.get(1).wallNanos);
+    assertThat(stats.get(0).slowestFiles).hasSize(5);
+    long previous = Long.MAX_VALUE;
+    for (ChecksProfiler.FileTime fileTime : stats.get(0).slowestFiles) {
+      assertThat(fileTime.wallNanos).isLessThanOrEqualTo(previous);
+      previous = fileTime.wallNanos;
+    }
+    assertThat(stats.get(1).key).isEqualTo("ClassVisitor");
+    assertThat(stats.get(1).slowestFiles).isEmpty();
+  }
+
+  @Test
+  public void visitors_are_profiled_separately() throws Exception {
+    File file = temp.newFile("A.java");
+    FileUtils.write(file, "class A { void foo() {} }", Charsets.UTF_8);
+    ChecksProfiler profiler = new ChecksProfiler();
+    VisitorsBridge visitorsBridge = new VisitorsBridge(Lists.newArrayList(new ProfiledCheck(), new ClassVisitor()), Lists.<File>newArrayList(), null);
+    visitorsBridge.setProfiler(profiler);
+    JavaAstScanner.scanSingleFile(file, visitorsBridge);
+
+    List<String> keys = Lists.newArrayList();
+    for (ChecksProfiler.Stats stats : profiler.getStats()) {
+      keys.add(stats.key);
+      assertThat(stats.calls).isEqualTo(1);
+      assertThat(stats.slowestFiles.get(0).path).isEqualTo(file.getPath());
+    }
+    assertThat(keys).containsOnly("S42", "ClassVisitor", "SemanticModel");
+  }
+
+  @Test
+  public void report_is_written_as_json() throws Exception {
+    ChecksProfiler profiler = new ChecksProfiler();
+    profiler.start();
+    profiler.stop(new ProfiledCheck(), "src/\"quoted\"\\A.java");
+    profiler.log(10);
+    File report = new File(temp.getRoot(), "report/profiling.json");
+    profiler.save(report);
+
+    String json = FileUtils.readFileToString(report, Charsets.UTF_8);
+    assertThat(json).startsWith("[{\"key\":\"S42\",\"calls\":1,\"cpuMs\":");
+    assertThat(json).contains(",\"slowestFiles\":[{\"path\":\"src/\\\"quoted\\\"\\\\A.java\",\"wallMs\":");
+    assertThat(json.trim()).endsWith("}]}]");
+  }
+
+  private static void busy(long millis) {
+    long end = System.nanoTime() + millis * 1000000L;
+    while (System.nanoTime() < end) {
+      // active wait, so that CPU time is spent
+    }
+  }
+
+  @org.sonar.check.Rule(key = "S42")
+  private static class ProfiledCheck extends SubscriptionVisitor {
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return ImmutableList.of(Tree.Kind.METHOD);
+    }
+  }
+
+  private static class ClassVisitor extends SubscriptionVisitor {
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return ImmutableList.of(Tree.Kind.CLASS);
+    }
+  }
+
+}
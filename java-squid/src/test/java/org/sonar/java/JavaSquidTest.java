@@ -0,0 +1,90 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.java.ast.visitors.ParallelMethodAnalysis;
+import org.sonar.plugins.java.api.JavaResourceLocator;
+import org.sonar.squidbridge.api.CodeVisitor;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+public class JavaSquidTest {
+
+  @Test
+  public void method_analysis_pool_only_lives_during_scan() {
+    JavaConfiguration conf = new JavaConfiguration(Charsets.UTF_8);
+    conf.setMethodAnalysisThreads(2);
+    CodeVisitor visitor = mock(CodeVisitor.class, withSettings().extraInterfaces(ParallelMethodAnalysis.class));
+    final ParallelMethodAnalysis parallelMethodAnalysis = (ParallelMethodAnalysis) visitor;
+    JavaSquid squid = new JavaSquid(conf, mock(JavaResourceLocator.class), visitor);
+    verify(parallelMethodAnalysis, never()).setMethodAnalysisPool(any(ForkJoinPool.class));
+
+    ArgumentCaptor<ForkJoinPool> pools = ArgumentCaptor.forClass(ForkJoinPool.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ForkJoinPool pool = (ForkJoinPool) invocation.getArguments()[0];
+        if (pool != null) {
+          assertThat(pool.getParallelism()).isEqualTo(2);
+          assertThat(pool.isShutdown()).isFalse();
+        }
+        return null;
+      }
+    }).when(parallelMethodAnalysis).setMethodAnalysisPool(any(ForkJoinPool.class));
+    squid.scan(Collections.singletonList(new File("src/test/files/metrics/Methods.java")), Collections.<File>emptyList(), Collections.<File>emptyList());
+
+    verify(parallelMethodAnalysis, times(2)).setMethodAnalysisPool(pools.capture());
+    assertThat(pools.getAllValues().get(0).isShutdown()).isTrue();
+    assertThat(pools.getAllValues().get(1)).isNull();
+  }
+
+  @Test
+  public void methods_are_analyzed_on_visiting_thread_when_checks_are_profiled() {
+    JavaConfiguration conf = new JavaConfiguration(Charsets.UTF_8);
+    conf.setMethodAnalysisThreads(2);
+    conf.setChecksProfiler(new ChecksProfiler());
+    CodeVisitor visitor = mock(CodeVisitor.class, withSettings().extraInterfaces(ParallelMethodAnalysis.class));
+    JavaSquid squid = new JavaSquid(conf, mock(JavaResourceLocator.class), visitor);
+
+    squid.scan(Collections.singletonList(new File("src/test/files/metrics/Methods.java")), Collections.<File>emptyList(), Collections.<File>emptyList());
+    conf.getChecksProfiler().close();
+
+    ArgumentCaptor<ForkJoinPool> pools = ArgumentCaptor.forClass(ForkJoinPool.class);
+    verify((ParallelMethodAnalysis) visitor, times(2)).setMethodAnalysisPool(pools.capture());
+    assertThat(pools.getAllValues()).containsOnly((ForkJoinPool) null);
+  }
+
+}
@@ -20,7 +20,10 @@
 package org.sonar.java.ast;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.sonar.sslr.impl.Parser;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.RecognitionException;
 import org.hamcrest.BaseMatcher;
@@ -38,8 +41,11 @@ import org.sonar.sslr.parser.LexerlessGrammar;
 import org.sonar.sslr.parser.ParserAdapter;
 
 import java.io.File;
+import java.util.List;
 
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class AstScannerTest {
@@ -118,6 +124,58 @@ public class AstScannerTest {
     scanner.scan(ImmutableList.of(new File("src/test/resources/AstScannerNoParseError.txt")));
   }
 
+  @Test
+  public void parallel_parsing_should_notify_audit_listeners_upon_parse_error() {
+    FakeAuditListener listener = spy(new FakeAuditListener());
+
+    AstScanner scanner = new AstScanner(createParser());
+    scanner.setParsingThreads(2, new FakeParserSupplier());
+    scanner.withSquidAstVisitor(listener);
+
+    File parseError = new File("src/test/resources/AstScannerParseError.txt");
+    scanner.scan(ImmutableList.of(parseError, new File("src/test/resources/AstScannerNoParseError.txt"), parseError));
+    verify(listener, times(2)).processRecognitionException(Mockito.any(RecognitionException.class));
+  }
+
+  @Test
+  public void parallel_parsing_should_visit_files_in_order() {
+    final List<File> visitedFiles = Lists.newArrayList();
+    AstScanner scanner = new AstScanner(createParser());
+    scanner.setParsingThreads(3, new FakeParserSupplier());
+    scanner.withSquidAstVisitor(new SquidAstVisitor<LexerlessGrammar>() {
+      @Override
+      public void visitFile(AstNode node) {
+        visitedFiles.add(getContext().getFile());
+      }
+    });
+
+    List<File> files = Lists.newArrayList();
+    for (int i = 0; i < 20; i++) {
+      files.add(new File("src/test/resources/AstScanner" + (i % 3 == 0 ? "ParseError" : "NoParseError") + ".txt"));
+    }
+    scanner.scan(files);
+    assertThat(visitedFiles).isEqualTo(files);
+  }
+
+  @Test
+  public void parallel_parsing_requires_parser_supplier() {
+    thrown.expect(IllegalArgumentException.class);
+    new AstScanner(createParser()).setParsingThreads(2, null);
+  }
+
+  private static Parser<LexerlessGrammar> createParser() {
+    return new ParserAdapter<LexerlessGrammar>(Charsets.UTF_8, FakeGrammar.builder().build());
+  }
+
+  private static class FakeParserSupplier implements Supplier<Parser<LexerlessGrammar>> {
+
+    @Override
+    public Parser<LexerlessGrammar> get() {
+      return createParser();
+    }
+
+  }
+
   private static class FakeAuditListener extends SquidAstVisitor<LexerlessGrammar> implements AstScannerExceptionHandler {
 
     @Override
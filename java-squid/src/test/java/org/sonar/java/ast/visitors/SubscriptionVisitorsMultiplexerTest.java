@@ -0,0 +1,111 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.ast.visitors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.sonar.java.JavaAstScanner;
+import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SubscriptionVisitorsMultiplexerTest {
+
+  private static final File FILE = new File("src/test/files/metrics/Comments.java");
+
+  @Test
+  public void multiplexed_visitors_are_notified_as_standalone_ones() {
+    RecordingVisitor methods = new RecordingVisitor(ImmutableList.of(Tree.Kind.METHOD, Tree.Kind.CLASS));
+    RecordingVisitor trivias = new RecordingVisitor(ImmutableList.of(Tree.Kind.TRIVIA, Tree.Kind.CLASS));
+    JavaAstScanner.scanSingleFile(FILE, new VisitorsBridge(Arrays.asList(methods, trivias), Lists.<File>newArrayList(), null));
+
+    RecordingVisitor standaloneMethods = new StandaloneRecordingVisitor(ImmutableList.of(Tree.Kind.METHOD, Tree.Kind.CLASS));
+    RecordingVisitor standaloneTrivias = new StandaloneRecordingVisitor(ImmutableList.of(Tree.Kind.TRIVIA, Tree.Kind.CLASS));
+    JavaAstScanner.scanSingleFile(FILE, new VisitorsBridge(Arrays.asList(standaloneMethods, standaloneTrivias), Lists.<File>newArrayList(), null));
+
+    assertThat(methods.events).isNotEmpty().isEqualTo(standaloneMethods.events);
+    assertThat(trivias.events).contains("trivia").isEqualTo(standaloneTrivias.events);
+  }
+
+  @Test
+  public void visitors_overriding_scan_cannot_be_multiplexed() {
+    assertThat(SubscriptionVisitorsMultiplexer.canBeMultiplexed(new RecordingVisitor(ImmutableList.of(Tree.Kind.CLASS)))).isTrue();
+    assertThat(SubscriptionVisitorsMultiplexer.canBeMultiplexed(new StandaloneRecordingVisitor(ImmutableList.of(Tree.Kind.CLASS)))).isFalse();
+    assertThat(SubscriptionVisitorsMultiplexer.canBeMultiplexed(new FileLinesVisitor(null, null))).isFalse();
+  }
+
+  private static class RecordingVisitor extends SubscriptionVisitor {
+
+    private final List<Tree.Kind> kinds;
+    private final List<String> events = Lists.newArrayList();
+
+    RecordingVisitor(List<Tree.Kind> kinds) {
+      this.kinds = kinds;
+    }
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return kinds;
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      events.add("visit " + ((JavaTree) tree).getKind());
+    }
+
+    @Override
+    public void leaveNode(Tree tree) {
+      events.add("leave " + ((JavaTree) tree).getKind());
+    }
+
+    @Override
+    public void visitToken(SyntaxToken syntaxToken) {
+      events.add("token " + syntaxToken.text());
+    }
+
+    @Override
+    public void visitTrivia(SyntaxTrivia syntaxTrivia) {
+      events.add("trivia");
+    }
+  }
+
+  private static class StandaloneRecordingVisitor extends RecordingVisitor {
+
+    StandaloneRecordingVisitor(List<Tree.Kind> kinds) {
+      super(kinds);
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      super.scanFile(context);
+    }
+  }
+
+}
@@ -29,9 +29,13 @@ import org.sonar.java.bytecode.visitor.BytecodeVisitor;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 import org.sonar.squidbridge.indexer.SquidIndex;
 
+import java.util.List;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BytecodeScannerTest {
@@ -55,6 +59,24 @@ public class BytecodeScannerTest {
 
   }
 
+  @Test
+  public void classes_are_preloaded_when_parsed_on_several_threads() throws Exception {
+    AsmClassProvider asmProvider = mock(AsmClassProvider.class);
+    when(asmProvider.getClass(anyString(), any(AsmClassProvider.DETAIL_LEVEL.class))).thenReturn(new AsmClass("com/pack/MyClass"));
+    BytecodeScanner bytecodeScanner = new BytecodeScanner(null, null);
+    bytecodeScanner.setParsingThreads(2);
+    List<String> classNames = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      classNames.add("com/pack/MyClass" + i);
+    }
+    bytecodeScanner.scanClasses(classNames, asmProvider);
+
+    for (String className : classNames) {
+      verify(asmProvider).preload(className);
+      verify(asmProvider, atLeastOnce()).getClass(className, AsmClassProvider.DETAIL_LEVEL.STRUCTURE_AND_CALLS);
+    }
+  }
+
   private static class Visitor extends BytecodeVisitor {
     @Override
     public void visitClass(AsmClass asmClass) {
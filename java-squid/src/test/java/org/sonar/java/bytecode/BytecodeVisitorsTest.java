@@ -68,27 +68,8 @@ public class BytecodeVisitorsTest {
 
   @BeforeClass
   public static void setup() {
-    JavaConfiguration conf = new JavaConfiguration(Charset.forName("UTF-8"));
-    Project project = mock(Project.class);
-    ProjectFileSystem pfs = mock(ProjectFileSystem.class);
-    File baseDir = new File("src/test/files/bytecode/src");
-    when(project.getFileSystem()).thenReturn(pfs);
-    when(pfs.getBasedir()).thenReturn(baseDir);
-    SensorContext sensorContext = mock(SensorContext.class);
-    when(sensorContext.getResource(Matchers.any(org.sonar.api.resources.File.class))).thenAnswer(new Answer<org.sonar.api.resources.File>() {
-      @Override
-      public org.sonar.api.resources.File answer(InvocationOnMock invocation) throws Throwable {
-        org.sonar.api.resources.File response = (org.sonar.api.resources.File) invocation.getArguments()[0];
-        response.setEffectiveKey("");
-        return response;
-      }
-    });
-    DefaultJavaResourceLocator javaResourceLocator = new DefaultJavaResourceLocator(project, null, new SuppressWarningsFilter());
-    javaResourceLocator.setSensorContext(sensorContext);
-    JavaSquid squid = new JavaSquid(conf, javaResourceLocator);
-    Collection<File> files = FileUtils.listFiles(baseDir, new String[] {"java"}, true);
-    File binDir = new File("src/test/files/bytecode/bin");
-    squid.scan(files, Collections.<File>emptyList(), Collections.singleton(binDir));
+    DefaultJavaResourceLocator javaResourceLocator = newResourceLocator();
+    JavaSquid squid = scan(new JavaConfiguration(Charset.forName("UTF-8")), javaResourceLocator);
     graph = squid.getGraph();
     resourceMapping = javaResourceLocator.getResourceMapping();
     tag = findResource("tags/Tag.java");
@@ -187,6 +168,49 @@ public class BytecodeVisitorsTest {
     assertThat(graph.getEdge(sourceFile, tagException).getUsage()).isEqualTo("USES");
   }
 
+  @Test
+  public void same_dependencies_when_bytecode_is_parsed_on_several_threads() {
+    JavaConfiguration conf = new JavaConfiguration(Charset.forName("UTF-8"));
+    conf.setAnalysisThreads(3);
+    DirectedGraph<Resource, Dependency> parallelGraph = scan(conf, newResourceLocator()).getGraph();
+
+    assertThat(parallelGraph.getVertices()).isEqualTo(graph.getVertices());
+    for (Resource resource : graph.getVertices()) {
+      Collection<Dependency> dependencies = graph.getOutgoingEdges(resource);
+      assertThat(parallelGraph.getOutgoingEdges(resource)).hasSize(dependencies.size());
+      for (Dependency dependency : dependencies) {
+        assertThat(parallelGraph.getEdge(dependency.getFrom(), dependency.getTo()).getWeight()).isEqualTo(dependency.getWeight());
+      }
+    }
+  }
+
+  private static DefaultJavaResourceLocator newResourceLocator() {
+    Project project = mock(Project.class);
+    ProjectFileSystem pfs = mock(ProjectFileSystem.class);
+    when(project.getFileSystem()).thenReturn(pfs);
+    when(pfs.getBasedir()).thenReturn(new File("src/test/files/bytecode/src"));
+    SensorContext sensorContext = mock(SensorContext.class);
+    when(sensorContext.getResource(Matchers.any(org.sonar.api.resources.File.class))).thenAnswer(new Answer<org.sonar.api.resources.File>() {
+      @Override
+      public org.sonar.api.resources.File answer(InvocationOnMock invocation) throws Throwable {
+        org.sonar.api.resources.File response = (org.sonar.api.resources.File) invocation.getArguments()[0];
+        response.setEffectiveKey("");
+        return response;
+      }
+    });
+    DefaultJavaResourceLocator javaResourceLocator = new DefaultJavaResourceLocator(project, null, new SuppressWarningsFilter());
+    javaResourceLocator.setSensorContext(sensorContext);
+    return javaResourceLocator;
+  }
+
+  private static JavaSquid scan(JavaConfiguration conf, DefaultJavaResourceLocator javaResourceLocator) {
+    JavaSquid squid = new JavaSquid(conf, javaResourceLocator);
+    Collection<File> files = FileUtils.listFiles(new File("src/test/files/bytecode/src"), new String[] {"java"}, true);
+    File binDir = new File("src/test/files/bytecode/bin");
+    squid.scan(files, Collections.<File>emptyList(), Collections.singleton(binDir));
+    return squid;
+  }
+
   private static Resource findResource(String resource) {
     Set<Resource> directories = resourceMapping.directories();
     for (Resource directory : directories) {
@@ -93,6 +93,25 @@ public class AsmClassProviderImplTest {
     assertThat(parseIntMethod.getThrows()).hasSize(1);
   }
 
+  @Test
+  public void preloaded_class_is_loaded_as_when_read() {
+    AsmClassProviderImpl preloadingProvider = new AsmClassProviderImpl();
+    preloadingProvider.preload("java/lang/Integer");
+    preloadingProvider.preload("java/lang/UnknownClass");
+    AsmClass preloaded = preloadingProvider.getClass("java/lang/Integer");
+    AsmClass read = asmClassProviderImpl.getClass("java/lang/Integer");
+
+    assertThat(preloaded.getSuperClass().getInternalName()).isEqualTo("java/lang/Number");
+    assertThat(preloaded.getInterfaces()).isEqualTo(read.getInterfaces());
+    assertThat(preloaded.getMethods()).hasSize(read.getMethods().size());
+    for (AsmMethod method : read.getMethods()) {
+      AsmMethod preloadedMethod = preloaded.getMethod(method.getKey());
+      assertThat(preloadedMethod.getOutgoingEdges()).hasSize(method.getOutgoingEdges().size());
+      assertThat(preloadedMethod.isEmpty()).isEqualTo(method.isEmpty());
+    }
+    assertThat(preloadingProvider.getClass("java/lang/UnknownClass").getSuperClass()).isNull();
+  }
+
   private static AsmMethod getParseIntMethod(Collection<AsmMethod> methods) {
     for (AsmMethod method : methods) {
       if ("parseInt(Ljava/lang/String;)I".equals(method.getKey())) {
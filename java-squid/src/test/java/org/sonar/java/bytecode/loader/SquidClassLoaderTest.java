@@ -70,6 +70,17 @@ public class SquidClassLoaderTest {
     classLoader.loadClass("foo.Unknown");
   }
 
+  @Test
+  public void loadBytes() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    classLoader = new SquidClassLoader(Arrays.asList(new File("src/test/files/bytecode/bin/"), jar));
+
+    assertThat(classLoader.loadBytes("org/sonar/tests/Hello.class")).isEqualTo(IOUtils.toByteArray(classLoader.getResourceAsStream("org/sonar/tests/Hello.class")));
+    assertThat(classLoader.loadBytes("tags/TagName.class")).isNotEmpty();
+    assertThat(classLoader.loadBytes("java/lang/Integer.class")).isNotEmpty();
+    assertThat(classLoader.loadBytes("foo/Unknown.class")).isNull();
+  }
+
   @Test
   public void unknownJarIsIgnored() throws Exception {
     File jar = new File("src/test/files/bytecode/lib/unknown.jar");
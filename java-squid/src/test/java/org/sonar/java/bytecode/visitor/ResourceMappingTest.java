@@ -0,0 +1,61 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.bytecode.visitor;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Directory;
+import org.sonar.api.resources.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ResourceMappingTest {
+
+  private final ResourceMapping resourceMapping = new ResourceMapping();
+
+  @Test
+  public void sub_dependencies_are_added_once_and_kept_in_insertion_order() {
+    Dependency parent = new Dependency(new Directory("p1"), new Directory("p2"));
+    Dependency first = fileDependency("p1", "A.java", "p2", "B.java");
+    Dependency second = fileDependency("p1", "C.java", "p2", "B.java");
+
+    assertThat(resourceMapping.addSubDependency(parent, second)).isTrue();
+    assertThat(resourceMapping.addSubDependency(parent, first)).isTrue();
+    assertThat(resourceMapping.addSubDependency(parent, fileDependency("p1", "C.java", "p2", "B.java"))).isFalse();
+
+    assertThat(Lists.newArrayList(resourceMapping.getSubDependencies(parent))).containsExactly(second, first);
+  }
+
+  @Test
+  public void sub_dependencies_are_found_by_equal_parents() {
+    Dependency parent = new Dependency(new Directory("p1"), new Directory("p2"));
+    resourceMapping.addSubDependency(parent, fileDependency("p1", "A.java", "p2", "B.java"));
+
+    assertThat(resourceMapping.getSubDependencies(parent)).hasSize(1);
+    assertThat(resourceMapping.getSubDependencies(new Dependency(new Directory("p1"), new Directory("p2")))).hasSize(1);
+    assertThat(resourceMapping.getSubDependencies(new Dependency(new Directory("p2"), new Directory("p1")))).isEmpty();
+  }
+
+  private static Dependency fileDependency(String fromDirectory, String fromFile, String toDirectory, String toFile) {
+    return new Dependency(new File(fromDirectory, fromFile), new File(toDirectory, toFile));
+  }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.cfg;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.model.JavaTree;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CFGTest {
+
+  @Test
+  public void sequence() {
+    CFG cfg = buildCFG("int i = 0; i++; foo(i);");
+    assertThat(cfg.blocks()).hasSize(2);
+    assertThat(kinds(cfg.entry())).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.POSTFIX_INCREMENT, Tree.Kind.METHOD_INVOCATION);
+    assertThat(cfg.entry().successors()).containsOnly(cfg.exit());
+    assertThat(cfg.entry().id()).isEqualTo(0);
+    assertThat(cfg.exit().id()).isEqualTo(1);
+    assertThat(cfg.exit().predecessors()).containsOnly(cfg.entry());
+    assertThat(cfg.toString()).isEqualTo("B0 3 elements -> B1\nB1 0 elements\n");
+  }
+
+  @Test
+  public void empty_method() {
+    CFG cfg = CFG.build(method("abstract class A { abstract void foo(); }"));
+    assertThat(cfg.entry().elements()).isEmpty();
+    assertThat(cfg.entry().successors()).containsOnly(cfg.exit());
+  }
+
+  @Test
+  public void if_statement() {
+    CFG cfg = buildCFG("foo(); if (a) { bar(); } else { baz(); } qux();");
+    CFG.Block entry = cfg.entry();
+    assertThat(kinds(entry)).containsExactly(Tree.Kind.METHOD_INVOCATION, Tree.Kind.IDENTIFIER);
+    assertThat(entry.terminator().is(Tree.Kind.IF_STATEMENT)).isTrue();
+    CFG.Block thenBlock = entry.trueSuccessor();
+    CFG.Block elseBlock = entry.falseSuccessor();
+    assertThat(new ArrayList<>(entry.successors())).containsExactly(thenBlock, elseBlock);
+    assertThat(thenBlock.elements()).hasSize(1);
+    assertThat(elseBlock.elements()).hasSize(1);
+    CFG.Block next = single(thenBlock.successors());
+    assertThat(elseBlock.successors()).containsOnly(next);
+    assertThat(next.predecessors()).containsOnly(thenBlock, elseBlock);
+    assertThat(next.elements()).hasSize(1);
+    assertThat(next.successors()).containsOnly(cfg.exit());
+  }
+
+  @Test
+  public void if_statement_without_else() {
+    CFG cfg = buildCFG("if (a) { bar(); } qux();");
+    CFG.Block next = single(cfg.entry().trueSuccessor().successors());
+    assertThat(cfg.entry().falseSuccessor()).isSameAs(next);
+  }
+
+  @Test
+  public void while_statement() {
+    CFG cfg = buildCFG("while (a) { if (b) break; if (c) continue; foo(); } bar();");
+    CFG.Block condition = single(cfg.entry().successors());
+    assertThat(condition.terminator().is(Tree.Kind.WHILE_STATEMENT)).isTrue();
+    assertThat(kinds(condition)).containsExactly(Tree.Kind.IDENTIFIER);
+    CFG.Block after = condition.falseSuccessor();
+    assertThat(kinds(after)).containsExactly(Tree.Kind.METHOD_INVOCATION);
+
+    CFG.Block firstIf = condition.trueSuccessor();
+    CFG.Block breakBlock = firstIf.trueSuccessor();
+    assertThat(breakBlock.terminator().is(Tree.Kind.BREAK_STATEMENT)).isTrue();
+    assertThat(breakBlock.successors()).containsOnly(after);
+    CFG.Block secondIf = firstIf.falseSuccessor();
+    CFG.Block continueBlock = secondIf.trueSuccessor();
+    assertThat(continueBlock.terminator().is(Tree.Kind.CONTINUE_STATEMENT)).isTrue();
+    assertThat(continueBlock.successors()).containsOnly(condition);
+    CFG.Block body = secondIf.falseSuccessor();
+    assertThat(kinds(body)).containsExactly(Tree.Kind.METHOD_INVOCATION);
+    assertThat(body.successors()).containsOnly(condition);
+  }
+
+  @Test
+  public void do_while_statement() {
+    CFG cfg = buildCFG("do { foo(); } while (a);");
+    CFG.Block body = single(cfg.entry().successors());
+    CFG.Block condition = single(body.successors());
+    assertThat(condition.terminator().is(Tree.Kind.DO_STATEMENT)).isTrue();
+    assertThat(condition.trueSuccessor()).isSameAs(body);
+    assertThat(condition.falseSuccessor()).isSameAs(cfg.exit());
+  }
+
+  @Test
+  public void for_statement() {
+    CFG cfg = buildCFG("for (int i = 0; i < 10; i++) { if (a) continue; foo(i); }");
+    assertThat(kinds(cfg.entry())).containsExactly(Tree.Kind.VARIABLE);
+    CFG.Block condition = single(cfg.entry().successors());
+    assertThat(kinds(condition)).containsExactly(Tree.Kind.LESS_THAN);
+    assertThat(condition.falseSuccessor()).isSameAs(cfg.exit());
+    CFG.Block ifBlock = condition.trueSuccessor();
+    CFG.Block update = single(ifBlock.falseSuccessor().successors());
+    assertThat(kinds(update)).containsExactly(Tree.Kind.POSTFIX_INCREMENT);
+    assertThat(update.successors()).containsOnly(condition);
+    assertThat(single(ifBlock.trueSuccessor().successors())).isSameAs(update);
+  }
+
+  @Test
+  public void infinite_for_statement() {
+    CFG cfg = buildCFG("for (;;) { foo(); }");
+    CFG.Block condition = single(cfg.entry().successors());
+    assertThat(condition.falseSuccessor()).isNull();
+    assertThat(condition.successors()).hasSize(1);
+    assertThat(cfg.exit().predecessors()).isEmpty();
+  }
+
+  @Test
+  public void for_each_statement() {
+    CFG cfg = buildCFG("for (Object o : list) { foo(o); }");
+    assertThat(kinds(cfg.entry())).containsExactly(Tree.Kind.IDENTIFIER);
+    CFG.Block loop = single(cfg.entry().successors());
+    assertThat(loop.elements()).isEmpty();
+    assertThat(kinds(loop.trueSuccessor())).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.METHOD_INVOCATION);
+    assertThat(loop.falseSuccessor()).isSameAs(cfg.exit());
+  }
+
+  @Test
+  public void labeled_jumps() {
+    CFG cfg = buildCFG("outer: for (;;) { while (a) { if (b) continue outer; break outer; } foo(); } bar();");
+    CFG.Block outerCondition = single(cfg.entry().successors());
+    CFG.Block innerCondition = outerCondition.trueSuccessor();
+    CFG.Block ifBlock = innerCondition.trueSuccessor();
+    assertThat(ifBlock.trueSuccessor().successors()).containsOnly(outerCondition);
+    CFG.Block after = single(ifBlock.falseSuccessor().successors());
+    assertThat(kinds(after)).containsExactly(Tree.Kind.METHOD_INVOCATION);
+    assertThat(after.successors()).containsOnly(cfg.exit());
+  }
+
+  @Test
+  public void switch_statement() {
+    CFG cfg = buildCFG("switch (i) { case 0: foo(); case 1: bar(); break; default: baz(); } qux();");
+    CFG.Block switchBlock = cfg.entry();
+    assertThat(switchBlock.terminator().is(Tree.Kind.SWITCH_STATEMENT)).isTrue();
+    List<CFG.Block> cases = new ArrayList<>(switchBlock.successors());
+    assertThat(cases).hasSize(3);
+    // fall through
+    assertThat(cases.get(0).successors()).containsOnly(cases.get(1));
+    CFG.Block after = single(cases.get(2).successors());
+    assertThat(cases.get(1).terminator().is(Tree.Kind.BREAK_STATEMENT)).isTrue();
+    assertThat(cases.get(1).successors()).containsOnly(after);
+
+    cfg = buildCFG("switch (i) { case 0: foo(); } qux();");
+    assertThat(cfg.entry().successors()).hasSize(2);
+  }
+
+  @Test
+  public void return_and_throw() {
+    CFG cfg = buildCFG("if (a) return b; if (c) throw new Exception(); foo();");
+    CFG.Block returnBlock = cfg.entry().trueSuccessor();
+    assertThat(returnBlock.terminator().is(Tree.Kind.RETURN_STATEMENT)).isTrue();
+    assertThat(kinds(returnBlock)).containsExactly(Tree.Kind.IDENTIFIER);
+    assertThat(returnBlock.successors()).containsOnly(cfg.exit());
+    CFG.Block throwBlock = cfg.entry().falseSuccessor().trueSuccessor();
+    assertThat(kinds(throwBlock)).containsExactly(Tree.Kind.NEW_CLASS);
+    assertThat(throwBlock.successors()).containsOnly(cfg.exit());
+  }
+
+  @Test
+  public void try_catch_finally() {
+    CFG cfg = buildCFG("foo(); try { if (a) return; bar(); } catch (Exception e) { baz(); } finally { qux(); } end();");
+    CFG.Block beforeTry = cfg.entry();
+    assertThat(beforeTry.exceptions()).isEmpty();
+    CFG.Block body = single(beforeTry.successors());
+    assertThat(body.exceptions()).hasSize(2);
+    List<CFG.Block> handlers = new ArrayList<>(body.exceptions());
+    CFG.Block catchBlock = handlers.get(0);
+    CFG.Block finallyBlock = handlers.get(1);
+    assertThat(kinds(catchBlock)).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.METHOD_INVOCATION);
+    assertThat(catchBlock.successors()).containsOnly(finallyBlock);
+    assertThat(catchBlock.exceptions()).containsOnly(finallyBlock);
+    assertThat(kinds(finallyBlock)).containsExactly(Tree.Kind.METHOD_INVOCATION);
+
+    // return goes through the finally block, which can then return, complete normally or throw again
+    CFG.Block returnBlock = body.trueSuccessor();
+    assertThat(returnBlock.successors()).containsOnly(finallyBlock);
+    CFG.Block after = single(body.falseSuccessor().successors());
+    assertThat(after).isSameAs(finallyBlock);
+    assertThat(finallyBlock.successors()).hasSize(2).contains(cfg.exit());
+    assertThat(finallyBlock.exceptions()).isEmpty();
+  }
+
+  @Test
+  public void nested_try_and_throw() {
+    CFG cfg = buildCFG("try { try { throw new A(); } catch (A a) { foo(); } } catch (B b) { bar(); }");
+    CFG.Block throwBlock = single(cfg.entry().successors());
+    assertThat(throwBlock.terminator().is(Tree.Kind.THROW_STATEMENT)).isTrue();
+    List<CFG.Block> targets = new ArrayList<>(throwBlock.successors());
+    assertThat(targets).hasSize(3);
+    assertThat(kinds(targets.get(0))).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.METHOD_INVOCATION);
+    assertThat(kinds(targets.get(1))).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.METHOD_INVOCATION);
+    assertThat(targets.get(2)).isSameAs(cfg.exit());
+  }
+
+  @Test
+  public void try_with_resources_and_synchronized() {
+    CFG cfg = buildCFG("try (Closeable c = open()) { synchronized (lock) { foo(c); } }");
+    CFG.Block body = single(cfg.entry().successors());
+    assertThat(kinds(body)).containsExactly(Tree.Kind.VARIABLE, Tree.Kind.IDENTIFIER, Tree.Kind.METHOD_INVOCATION);
+    assertThat(body.exceptions()).containsOnly(cfg.exit());
+  }
+
+  @Test
+  public void cfg_is_built_once_per_method() {
+    MethodTree method = method("class A { void foo() { bar(); } }");
+    assertThat(CFG.of(method)).isSameAs(CFG.of(method));
+  }
+
+  private static CFG buildCFG(String body) {
+    return CFG.build(method("class A { void foo() { " + body + " } }"));
+  }
+
+  private static MethodTree method(String source) {
+    CompilationUnitTree compilationUnit = (CompilationUnitTree) JavaParser.createParser(Charsets.UTF_8).parse(source);
+    return (MethodTree) ((ClassTree) compilationUnit.types().get(0)).members().get(0);
+  }
+
+  private static List<Tree.Kind> kinds(CFG.Block block) {
+    List<Tree.Kind> kinds = new ArrayList<>();
+    for (Tree tree : block.elements()) {
+      kinds.add(((JavaTree) tree).getKind());
+    }
+    return kinds;
+  }
+
+  private static CFG.Block single(Iterable<CFG.Block> blocks) {
+    List<CFG.Block> list = new ArrayList<>();
+    for (CFG.Block block : blocks) {
+      list.add(block);
+    }
+    assertThat(list).hasSize(1);
+    return list.get(0);
+  }
+
+}
@@ -29,6 +29,7 @@ import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.StatementTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.List;
@@ -71,6 +72,43 @@ public class SyntacticEquivalenceTest {
     assertAreNotEquivalent("foo(qix->0)", "foo(bar->0)");
   }
 
+  @Test
+  public void equivalent_trees_have_the_same_hash() {
+    List<StatementTree> statements1 = statements("foo(a, b + 1); int c = 2; bar(x -> x * 2);");
+    List<StatementTree> statements2 = statements("foo(a, b + 1); int c = 2; bar(x -> x * 2);");
+    assertThat(SyntacticEquivalence.hash(statements1)).isEqualTo(SyntacticEquivalence.hash(statements2));
+    for (int i = 0; i < statements1.size(); i++) {
+      assertThat(SyntacticEquivalence.hash(statements1.get(i))).isEqualTo(SyntacticEquivalence.hash(statements2.get(i)));
+    }
+    assertThat(SyntacticEquivalence.hash((Tree) null)).isEqualTo(0);
+  }
+
+  @Test
+  public void hash_is_computed_once_per_node() {
+    List<StatementTree> statements = statements("foo(a, b + 1);");
+    JavaTree statement = (JavaTree) statements.get(0);
+    assertThat(statement.syntacticHash).isEqualTo(0);
+    int hash = SyntacticEquivalence.hash(statement);
+    assertThat(statement.syntacticHash).isEqualTo(hash);
+    assertThat(hash).isNotEqualTo(0);
+    assertThat(SyntacticEquivalence.hash(statement)).isEqualTo(hash);
+  }
+
+  @Test
+  public void different_trees_have_different_hashes() {
+    List<StatementTree> statements = statements("foo(a, b); foo(b, a); foo(a + b); foo(a - b); bar(a, b);");
+    for (int i = 0; i < statements.size(); i++) {
+      for (int j = i + 1; j < statements.size(); j++) {
+        assertThat(SyntacticEquivalence.hash(statements.get(i))).isNotEqualTo(SyntacticEquivalence.hash(statements.get(j)));
+      }
+    }
+  }
+
+  private List<StatementTree> statements(String body) {
+    ClassTree classTree = (ClassTree) compilationUnitTree("class A { void method() { " + body + " } }").types().get(0);
+    return ((MethodTree) classTree.members().get(0)).block().body();
+  }
+
   private void assertAreEquivalent(String statement1, String statement2) {
     assertAreEquivalent(Lists.newArrayList(statement1), Lists.newArrayList(statement2));
   }
@@ -0,0 +1,50 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.parser.sslr;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.sonar.sslr.api.Token;
+import org.junit.Test;
+import org.sonar.java.ast.parser.JavaParser;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SyntaxTreeCreatorTest {
+
+  @Test
+  public void tokens_with_same_value_share_it() {
+    List<Token> tokens = JavaParser.createParser(Charsets.UTF_8).parse("class A { A a; A b; }").getTokens();
+    Set<String> values = Sets.newIdentityHashSet();
+    int count = 0;
+    for (Token token : tokens) {
+      if ("A".equals(token.getValue())) {
+        values.add(token.getValue());
+        count++;
+      }
+    }
+    assertThat(count).isEqualTo(3);
+    assertThat(values).hasSize(1);
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassFileCacheTest {
+
+  private ClassFileCache classFileCache;
+
+  @Before
+  public void setUp() {
+    classFileCache = new ClassFileCache(Lists.newArrayList(new File("target/test-classes"), new File("target/classes")));
+  }
+
+  @After
+  public void tearDown() {
+    classFileCache.close();
+  }
+
+  @Test
+  public void class_file_is_read_once() {
+    byte[] bytes = classFileCache.getBytes("org/sonar/java/resolve/targets/Annotations");
+    assertThat(bytes).isNotNull();
+    assertThat(classFileCache.getBytes("org/sonar/java/resolve/targets/Annotations")).isSameAs(bytes);
+    assertThat(classFileCache.contains("org/sonar/java/resolve/targets/Annotations")).isTrue();
+  }
+
+  @Test
+  public void missing_class() {
+    assertThat(classFileCache.getBytes("org/sonar/java/resolve/targets/Missing")).isNull();
+    assertThat(classFileCache.contains("org/sonar/java/resolve/targets/Missing")).isFalse();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void class_files_can_not_be_read_once_closed() {
+    classFileCache.close();
+    classFileCache.getBytes("org/sonar/java/resolve/targets/Annotations");
+  }
+
+  @Test
+  public void completers_share_class_files() {
+    BytecodeCompleter first = new BytecodeCompleter(classFileCache, new ParametrizedTypeCache());
+    new Symbols(first);
+    BytecodeCompleter second = new BytecodeCompleter(classFileCache, new ParametrizedTypeCache());
+    new Symbols(second);
+    byte[] bytes = classFileCache.getBytes("java/lang/Object");
+
+    first.done();
+    assertThat(classFileCache.getBytes("java/lang/Object")).isSameAs(bytes);
+    JavaSymbol.TypeJavaSymbol symbol = second.getClassSymbol("org/sonar/java/resolve/targets/Annotations");
+    symbol.complete();
+    assertThat(symbol.members().scopeSymbols()).isNotEmpty();
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassSignaturesStoreTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void store_is_created_and_reused() throws Exception {
+    File jar = temp.newFile("hello.jar");
+    FileUtils.copyFile(new File("src/test/files/bytecode/lib/hello.jar"), jar);
+    File storeDirectory = temp.newFolder();
+
+    ClassSignaturesStore store = ClassSignaturesStore.open(jar, storeDirectory);
+    byte[] bytes = store.getBytes("org/sonar/tests/Hello");
+    assertThat(new ClassReader(bytes).getClassName()).isEqualTo("org/sonar/tests/Hello");
+    assertThat(store.getBytes("org/sonar/tests/Missing")).isNull();
+    store.close();
+    File[] storeFiles = storeDirectory.listFiles();
+    assertThat(storeFiles).hasSize(1);
+    long lastModified = storeFiles[0].lastModified();
+
+    storeFiles[0].setLastModified(lastModified - 10000);
+    store = ClassSignaturesStore.open(jar, storeDirectory);
+    assertThat(store.getBytes("org/sonar/tests/Hello")).isEqualTo(bytes);
+    store.close();
+    assertThat(storeFiles[0].lastModified()).isEqualTo(lastModified - 10000);
+  }
+
+  @Test
+  public void store_is_rebuilt_when_jar_changes() throws Exception {
+    File jar = temp.newFile("hello.jar");
+    FileUtils.copyFile(new File("src/test/files/bytecode/lib/hello.jar"), jar);
+    File storeDirectory = temp.newFolder();
+    ClassSignaturesStore.open(jar, storeDirectory).close();
+    File storeFile = storeDirectory.listFiles()[0];
+    long lastModified = storeFile.lastModified() - 10000;
+    storeFile.setLastModified(lastModified);
+
+    jar.setLastModified(jar.lastModified() - 20000);
+    ClassSignaturesStore store = ClassSignaturesStore.open(jar, storeDirectory);
+    assertThat(store.getBytes("org/sonar/tests/Hello")).isNotNull();
+    store.close();
+    assertThat(storeFile.lastModified()).isNotEqualTo(lastModified);
+  }
+
+  @Test
+  public void corrupted_store_is_rebuilt() throws Exception {
+    File jar = temp.newFile("hello.jar");
+    FileUtils.copyFile(new File("src/test/files/bytecode/lib/hello.jar"), jar);
+    File storeDirectory = temp.newFolder();
+    ClassSignaturesStore.open(jar, storeDirectory).close();
+    FileUtils.writeByteArrayToFile(storeDirectory.listFiles()[0], new byte[] {0x4A, 0x53});
+
+    ClassSignaturesStore store = ClassSignaturesStore.open(jar, storeDirectory);
+    assertThat(store.getBytes("org/sonar/tests/Hello")).isNotNull();
+    store.close();
+  }
+
+  @Test
+  public void class_file_cache_reads_jars_from_stores() throws Exception {
+    File storeDirectory = temp.newFolder();
+    ClassFileCache classFileCache = new ClassFileCache(
+      Lists.newArrayList(new File("src/test/files/bytecode/lib/hello.jar"), new File("target/classes")), storeDirectory);
+    assertThat(classFileCache.getBytes("org/sonar/tests/Hello")).isNotNull();
+    assertThat(classFileCache.getBytes("org/sonar/java/resolve/ClassFileCache")).isNotNull();
+    assertThat(classFileCache.getBytes("java/lang/Object")).isNotNull();
+    assertThat(classFileCache.getBytes("org/sonar/tests/Missing")).isNull();
+    classFileCache.close();
+    assertThat(storeDirectory.listFiles()).hasSize(1);
+  }
+
+  @Test
+  public void class_files_which_can_not_be_stripped_are_stored_as_is() throws Exception {
+    File jar = temp.newFile("malformed.jar");
+    byte[] unknownVersion = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 99};
+    byte[] truncated = {1, 2, 3};
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      out.putNextEntry(new JarEntry("UnknownVersion.class"));
+      out.write(unknownVersion);
+      out.putNextEntry(new JarEntry("Truncated.class"));
+      out.write(truncated);
+    } finally {
+      out.close();
+    }
+
+    ClassSignaturesStore store = ClassSignaturesStore.open(jar, temp.newFolder());
+    assertThat(store).isNotNull();
+    assertThat(store.getBytes("UnknownVersion")).isEqualTo(unknownVersion);
+    assertThat(store.getBytes("Truncated")).isEqualTo(truncated);
+    store.close();
+  }
+
+  @Test
+  public void class_file_cache_keeps_classpath_order() throws Exception {
+    File directory = temp.newFolder();
+    byte[] shadowingBytes = {1, 2, 3};
+    FileUtils.writeByteArrayToFile(new File(directory, "org/sonar/tests/Hello.class"), shadowingBytes);
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+
+    ClassFileCache classFileCache = new ClassFileCache(Lists.newArrayList(jar, directory), temp.newFolder());
+    assertThat(new ClassReader(classFileCache.getBytes("org/sonar/tests/Hello")).getClassName()).isEqualTo("org/sonar/tests/Hello");
+    classFileCache.close();
+
+    classFileCache = new ClassFileCache(Lists.newArrayList(directory, jar), temp.newFolder());
+    assertThat(classFileCache.getBytes("org/sonar/tests/Hello")).isEqualTo(shadowingBytes);
+    assertThat(classFileCache.getBytes("java/lang/Object")).isNotNull();
+    classFileCache.close();
+  }
+
+}
@@ -21,6 +21,10 @@ package org.sonar.java.resolve;
 
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -46,6 +50,93 @@ public class JavaSymbolTest {
     assertThat(symbol.completer).isNull();
   }
 
+  @Test
+  public void completion_requested_by_its_own_completer_returns() {
+    final JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
+    final AtomicInteger completions = new AtomicInteger();
+    symbol.completer = new JavaSymbol.Completer() {
+      @Override
+      public void complete(JavaSymbol completed) {
+        completions.incrementAndGet();
+        completed.complete();
+      }
+    };
+    symbol.complete();
+    assertThat(completions.get()).isEqualTo(1);
+    assertThat(symbol.completer).isNull();
+  }
+
+  @Test
+  public void threads_wait_for_completions_in_progress() throws Exception {
+    final JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
+    final CountDownLatch started = new CountDownLatch(1);
+    symbol.completer = new JavaSymbol.Completer() {
+      @Override
+      public void complete(JavaSymbol completed) {
+        started.countDown();
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        completed.name = "completed";
+      }
+    };
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        symbol.complete();
+      }
+    });
+    thread.start();
+    started.await();
+    symbol.complete();
+    assertThat(symbol.name).isEqualTo("completed");
+    thread.join();
+  }
+
+  @Test
+  public void completions_of_distinct_completers_run_concurrently() throws Exception {
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final JavaSymbol first = new JavaSymbol(0, 0, null, null);
+    final JavaSymbol second = new JavaSymbol(0, 0, null, null);
+    first.completer = new AwaitingCompleter(bothStarted);
+    second.completer = new AwaitingCompleter(bothStarted);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        first.complete();
+      }
+    });
+    thread.start();
+    second.complete();
+    thread.join();
+    assertThat(first.name).isEqualTo("completed");
+    assertThat(second.name).isEqualTo("completed");
+  }
+
+  private static class AwaitingCompleter implements JavaSymbol.Completer {
+
+    private final CountDownLatch bothStarted;
+
+    AwaitingCompleter(CountDownLatch bothStarted) {
+      this.bothStarted = bothStarted;
+    }
+
+    @Override
+    public void complete(JavaSymbol symbol) {
+      bothStarted.countDown();
+      try {
+        // would time out if completions were serialized
+        if (bothStarted.await(10, TimeUnit.SECONDS)) {
+          symbol.name = "completed";
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   @Test
   public void test_PackageSymbol() {
     JavaSymbol owner = mock(JavaSymbol.class);
@@ -0,0 +1,50 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.java.resolve;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ParametrizedTypeCacheTest {
+
+  private final ParametrizedTypeCache parametrizedTypeCache = new ParametrizedTypeCache();
+
+  @Test
+  public void equal_parametrizations_share_the_same_type() {
+    JavaSymbol.TypeJavaSymbol symbol = new JavaSymbol.TypeJavaSymbol(Flags.PUBLIC, "List", Symbols.unknownSymbol);
+    JavaType.TypeVariableJavaType e = new JavaType.TypeVariableJavaType(new JavaSymbol.TypeVariableJavaSymbol("E", symbol));
+    JavaType string = new JavaType(JavaType.CLASS, null);
+    JavaType integer = new JavaType(JavaType.CLASS, null);
+
+    JavaType listOfString = parametrizedTypeCache.getParametrizedTypeType(symbol, new TypeSubstitution().add(e, string));
+    assertThat(listOfString).isInstanceOf(JavaType.ParametrizedTypeJavaType.class);
+    assertThat(parametrizedTypeCache.getParametrizedTypeType(symbol, new TypeSubstitution().add(e, string))).isSameAs(listOfString);
+    assertThat(parametrizedTypeCache.getParametrizedTypeType(symbol, new TypeSubstitution().add(e, integer))).isNotSameAs(listOfString);
+  }
+
+  @Test
+  public void unknown_type_is_not_parametrized() {
+    JavaType.TypeVariableJavaType e = new JavaType.TypeVariableJavaType(new JavaSymbol.TypeVariableJavaSymbol("E", null));
+    TypeSubstitution substitution = new TypeSubstitution().add(e, Symbols.unknownType);
+    assertThat(parametrizedTypeCache.getParametrizedTypeType(Symbols.unknownSymbol, substitution)).isSameAs(Symbols.unknownType);
+  }
+
+}
@@ -37,6 +37,19 @@ public class ResolveTest {
 
   private Resolve.Env env = mock(Resolve.Env.class);
 
+  @Test
+  public void method_resolutions_are_reused() {
+    Symbols symbols = new Symbols(bytecodeCompleter);
+    Resolve.Resolution intPlus = resolve.findMethod(env, symbols.predefClass.type, "+", ImmutableList.of(symbols.intType, symbols.intType));
+    assertThat(intPlus.symbol().isKind(JavaSymbol.MTH)).isTrue();
+    assertThat(intPlus.type()).isSameAs(symbols.intType);
+    assertThat(resolve.findMethod(env, symbols.predefClass.type, "+", Lists.newArrayList(symbols.intType, symbols.intType))).isSameAs(intPlus);
+
+    Resolve.Resolution longPlus = resolve.findMethod(env, symbols.predefClass.type, "+", ImmutableList.of(symbols.longType, symbols.intType));
+    assertThat(longPlus).isNotSameAs(intPlus);
+    assertThat(longPlus.type()).isSameAs(symbols.longType);
+  }
+
   @Test
   public void access_public_class() {
     JavaSymbol.PackageJavaSymbol packageSymbol = new JavaSymbol.PackageJavaSymbol(null, null);
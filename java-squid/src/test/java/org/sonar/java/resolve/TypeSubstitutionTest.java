@@ -143,4 +143,23 @@ public class TypeSubstitutionTest {
       .add(v, c1);
     assertThat(substitution.equals(newSubstitution)).isFalse();
   }
+
+  @Test
+  public void replaced_substitution_keeps_its_position() {
+    substitution.add(k, c2);
+    assertThat(substitution.size()).isEqualTo(2);
+    assertThat(substitution.substitutedType(k)).isEqualTo(c2);
+    assertThat(substitution.typeVariables()).containsExactly(k, v);
+    assertThat(substitution.substitutedTypes()).containsExactly(c2, c2);
+    TypeSubstitution newSubstitution = new TypeSubstitution()
+      .add(k, c2)
+      .add(v, c2);
+    assertThat(substitution.hashCode()).isEqualTo(newSubstitution.hashCode());
+    assertThat(substitution.equals(newSubstitution)).isTrue();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void accessors_are_read_only() {
+    substitution.typeVariables().clear();
+  }
 }
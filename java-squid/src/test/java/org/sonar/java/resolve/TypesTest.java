@@ -80,6 +80,27 @@ public class TypesTest {
 
   }
 
+  @Test
+  public void subtyping_of_classes_uses_erased_supertypes_computed_once() {
+    JavaSymbol.TypeJavaSymbol interfaceSymbol = new JavaSymbol.TypeJavaSymbol(Flags.PUBLIC | Flags.INTERFACE, "MyInterface", symbols.defaultPackage);
+    JavaType.ClassJavaType interfaceType = (JavaType.ClassJavaType) interfaceSymbol.type;
+    interfaceType.interfaces = Lists.newArrayList();
+    JavaSymbol.TypeJavaSymbol typeSymbol = new JavaSymbol.TypeJavaSymbol(Flags.PUBLIC, "MyType", symbols.defaultPackage);
+    JavaType.ClassJavaType classType = (JavaType.ClassJavaType) typeSymbol.type;
+    classType.interfaces = Lists.<JavaType>newArrayList(new JavaType.ParametrizedTypeJavaType(interfaceSymbol, new TypeSubstitution()));
+    JavaSymbol.TypeJavaSymbol subtypeSymbol = new JavaSymbol.TypeJavaSymbol(Flags.PUBLIC, "MySubtype", symbols.defaultPackage);
+    JavaType.ClassJavaType subClassType = (JavaType.ClassJavaType) subtypeSymbol.type;
+    subClassType.supertype = new JavaType.ParametrizedTypeJavaType(typeSymbol, new TypeSubstitution());
+    subClassType.interfaces = Lists.newArrayList();
+
+    shouldBeSubtype(subClassType, Arrays.<JavaType>asList(subClassType, classType, interfaceType));
+    shouldNotBeSubtype(classType, Arrays.<JavaType>asList(subClassType, symbols.objectType));
+    assertThat(subtypeSymbol.superTypes()).hasSize(2);
+    assertThat(subtypeSymbol.superTypes()).isSameAs(subtypeSymbol.superTypes());
+    assertThat(subtypeSymbol.erasedSuperTypes()).containsOnly(classType, interfaceType);
+    assertThat(subtypeSymbol.erasedSuperTypes()).isSameAs(subtypeSymbol.erasedSuperTypes());
+  }
+
   @Test
   public void array_types_equality() throws Exception {
     JavaType.ArrayJavaType arrayInt= new JavaType.ArrayJavaType(symbols.intType, symbols.arrayClass);
@@ -54,6 +54,9 @@ public class Bridges {
     //Design
     if (!skipPackageDesignAnalysis && squid.isBytecodeScanned()) {
       DesignBridge designBridge = new DesignBridge(context, squid.getGraph(), resourceMapping, sonarComponents.getResourcePerspectives());
+      designBridge.setMatrixMaxSize(settings.getInt(JavaPlugin.DESIGN_MATRIX_MAX_SIZE_PROPERTY));
+      designBridge.setCyclesBudget(settings.getInt(JavaPlugin.DESIGN_CYCLES_MAX_COMPONENT_SIZE_PROPERTY), settings.getInt(JavaPlugin.DESIGN_CYCLES_TIME_BUDGET_PROPERTY));
+      designBridge.setAnalysisThreads(settings.getInt(JavaPlugin.ANALYSIS_THREADS_PROPERTY));
       designBridge.saveDesign(project);
     }
     //Report Issues
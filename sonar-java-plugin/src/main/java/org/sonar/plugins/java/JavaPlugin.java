@@ -44,6 +44,21 @@ public class JavaPlugin extends SonarPlugin {
   public static final String SQUID_ANALYSE_ACCESSORS_PROPERTY = "sonar.squid.analyse.property.accessors";
   public static final boolean SQUID_ANALYSE_ACCESSORS_DEFAULT_VALUE = true;
 
+  public static final String ANALYSIS_THREADS_PROPERTY = "sonar.java.analysis.threads";
+  public static final int ANALYSIS_THREADS_DEFAULT_VALUE = 1;
+  public static final String METHOD_ANALYSIS_THREADS_PROPERTY = "sonar.java.analysis.methodThreads";
+  public static final int METHOD_ANALYSIS_THREADS_DEFAULT_VALUE = 1;
+  public static final String CLASS_SIGNATURES_CACHE_PROPERTY = "sonar.java.classSignatures.cache";
+  public static final boolean CLASS_SIGNATURES_CACHE_DEFAULT_VALUE = false;
+  public static final String PROFILING_PROPERTY = "sonar.java.profiling";
+  public static final boolean PROFILING_DEFAULT_VALUE = false;
+  public static final String DESIGN_MATRIX_MAX_SIZE_PROPERTY = "sonar.java.design.matrixMaxSize";
+  public static final int DESIGN_MATRIX_MAX_SIZE_DEFAULT_VALUE = 0;
+  public static final String DESIGN_CYCLES_MAX_COMPONENT_SIZE_PROPERTY = "sonar.java.design.cyclesMaxComponentSize";
+  public static final int DESIGN_CYCLES_MAX_COMPONENT_SIZE_DEFAULT_VALUE = 0;
+  public static final String DESIGN_CYCLES_TIME_BUDGET_PROPERTY = "sonar.java.design.cyclesTimeBudget";
+  public static final int DESIGN_CYCLES_TIME_BUDGET_DEFAULT_VALUE = 0;
+
   @Override
   public List getExtensions() {
     ImmutableList.Builder<Object> builder = ImmutableList.builder();
@@ -74,6 +89,78 @@ public class JavaPlugin extends SonarPlugin {
             .type(PropertyType.BOOLEAN)
             .onQualifiers(Qualifiers.PROJECT)
             .build(),
+        PropertyDefinition.builder(JavaPlugin.ANALYSIS_THREADS_PROPERTY)
+            .defaultValue(Integer.toString(JavaPlugin.ANALYSIS_THREADS_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Analysis threads")
+            .description("Number of threads used by three phases of the analysis: parsing of source files, parsing of .class files " +
+                "and search of the cycles of packages. Rules still visit files one after another, methods being analyzed in parallel " +
+                "only according to the \"Method analysis threads\" property, so that results do not depend on this value.")
+            .type(PropertyType.INTEGER)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.METHOD_ANALYSIS_THREADS_PROPERTY)
+            .defaultValue(Integer.toString(JavaPlugin.METHOD_ANALYSIS_THREADS_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Method analysis threads")
+            .description("Number of threads used by the rules based on symbolic execution to analyze the methods of a file in parallel. " +
+                "Issues are reported in the same order whatever this value.")
+            .type(PropertyType.INTEGER)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.CLASS_SIGNATURES_CACHE_PROPERTY)
+            .defaultValue(Boolean.toString(JavaPlugin.CLASS_SIGNATURES_CACHE_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Cache class signatures")
+            .description("Flag whether signatures of the classes of the libraries should be kept in the working directory, " +
+                "so that libraries are not read again by subsequent analyses as long as they are not modified.")
+            .type(PropertyType.BOOLEAN)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.PROFILING_PROPERTY)
+            .defaultValue(Boolean.toString(JavaPlugin.PROFILING_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Profile checks")
+            .description("Flag whether CPU time, wall time and allocated memory of each check should be measured. " +
+                "Most expensive checks are logged, and the full report is written to java-checks-profiling.json in the working directory. " +
+                "While checks are profiled, methods are analyzed on a single thread.")
+            .type(PropertyType.BOOLEAN)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.DESIGN_MATRIX_MAX_SIZE_PROPERTY)
+            .defaultValue(Integer.toString(JavaPlugin.DESIGN_MATRIX_MAX_SIZE_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Maximum size of dependency matrices")
+            .description("Number of packages, or files of a package, above which the dependency matrix is skipped : " +
+                "it is neither serialized nor saved. The memory of the matrices which are saved is not bounded. 0 means no matrix is skipped.")
+            .type(PropertyType.INTEGER)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.DESIGN_CYCLES_MAX_COMPONENT_SIZE_PROPERTY)
+            .defaultValue(Integer.toString(JavaPlugin.DESIGN_CYCLES_MAX_COMPONENT_SIZE_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Maximum size of searched cycles")
+            .description("Number of packages, or files of a package, depending on each other above which their cycles are not searched: " +
+                "feedback edges are then approximated and cycles are under-counted. 0 means no limit.")
+            .type(PropertyType.INTEGER)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
+        PropertyDefinition.builder(JavaPlugin.DESIGN_CYCLES_TIME_BUDGET_PROPERTY)
+            .defaultValue(Integer.toString(JavaPlugin.DESIGN_CYCLES_TIME_BUDGET_DEFAULT_VALUE))
+            .category(JAVA_CATEGORY)
+            .subCategory(GENERAL_SUBCATEGORY)
+            .name("Time budget of cycles search")
+            .description("Seconds of design analysis after which cycles are no longer searched: " +
+                "feedback edges of the remaining cycles are then approximated and cycles are under-counted. 0 means no limit.")
+            .type(PropertyType.INTEGER)
+            .onQualifiers(Qualifiers.PROJECT)
+            .build(),
         PropertyDefinition.builder(CoreProperties.DESIGN_SKIP_DESIGN_PROPERTY)
             .defaultValue(Boolean.toString(CoreProperties.DESIGN_SKIP_DESIGN_DEFAULT_VALUE))
             .category(JAVA_CATEGORY)
@@ -32,6 +32,7 @@ import org.sonar.api.checks.NoSonarFilter;
 import org.sonar.api.config.Settings;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
+import org.sonar.java.ChecksProfiler;
 import org.sonar.java.DefaultJavaResourceLocator;
 import org.sonar.java.JavaClasspath;
 import org.sonar.java.JavaConfiguration;
@@ -51,6 +52,8 @@ import java.util.List;
 @DependedUpon(value = JavaUtils.BARRIER_AFTER_SQUID)
 public class JavaSquidSensor implements Sensor {
 
+  private static final int PROFILED_CHECKS_LOGGED = 10;
+
   private final JavaClasspath javaClasspath;
   private final SonarComponents sonarComponents;
   private final FileSystem fs;
@@ -83,7 +86,18 @@ public class JavaSquidSensor implements Sensor {
     JavaConfiguration configuration = createConfiguration();
     Measurer measurer = new Measurer(project, context, configuration.separatesAccessorsFromMethods());
     JavaSquid squid = new JavaSquid(configuration, sonarComponents, measurer, javaResourceLocator, sonarComponents.checkClasses());
-    squid.scan(getSourceFiles(), getTestFiles(), getBytecodeFiles());
+    ChecksProfiler profiler = configuration.getChecksProfiler();
+    try {
+      squid.scan(getSourceFiles(), getTestFiles(), getBytecodeFiles());
+    } finally {
+      if (profiler != null) {
+        profiler.close();
+      }
+    }
+    if (profiler != null) {
+      profiler.log(PROFILED_CHECKS_LOGGED);
+      profiler.save(new File(fs.workDir(), "java-checks-profiling.json"));
+    }
     new Bridges(squid, settings).save(context, project, sonarComponents, javaResourceLocator.getResourceMapping(), noSonarFilter, profile);
   }
 
@@ -115,6 +129,14 @@ public class JavaSquidSensor implements Sensor {
     Charset charset = fs.encoding();
     JavaConfiguration conf = new JavaConfiguration(charset);
     conf.setSeparateAccessorsFromMethods(analyzePropertyAccessors);
+    conf.setAnalysisThreads(settings.getInt(JavaPlugin.ANALYSIS_THREADS_PROPERTY));
+    conf.setMethodAnalysisThreads(settings.getInt(JavaPlugin.METHOD_ANALYSIS_THREADS_PROPERTY));
+    if (settings.getBoolean(JavaPlugin.CLASS_SIGNATURES_CACHE_PROPERTY)) {
+      conf.setClassSignaturesDirectory(new File(fs.workDir(), "class-signatures"));
+    }
+    if (settings.getBoolean(JavaPlugin.PROFILING_PROPERTY)) {
+      conf.setChecksProfiler(new ChecksProfiler());
+    }
     return conf;
   }
 
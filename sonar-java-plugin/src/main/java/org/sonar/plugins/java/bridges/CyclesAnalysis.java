@@ -0,0 +1,267 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.java.bridges;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Resource;
+import org.sonar.graph.Cycle;
+import org.sonar.graph.DirectedGraph;
+import org.sonar.graph.Edge;
+import org.sonar.graph.IncrementalCyclesAndFESSolver;
+import org.sonar.graph.MinimumFeedbackEdgeSetSolver;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cycles and feedback edges of the subgraph made of the given vertices.
+ * A cycle only goes through vertices of a same strongly connected component, computed once with Tarjan's algorithm :
+ * cycles are only searched in components of more than one vertex, each one on its own.
+ * Components larger than the size budget, or reached once the time budget is spent, get a heuristic feedback edge set instead :
+ * the back edges of a depth-first search, each of which closes a distinct cycle, so that cycles of such components are under-counted.
+ */
+final class CyclesAnalysis {
+
+  private final DirectedGraph<Resource, Dependency> graph;
+  private final Budget budget;
+  private final boolean minimumFeedbackEdgeSet;
+
+  private int cycles = 0;
+  private final Set<Edge> feedbackEdges = Sets.newLinkedHashSet();
+  private int feedbackEdgesWeight = 0;
+  private boolean degraded = false;
+
+  private CyclesAnalysis(DirectedGraph<Resource, Dependency> graph, Budget budget, boolean minimumFeedbackEdgeSet) {
+    this.graph = graph;
+    this.budget = budget;
+    this.minimumFeedbackEdgeSet = minimumFeedbackEdgeSet;
+  }
+
+  /**
+   * @param minimumFeedbackEdgeSet whether to search for a feedback edge set of minimum weight among the cycles of each component,
+   *                               rather than the one found along with cycles
+   */
+  static CyclesAnalysis analyze(DirectedGraph<Resource, Dependency> graph, Collection<Resource> vertices, Budget budget, boolean minimumFeedbackEdgeSet) {
+    CyclesAnalysis analysis = new CyclesAnalysis(graph, budget, minimumFeedbackEdgeSet);
+    for (List<Resource> component : analysis.stronglyConnectedComponents(ImmutableList.copyOf(vertices))) {
+      if (component.size() > 1) {
+        analysis.analyzeComponent(component);
+      }
+    }
+    return analysis;
+  }
+
+  int cycles() {
+    return cycles;
+  }
+
+  Set<Edge> feedbackEdges() {
+    return feedbackEdges;
+  }
+
+  int feedbackEdgesWeight() {
+    return feedbackEdgesWeight;
+  }
+
+  /**
+   * @return true if the heuristic feedback edge set had to be used for at least one component
+   */
+  boolean isDegraded() {
+    return degraded;
+  }
+
+  private void analyzeComponent(List<Resource> component) {
+    if (budget.isExceededBy(component)) {
+      degraded = true;
+      addBackEdges(component);
+    } else {
+      IncrementalCyclesAndFESSolver<Resource> solver = new IncrementalCyclesAndFESSolver<Resource>(graph, component);
+      Set<Cycle> componentCycles = solver.getCycles();
+      cycles += componentCycles.size();
+      if (minimumFeedbackEdgeSet) {
+        MinimumFeedbackEdgeSetSolver feedbackEdgeSetSolver = new MinimumFeedbackEdgeSetSolver(componentCycles);
+        feedbackEdges.addAll(feedbackEdgeSetSolver.getEdges());
+        feedbackEdgesWeight += feedbackEdgeSetSolver.getWeightOfFeedbackEdgeSet();
+      } else {
+        feedbackEdges.addAll(solver.getFeedbackEdgeSet());
+        feedbackEdgesWeight += solver.getWeightOfFeedbackEdgeSet();
+      }
+    }
+  }
+
+  /**
+   * Tarjan's algorithm, with an explicit stack as components of large projects are deep.
+   * Vertices of a component are listed in the order they are discovered.
+   */
+  private List<List<Resource>> stronglyConnectedComponents(List<Resource> vertices) {
+    int[][] successors = successors(vertices);
+    int size = vertices.size();
+    int[] index = new int[size];
+    int[] lowLink = new int[size];
+    int[] nextSuccessor = new int[size];
+    boolean[] onStack = new boolean[size];
+    Deque<Integer> stack = new ArrayDeque<Integer>();
+    Deque<Integer> path = new ArrayDeque<Integer>();
+    List<List<Resource>> components = Lists.newArrayList();
+    int visited = 0;
+    for (int root = 0; root < size; root++) {
+      if (index[root] != 0) {
+        continue;
+      }
+      visited++;
+      index[root] = visited;
+      lowLink[root] = visited;
+      stack.push(root);
+      onStack[root] = true;
+      path.push(root);
+      while (!path.isEmpty()) {
+        int vertex = path.peek();
+        if (nextSuccessor[vertex] < successors[vertex].length) {
+          int successor = successors[vertex][nextSuccessor[vertex]];
+          nextSuccessor[vertex]++;
+          if (index[successor] == 0) {
+            visited++;
+            index[successor] = visited;
+            lowLink[successor] = visited;
+            stack.push(successor);
+            onStack[successor] = true;
+            path.push(successor);
+          } else if (onStack[successor]) {
+            lowLink[vertex] = Math.min(lowLink[vertex], index[successor]);
+          }
+        } else {
+          path.pop();
+          if (!path.isEmpty()) {
+            lowLink[path.peek()] = Math.min(lowLink[path.peek()], lowLink[vertex]);
+          }
+          if (lowLink[vertex] == index[vertex]) {
+            List<Resource> component = Lists.newArrayList();
+            int member;
+            do {
+              member = stack.pop();
+              onStack[member] = false;
+              component.add(vertices.get(member));
+            } while (member != vertex);
+            components.add(Lists.reverse(component));
+          }
+        }
+      }
+    }
+    return components;
+  }
+
+  private int[][] successors(List<Resource> vertices) {
+    Map<Resource, Integer> indexes = Maps.newHashMap();
+    for (int i = 0; i < vertices.size(); i++) {
+      indexes.put(vertices.get(i), i);
+    }
+    int[][] successors = new int[vertices.size()][];
+    for (int i = 0; i < vertices.size(); i++) {
+      List<Integer> vertexSuccessors = Lists.newArrayList();
+      for (Dependency dependency : graph.getOutgoingEdges(vertices.get(i))) {
+        Integer successor = indexes.get(dependency.getTo());
+        if (successor != null) {
+          vertexSuccessors.add(successor);
+        }
+      }
+      successors[i] = new int[vertexSuccessors.size()];
+      for (int j = 0; j < successors[i].length; j++) {
+        successors[i][j] = vertexSuccessors.get(j);
+      }
+    }
+    return successors;
+  }
+
+  /**
+   * Removing the edges going back to a vertex of the current path of a depth-first search leaves the component without cycles.
+   */
+  private void addBackEdges(List<Resource> component) {
+    Set<Resource> members = Sets.newHashSet(component);
+    Set<Resource> visited = Sets.newHashSet();
+    Set<Resource> onPath = Sets.newHashSet();
+    Deque<Resource> path = new ArrayDeque<Resource>();
+    Deque<Iterator<Dependency>> outgoingEdges = new ArrayDeque<Iterator<Dependency>>();
+    for (Resource root : component) {
+      if (!visited.add(root)) {
+        continue;
+      }
+      path.push(root);
+      onPath.add(root);
+      outgoingEdges.push(graph.getOutgoingEdges(root).iterator());
+      while (!path.isEmpty()) {
+        Iterator<Dependency> edges = outgoingEdges.peek();
+        if (edges.hasNext()) {
+          Dependency edge = edges.next();
+          Resource successor = edge.getTo();
+          if (onPath.contains(successor)) {
+            cycles++;
+            feedbackEdges.add(edge);
+            feedbackEdgesWeight += edge.getWeight();
+          } else if (members.contains(successor) && visited.add(successor)) {
+            path.push(successor);
+            onPath.add(successor);
+            outgoingEdges.push(graph.getOutgoingEdges(successor).iterator());
+          }
+        } else {
+          onPath.remove(path.pop());
+          outgoingEdges.pop();
+        }
+      }
+    }
+  }
+
+  /**
+   * Limits on the size of components whose cycles are searched, and on the time spent searching them.
+   * The time budget is shared by all the analyses made with the same budget, a search already started is not interrupted.
+   */
+  static final class Budget {
+
+    private final int maxComponentSize;
+    private final long deadline;
+
+    /**
+     * @param maxComponentSize 0 for no limit
+     * @param timeBudgetInSeconds 0 for no limit, starting from now
+     */
+    Budget(int maxComponentSize, int timeBudgetInSeconds) {
+      this.maxComponentSize = maxComponentSize;
+      this.deadline = timeBudgetInSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeBudgetInSeconds) : 0;
+    }
+
+    static Budget unlimited() {
+      return new Budget(0, 0);
+    }
+
+    boolean isExceededBy(Collection<Resource> component) {
+      return (maxComponentSize > 0 && component.size() > maxComponentSize) || (deadline != 0 && System.nanoTime() - deadline > 0);
+    }
+  }
+
+}
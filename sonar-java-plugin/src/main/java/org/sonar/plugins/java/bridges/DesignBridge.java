@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.java.bridges;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,19 +35,24 @@ import org.sonar.api.resources.Directory;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.TimeProfiler;
-import org.sonar.graph.Cycle;
 import org.sonar.graph.DirectedGraph;
 import org.sonar.graph.Dsm;
 import org.sonar.graph.DsmTopologicalSorter;
 import org.sonar.graph.Edge;
-import org.sonar.graph.IncrementalCyclesAndFESSolver;
-import org.sonar.graph.MinimumFeedbackEdgeSetSolver;
 import org.sonar.java.bytecode.visitor.ResourceMapping;
 import org.sonar.java.checks.CycleBetweenPackagesCheck;
+import org.sonar.squidbridge.api.AnalysisException;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DesignBridge {
 
@@ -56,6 +62,10 @@ public class DesignBridge {
   private final DirectedGraph<Resource, Dependency> graph;
   private final ResourceMapping resourceMapping;
   private final ResourcePerspectives resourcePerspectives;
+  private int matrixMaxSize = 0;
+  private int cyclesMaxComponentSize = 0;
+  private int cyclesTimeBudget = 0;
+  private int analysisThreads = 1;
 
   public DesignBridge(SensorContext context, DirectedGraph<Resource, Dependency> graph, ResourceMapping resourceMapping, ResourcePerspectives resourcePerspectives) {
     this.context = context;
@@ -64,61 +74,129 @@ public class DesignBridge {
     this.resourcePerspectives = resourcePerspectives;
   }
 
+  /**
+   * @param matrixMaxSize number of packages or files above which a dependency matrix is skipped, neither serialized nor saved, 0 to skip none.
+   * It is a threshold on the dimension of matrices, not a bound on the memory used by the ones which are saved.
+   */
+  public void setMatrixMaxSize(int matrixMaxSize) {
+    this.matrixMaxSize = Math.max(0, matrixMaxSize);
+  }
+
+  /**
+   * @param maxComponentSize number of packages, or files of a package, of a cycle above which a heuristic feedback edge set is computed
+   *                         instead of searching all the cycles, 0 for no limit
+   * @param timeBudget seconds after which a heuristic feedback edge set is computed for the remaining cycles, 0 for no limit
+   */
+  public void setCyclesBudget(int maxComponentSize, int timeBudget) {
+    this.cyclesMaxComponentSize = Math.max(0, maxComponentSize);
+    this.cyclesTimeBudget = Math.max(0, timeBudget);
+  }
+
+  /**
+   * @param analysisThreads number of threads on which the cycles of packages are searched, measures are still saved one package after another
+   */
+  public void setAnalysisThreads(int analysisThreads) {
+    this.analysisThreads = Math.max(1, analysisThreads);
+  }
+
   public void saveDesign(Project sonarProject) {
     Collection<Resource> directories = resourceMapping.directories();
     TimeProfiler profiler = new TimeProfiler(LOG).start("Package design analysis");
     LOG.debug("{} packages to analyze", directories.size());
+    CyclesAnalysis.Budget budget = new CyclesAnalysis.Budget(cyclesMaxComponentSize, cyclesTimeBudget);
 
-    IncrementalCyclesAndFESSolver<Resource> cyclesAndFESSolver = new IncrementalCyclesAndFESSolver<>(graph, directories);
-    LOG.debug("{} cycles", cyclesAndFESSolver.getCycles().size());
+    CyclesAnalysis packageCycles = CyclesAnalysis.analyze(graph, directories, budget, false);
+    logIfDegraded(sonarProject, packageCycles);
+    LOG.debug("{} cycles", packageCycles.cycles());
 
-    Set<Edge> feedbackEdges = cyclesAndFESSolver.getFeedbackEdgeSet();
+    Set<Edge> feedbackEdges = packageCycles.feedbackEdges();
     LOG.debug("{} feedback edges", feedbackEdges.size());
-    int tangles = cyclesAndFESSolver.getWeightOfFeedbackEdgeSet();
 
     saveIssues(feedbackEdges);
     saveDependencies();
-    savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_CYCLES, cyclesAndFESSolver.getCycles().size());
+    savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_CYCLES, packageCycles.cycles());
     savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_FEEDBACK_EDGES, feedbackEdges.size());
-    savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_TANGLES, tangles);
+    savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_TANGLES, packageCycles.feedbackEdgesWeight());
     savePositiveMeasure(sonarProject, CoreMetrics.PACKAGE_EDGES_WEIGHT, getEdgesWeight(directories));
 
-    String dsmJson = serializeDsm(graph, directories, feedbackEdges);
-    Measure dsmMeasure = new Measure(CoreMetrics.DEPENDENCY_MATRIX, dsmJson).setPersistenceMode(PersistenceMode.DATABASE);
-    context.saveMeasure(sonarProject, dsmMeasure);
+    saveDsm(sonarProject, directories, feedbackEdges);
 
     profiler.stop();
 
+    List<Resource> sonarPackages = Lists.newArrayList();
+    List<Collection<Resource>> packagesFiles = Lists.newArrayList();
     for (Resource sonarPackage : directories) {
-      onPackage(sonarPackage);
+      Collection<Resource> squidFiles = getResourcesForDirectory(sonarPackage);
+      if (!squidFiles.isEmpty()) {
+        sonarPackages.add(sonarPackage);
+        packagesFiles.add(squidFiles);
+      }
+    }
+    if (analysisThreads > 1) {
+      parallelAnalyzePackages(sonarPackages, packagesFiles, budget);
+    } else {
+      for (int i = 0; i < sonarPackages.size(); i++) {
+        onPackage(sonarPackages.get(i), packagesFiles.get(i), CyclesAnalysis.analyze(graph, packagesFiles.get(i), budget, true));
+      }
     }
   }
 
-  private void savePositiveMeasure(Resource sonarResource, Metric metric, double value) {
-    if (value >= 0.0) {
-      context.saveMeasure(sonarResource, metric, value);
+  /**
+   * Cycles of packages are searched ahead on the analysis threads, while measures are saved on the current thread in the order of packages.
+   */
+  private void parallelAnalyzePackages(List<Resource> sonarPackages, List<Collection<Resource>> packagesFiles, final CyclesAnalysis.Budget budget) {
+    ExecutorService executor = Executors.newFixedThreadPool(analysisThreads, new DesignAnalysisThreadFactory());
+    try {
+      List<Future<CyclesAnalysis>> fileCycles = Lists.newArrayList();
+      for (final Collection<Resource> squidFiles : packagesFiles) {
+        fileCycles.add(executor.submit(new Callable<CyclesAnalysis>() {
+          @Override
+          public CyclesAnalysis call() {
+            return CyclesAnalysis.analyze(graph, squidFiles, budget, true);
+          }
+        }));
+      }
+      for (int i = 0; i < sonarPackages.size(); i++) {
+        onPackage(sonarPackages.get(i), packagesFiles.get(i), waitFor(fileCycles.get(i)));
+      }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  private void onPackage(Resource sonarPackage) {
-    Collection<Resource> squidFiles = getResourcesForDirectory(sonarPackage);
-    if (squidFiles != null && !squidFiles.isEmpty()) {
-      IncrementalCyclesAndFESSolver<Resource> cycleDetector = new IncrementalCyclesAndFESSolver<>(graph, squidFiles);
-      Set<Cycle> cycles = cycleDetector.getCycles();
+  private static CyclesAnalysis waitFor(Future<CyclesAnalysis> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while analyzing package design", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
 
-      MinimumFeedbackEdgeSetSolver solver = new MinimumFeedbackEdgeSetSolver(cycles);
-      Set<Edge> feedbackEdges = solver.getEdges();
-      int tangles = solver.getWeightOfFeedbackEdgeSet();
+  private static void logIfDegraded(Resource sonarResource, CyclesAnalysis cycles) {
+    if (cycles.isDegraded()) {
+      LOG.info("Cycles of {} exceed the design analysis budget, their count is a lower bound and feedback edges are approximated", sonarResource.getKey());
+    }
+  }
 
-      savePositiveMeasure(sonarPackage, CoreMetrics.FILE_CYCLES, cycles.size());
-      savePositiveMeasure(sonarPackage, CoreMetrics.FILE_FEEDBACK_EDGES, feedbackEdges.size());
-      savePositiveMeasure(sonarPackage, CoreMetrics.FILE_TANGLES, tangles);
-      savePositiveMeasure(sonarPackage, CoreMetrics.FILE_EDGES_WEIGHT, getEdgesWeight(squidFiles));
-      String dsmJson = serializeDsm(graph, squidFiles, feedbackEdges);
-      context.saveMeasure(sonarPackage, new Measure(CoreMetrics.DEPENDENCY_MATRIX, dsmJson));
+  private void savePositiveMeasure(Resource sonarResource, Metric metric, double value) {
+    if (value >= 0.0) {
+      context.saveMeasure(sonarResource, metric, value);
     }
   }
 
+  private void onPackage(Resource sonarPackage, Collection<Resource> squidFiles, CyclesAnalysis fileCycles) {
+    logIfDegraded(sonarPackage, fileCycles);
+    Set<Edge> feedbackEdges = fileCycles.feedbackEdges();
+    savePositiveMeasure(sonarPackage, CoreMetrics.FILE_CYCLES, fileCycles.cycles());
+    savePositiveMeasure(sonarPackage, CoreMetrics.FILE_FEEDBACK_EDGES, feedbackEdges.size());
+    savePositiveMeasure(sonarPackage, CoreMetrics.FILE_TANGLES, fileCycles.feedbackEdgesWeight());
+    savePositiveMeasure(sonarPackage, CoreMetrics.FILE_EDGES_WEIGHT, getEdgesWeight(squidFiles));
+    saveDsm(sonarPackage, squidFiles, feedbackEdges);
+  }
+
   private Collection<Resource> getResourcesForDirectory(Resource sonarPackage) {
     List<Resource> result = Lists.newArrayList();
     for (Resource resource : resourceMapping.files((Directory) sonarPackage)) {
@@ -136,10 +214,18 @@ public class DesignBridge {
     return total;
   }
 
-  private static String serializeDsm(DirectedGraph<Resource, Dependency> graph, Collection<Resource> sources, Set<Edge> feedbackEdges) {
-    Dsm<Resource>  dsm = new Dsm<Resource>(graph, sources, feedbackEdges);
+  /**
+   * Matrices are only persisted in database, so that they are not kept in memory until the end of the analysis.
+   */
+  private void saveDsm(Resource sonarResource, Collection<Resource> sources, Set<Edge> feedbackEdges) {
+    if (matrixMaxSize > 0 && sources.size() > matrixMaxSize) {
+      LOG.info("Dependency matrix of {} is not saved, as its {} elements exceed the maximum of {}", new Object[] {sonarResource.getKey(), sources.size(), matrixMaxSize});
+      return;
+    }
+    Dsm<Resource> dsm = new Dsm<Resource>(graph, sources, feedbackEdges);
     DsmTopologicalSorter.sort(dsm);
-    return DsmSerializer.serialize(dsm);
+    Measure dsmMeasure = new Measure(CoreMetrics.DEPENDENCY_MATRIX, DsmSerializer.serialize(dsm)).setPersistenceMode(PersistenceMode.DATABASE);
+    context.saveMeasure(sonarResource, dsmMeasure);
   }
 
   private void saveIssues(Set<Edge> feedbackEdges) {
@@ -166,5 +252,16 @@ public class DesignBridge {
     }
   }
 
+  private static class DesignAnalysisThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "java-design-analysis-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 
 }
@@ -24,14 +24,34 @@ import org.sonar.api.resources.Resource;
 import org.sonar.graph.Dsm;
 import org.sonar.graph.DsmCell;
 
+/**
+ * Serializes a matrix into the JSON expected by the dependency matrix viewer, where each row lists all its cells, empty ones included.
+ * The matrix is serialized in a single pass, into a buffer sized for its empty cells, so that large matrices are not copied over and over
+ * while the buffer grows.
+ */
 public final class DsmSerializer {
 
-  private Dsm dsm;
-  private StringBuilder json;
+  private static final String EMPTY_CELL = "{}";
+  /**
+   * Usual length of the fields of a row, other than its cells.
+   */
+  private static final int ROW_LENGTH = 64;
+  private static final int MAX_INITIAL_CAPACITY = Integer.MAX_VALUE / 2;
+
+  private final Dsm<Resource> dsm;
+  private final StringBuilder json;
 
   private DsmSerializer(Dsm<Resource> dsm) {
     this.dsm = dsm;
-    this.json = new StringBuilder();
+    this.json = new StringBuilder(initialCapacity(dsm.getDimension()));
+  }
+
+  /**
+   * @return length of the serialization of a matrix of the given dimension whose cells are all empty
+   */
+  private static int initialCapacity(int dimension) {
+    long length = 2 + (long) dimension * (ROW_LENGTH + 1 + (long) dimension * (EMPTY_CELL.length() + 1));
+    return (int) Math.min(length, MAX_INITIAL_CAPACITY);
   }
 
   private String serialize() {
@@ -51,7 +71,7 @@ public final class DsmSerializer {
   }
 
   private void serializeRow(int y) {
-    Resource sonarResource = (Resource) dsm.getVertex(y);
+    Resource sonarResource = dsm.getVertex(y);
 
     json.append("{");
     if (sonarResource != null) {
@@ -75,14 +95,15 @@ public final class DsmSerializer {
 
   private void serializeCell(int y, int x) {
     DsmCell cell = dsm.getCell(x, y);
-    json.append('{');
     if (cell.getEdge() != null && cell.getWeight() > 0) {
-      json.append("\"i\":");
+      json.append("{\"i\":");
       json.append(((Dependency) cell.getEdge()).getId());
       json.append(",\"w\":");
       json.append(cell.getWeight());
+      json.append('}');
+    } else {
+      json.append(EMPTY_CELL);
     }
-    json.append('}');
   }
 
   public static String serialize(Dsm<Resource> dsm) {
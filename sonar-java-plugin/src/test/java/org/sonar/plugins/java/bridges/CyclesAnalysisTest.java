@@ -0,0 +1,120 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.java.bridges;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Directory;
+import org.sonar.api.resources.Resource;
+import org.sonar.graph.DirectedGraph;
+import org.sonar.graph.IncrementalCyclesAndFESSolver;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CyclesAnalysisTest {
+
+  private DirectedGraph<Resource, Dependency> graph;
+  private Resource a, b, c, d, e, f;
+
+  /**
+   * a <-> b -> c -> d -> e -> c, and f alone
+   */
+  @Before
+  public void setUp() {
+    graph = new DirectedGraph<Resource, Dependency>();
+    a = Directory.create("a");
+    b = Directory.create("b");
+    c = Directory.create("c");
+    d = Directory.create("d");
+    e = Directory.create("e");
+    f = Directory.create("f");
+    graph.addVertices(ImmutableList.of(a, b, c, d, e, f));
+    addEdge(a, b, 1);
+    addEdge(b, a, 3);
+    addEdge(b, c, 5);
+    addEdge(c, d, 2);
+    addEdge(d, e, 2);
+    addEdge(e, c, 1);
+  }
+
+  private void addEdge(Resource from, Resource to, int weight) {
+    graph.addEdge(new Dependency(from, to).setWeight(weight));
+  }
+
+  @Test
+  public void cycles_are_searched_in_each_strongly_connected_component() {
+    CyclesAnalysis analysis = CyclesAnalysis.analyze(graph, graph.getVertices(), CyclesAnalysis.Budget.unlimited(), false);
+    IncrementalCyclesAndFESSolver<Resource> solver = new IncrementalCyclesAndFESSolver<Resource>(graph, graph.getVertices());
+    assertThat(analysis.cycles()).isEqualTo(solver.getCycles().size()).isEqualTo(2);
+    assertThat(analysis.feedbackEdges()).isEqualTo(solver.getFeedbackEdgeSet());
+    assertThat(analysis.feedbackEdges()).containsOnly(graph.getEdge(a, b), graph.getEdge(e, c));
+    assertThat(analysis.feedbackEdgesWeight()).isEqualTo(solver.getWeightOfFeedbackEdgeSet()).isEqualTo(2);
+    assertThat(analysis.isDegraded()).isFalse();
+
+    analysis = CyclesAnalysis.analyze(graph, graph.getVertices(), CyclesAnalysis.Budget.unlimited(), true);
+    assertThat(analysis.cycles()).isEqualTo(2);
+    assertThat(analysis.feedbackEdges()).containsOnly(graph.getEdge(a, b), graph.getEdge(e, c));
+    assertThat(analysis.feedbackEdgesWeight()).isEqualTo(2);
+  }
+
+  @Test
+  public void only_given_vertices_are_analyzed() {
+    CyclesAnalysis analysis = CyclesAnalysis.analyze(graph, ImmutableList.of(a, c, d, e, f), CyclesAnalysis.Budget.unlimited(), true);
+    assertThat(analysis.cycles()).isEqualTo(1);
+    assertThat(analysis.feedbackEdges()).containsOnly(graph.getEdge(e, c));
+
+    analysis = CyclesAnalysis.analyze(graph, ImmutableList.of(a, c, d, f), CyclesAnalysis.Budget.unlimited(), true);
+    assertThat(analysis.cycles()).isEqualTo(0);
+    assertThat(analysis.feedbackEdges()).isEmpty();
+    assertThat(analysis.feedbackEdgesWeight()).isEqualTo(0);
+  }
+
+  @Test
+  public void back_edges_are_feedback_edges_of_components_exceeding_budget() {
+    CyclesAnalysis analysis = CyclesAnalysis.analyze(graph, graph.getVertices(), new CyclesAnalysis.Budget(2, 0), true);
+    assertThat(analysis.isDegraded()).isTrue();
+    assertThat(analysis.cycles()).isEqualTo(2);
+    assertThat(analysis.feedbackEdges()).containsOnly(graph.getEdge(a, b), graph.getEdge(e, c));
+    assertThat(analysis.feedbackEdgesWeight()).isEqualTo(2);
+  }
+
+  @Test
+  public void large_components_do_not_overflow_stack() {
+    DirectedGraph<Resource, Dependency> ring = new DirectedGraph<Resource, Dependency>();
+    List<Resource> vertices = Lists.newArrayList();
+    for (int i = 0; i < 100000; i++) {
+      vertices.add(Directory.create("p" + i));
+    }
+    ring.addVertices(vertices);
+    for (int i = 0; i < vertices.size(); i++) {
+      ring.addEdge(new Dependency(vertices.get(i), vertices.get((i + 1) % vertices.size())).setWeight(1));
+    }
+    CyclesAnalysis analysis = CyclesAnalysis.analyze(ring, vertices, new CyclesAnalysis.Budget(1000, 0), true);
+    assertThat(analysis.isDegraded()).isTrue();
+    assertThat(analysis.cycles()).isEqualTo(1);
+    assertThat(analysis.feedbackEdges()).containsOnly(ring.getEdge(vertices.get(vertices.size() - 1), vertices.get(0)));
+  }
+
+}
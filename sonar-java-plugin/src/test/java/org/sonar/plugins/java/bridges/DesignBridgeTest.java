@@ -19,11 +19,16 @@
  */
 package org.sonar.plugins.java.bridges;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.design.Dependency;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.Directory;
+import org.sonar.api.resources.File;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.graph.DirectedGraph;
@@ -32,8 +37,10 @@ import org.sonar.java.bytecode.visitor.ResourceMapping;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DesignBridgeTest {
 
@@ -47,6 +54,44 @@ public class DesignBridgeTest {
     DesignBridge bridge = new DesignBridge(context, graph, resourceMapping, resourcePerspectives);
     bridge.saveDesign(mock(Project.class));
     verify(context, times(4)).saveMeasure(any(Resource.class), any(Metric.class), anyDouble());
+    verify(context).saveMeasure(any(Resource.class), any(Measure.class));
+  }
 
+  @Test
+  public void matrices_above_max_size_are_not_saved() throws Exception {
+    SensorContext context = mock(SensorContext.class);
+    DirectedGraph<Resource, Dependency> graph = mock(DirectedGraph.class);
+    ResourceMapping resourceMapping = mock(ResourceMapping.class);
+    when(resourceMapping.directories()).thenReturn(ImmutableSet.<Resource>of(new Directory("foo"), new Directory("bar")));
+    DesignBridge bridge = new DesignBridge(context, graph, resourceMapping, mock(ResourcePerspectives.class));
+    bridge.setMatrixMaxSize(1);
+    bridge.saveDesign(mock(Project.class));
+    verify(context, times(4)).saveMeasure(any(Resource.class), any(Metric.class), anyDouble());
+    verify(context, never()).saveMeasure(any(Resource.class), any(Measure.class));
+  }
+
+  @Test
+  public void packages_are_analyzed_on_several_threads() throws Exception {
+    SensorContext context = mock(SensorContext.class);
+    DirectedGraph<Resource, Dependency> graph = new DirectedGraph<>();
+    Directory foo = Directory.create("foo");
+    Directory bar = Directory.create("bar");
+    Resource file1 = File.create("foo/A.java");
+    Resource file2 = File.create("foo/B.java");
+    graph.addEdge(new Dependency(file1, file2).setWeight(1));
+    graph.addEdge(new Dependency(file2, file1).setWeight(2));
+    ResourceMapping resourceMapping = mock(ResourceMapping.class);
+    when(resourceMapping.directories()).thenReturn(ImmutableSet.<Resource>of(foo, bar));
+    when(resourceMapping.files(foo)).thenReturn(ImmutableSet.of(file1, file2));
+    when(resourceMapping.files(bar)).thenReturn(ImmutableSet.<Resource>of());
+    when(context.getResource(file1)).thenReturn(file1);
+    when(context.getResource(file2)).thenReturn(file2);
+    DesignBridge bridge = new DesignBridge(context, graph, resourceMapping, mock(ResourcePerspectives.class));
+    bridge.setAnalysisThreads(4);
+    bridge.saveDesign(mock(Project.class));
+    verify(context).saveMeasure(foo, CoreMetrics.FILE_CYCLES, 1.0);
+    verify(context).saveMeasure(foo, CoreMetrics.FILE_FEEDBACK_EDGES, 1.0);
+    verify(context).saveMeasure(foo, CoreMetrics.FILE_TANGLES, 1.0);
+    verify(context, never()).saveMeasure(bar, CoreMetrics.FILE_CYCLES, 0.0);
   }
 }
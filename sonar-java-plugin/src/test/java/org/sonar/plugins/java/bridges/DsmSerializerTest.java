@@ -0,0 +1,69 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012 SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.java.bridges;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Directory;
+import org.sonar.api.resources.Resource;
+import org.sonar.graph.DirectedGraph;
+import org.sonar.graph.Dsm;
+import org.sonar.graph.Edge;
+
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DsmSerializerTest {
+
+  @Test
+  public void rows_list_all_cells() {
+    Resource foo = directory(1, "foo");
+    Resource bar = directory(2, "bar");
+    Resource baz = directory(3, "baz");
+    DirectedGraph<Resource, Dependency> graph = new DirectedGraph<Resource, Dependency>();
+    Dependency dependency = new Dependency(foo, bar).setWeight(3);
+    dependency.setId(10L);
+    graph.addEdge(dependency);
+    graph.addVertex(baz);
+
+    Dsm<Resource> dsm = new Dsm<Resource>(graph, ImmutableList.<Resource>of(foo, bar, baz), Collections.<Edge>emptySet());
+
+    assertThat(DsmSerializer.serialize(dsm)).isEqualTo("["
+      + "{\"i\":1,\"n\":\"foo\",\"q\":\"DIR\",\"v\":[{},{},{}]},"
+      + "{\"i\":2,\"n\":\"bar\",\"q\":\"DIR\",\"v\":[{\"i\":10,\"w\":3},{},{}]},"
+      + "{\"i\":3,\"n\":\"baz\",\"q\":\"DIR\",\"v\":[{},{},{}]}"
+      + "]");
+  }
+
+  @Test
+  public void empty_matrix() {
+    Dsm<Resource> dsm = new Dsm<Resource>(new DirectedGraph<Resource, Dependency>(), Collections.<Resource>emptyList(), Collections.<Edge>emptySet());
+    assertThat(DsmSerializer.serialize(dsm)).isEqualTo("[]");
+  }
+
+  private static Resource directory(int id, String path) {
+    Directory directory = Directory.create(path);
+    directory.setId(id);
+    return directory;
+  }
+
+}